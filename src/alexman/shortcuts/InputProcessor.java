@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Set;
 
 import alexman.shortcuts.kbsimulator.KeyboardSimulator;
+import alexman.shortcuts.shortcut.model.KeySequence;
 import alexman.shortcuts.shortcut.model.Shortcut;
 
 /**
@@ -34,9 +35,29 @@ public class InputProcessor {
 		process(shortcut.getKeySequence());
 	}
 
+	public void process(KeySequence keySequence) {
+		for (int chord = 0; chord < keySequence.chordCount(); chord++) {
+			processChord(keySequence, chord);
+		}
+	}
+
 	public void process(List<List<Integer>> keySequence) {
-		for (List<Integer> word : keySequence) {
-			processWord(word);
+		process(KeySequence.of(keySequence));
+	}
+
+	public void processChord(KeySequence keySequence, int chord) {
+		int length = keySequence.chordLength(chord);
+
+		// press in order
+		for (int i = 0; i < length; i++) {
+			int token = keySequence.keyCode(chord, i);
+			kbds.forEach(kbd -> kbd.keyPress(token));
+		}
+
+		// release in reverse order
+		for (int i = length - 1; i >= 0; i--) {
+			int token = keySequence.keyCode(chord, i);
+			kbds.forEach(kbd -> kbd.keyRelease(token));
 		}
 	}
 
@@ -1,18 +1,28 @@
 package alexman.shortcuts.app.editor;
 
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
+import alexman.shortcuts.app.util.BoundedUndoableHistory;
 import alexman.shortcuts.shortcut.IShortcutFormatter;
+import alexman.shortcuts.shortcut.analysis.Conflict;
+import alexman.shortcuts.shortcut.analysis.ConflictAnalyzer;
+import alexman.shortcuts.shortcut.analysis.FreeChordFinder;
 import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.ParseCache;
+import alexman.shortcuts.shortcut.model.PersistentShortcutList;
 import alexman.shortcuts.shortcut.model.Shortcut;
+import alexman.shortcuts.shortcut.model.ShortcutJournal;
 import alexman.undo.Undoable;
-import alexman.undo.UndoableHistory;
 
 /**
  * TODO
@@ -24,9 +34,26 @@ class EditorBackend {
 
 	static final String USER_DIR = System.getProperty("user.dir");
 
+	// long sessions on large files forget their oldest commands
+	static final int HISTORY_ENTRIES = 1_000;
+	static final long HISTORY_BYTES = 1 << 20;
+
 	private final IShortcutModel sm;
+	private final ParseCache cache = new ParseCache();
+	private final ConflictAnalyzer analyzer = new ConflictAnalyzer();
+	private final FreeChordFinder finder = new FreeChordFinder();
 	private String lastLoadedFile;
-	private final UndoableHistory<EditorCommand> history = new UndoableHistory<>();
+
+	// every edit is appended to the journal of the file, which is folded into it
+	// when saving. Files in directories which aren't writable have no journal
+	private ShortcutJournal journal;
+
+	// the Shortcuts of the model, now and when the file was last loaded or saved
+	private PersistentShortcutList current = PersistentShortcutList.empty();
+	private PersistentShortcutList saved = current;
+
+	private final BoundedUndoableHistory<EditorCommand> history = new BoundedUndoableHistory<>(
+	        HISTORY_ENTRIES, HISTORY_BYTES, EditorCommand::size, EditorCommand::merge);
 
 	private final Consumer<String> onLoadedFileChanged;
 	private final Consumer<Boolean> onUndoEnabledChanged, onRedoEnabledChanged;
@@ -51,6 +78,164 @@ class EditorBackend {
 		return sm.getFormatter();
 	}
 
+	public PersistentShortcutList getSnapshot() {
+		return current;
+	}
+
+	public boolean isModified() {
+		return !current.equals(saved);
+	}
+
+	public List<Conflict> getConflicts() {
+		return analyzer.getConflicts();
+	}
+
+	public List<Conflict> getConflicts(Shortcut shortcut) {
+		return analyzer.getConflicts(shortcut.getKeySequence());
+	}
+
+	public List<KeySequence> suggestFreeChords(String modifiers, int count) {
+		return finder.suggest(FreeChordFinder.modifierMask(modifiers), count);
+	}
+
+	// every edit changes a single row, so that undoing it restores that row
+	private void addShortcut(int index, Shortcut shortcut) {
+		sm.insertShortcut(index, shortcut);
+		analyzer.add(shortcut);
+		finder.add(shortcut);
+		current = current.plus(index, shortcut);
+		if (journal != null)
+			journal.add(index, shortcut);
+	}
+
+	private void removeShortcut(int index) {
+		Shortcut shortcut = sm.getShortcuts().get(index);
+		sm.removeShortcut(index);
+		analyzer.remove(shortcut);
+		finder.remove(shortcut);
+		current = current.minus(index);
+		if (journal != null)
+			journal.remove(index, shortcut);
+	}
+
+	// the new Shortcut takes the place of the one at the index of the model
+	private void replaceShortcut(int index, Shortcut newShortcut) {
+		Shortcut oldShortcut = sm.getShortcuts().get(index);
+		sm.replaceShortcut(index, newShortcut);
+		analyzer.remove(oldShortcut);
+		analyzer.add(newShortcut);
+		finder.remove(oldShortcut);
+		finder.add(newShortcut);
+		current = current.with(index, newShortcut);
+		if (journal != null)
+			journal.replace(index, oldShortcut, newShortcut);
+	}
+
+	private void restore(PersistentShortcutList snapshot) {
+		sm.replaceAll(snapshot);
+		analyzer.build(sm);
+		finder.build(sm);
+		current = snapshot;
+	}
+
+	/**
+	 * Makes many edits as a single one: the model notifies its listeners once,
+	 * after all of them have been made, and they are added to the history as one
+	 * command, which undoes and redoes them the same way. If an edit throws, the
+	 * edits before it are undone and the exception is rethrown.
+	 *
+	 * @param edits makes the edits using the given Transaction
+	 */
+	public void transaction(Consumer<? super Transaction> edits) {
+		Transaction transaction = new Transaction();
+		try {
+			sm.batch(m -> edits.accept(transaction));
+		} catch (RuntimeException e) {
+			new CompoundCommand(this, transaction.commands).unexecute();
+			throw e;
+		}
+
+		if (!transaction.commands.isEmpty()) {
+			history.add(new CompoundCommand(this, transaction.commands));
+			EditorAction.onHistoryChanged(this);
+		}
+	}
+
+	/**
+	 * The edits of a {@link EditorBackend#transaction(Consumer) transaction},
+	 * which are made as soon as they are requested.
+	 */
+	final class Transaction {
+
+		private final List<EditorCommand> commands = new ArrayList<>();
+
+		private Transaction() {}
+
+		public Transaction add(String action, String keySequence) {
+			return run(new AddShortcut(EditorBackend.this, new Shortcut(action, keySequence)));
+		}
+
+		public Transaction remove(Shortcut shortcut) {
+			return run(new RemoveShortcut(EditorBackend.this, shortcut));
+		}
+
+		public Transaction edit(Shortcut oldShortcut, String action, String keySequence) {
+			return run(new EditShortcut(EditorBackend.this, oldShortcut,
+			        new Shortcut(action, keySequence)));
+		}
+
+		private Transaction run(EditorCommand command) {
+			command.execute();
+			commands.add(command);
+			return this;
+		}
+	}
+
+	// returns null if the journal can't be written next to the file
+	private ShortcutJournal openJournal(String filename) throws IOException {
+		Path file = Path.of(filename).toAbsolutePath();
+		if (!Files.isWritable(file.getParent()))
+			return null;
+
+		return new ShortcutJournal(file, sm.getFormatter());
+	}
+
+	/*
+	 * The previous journal is only closed once the new one has been opened. The
+	 * edits in it which weren't saved are abandoned, so that they aren't
+	 * recovered when its file is loaded again.
+	 */
+	private void setJournal(ShortcutJournal opened) throws IOException {
+		ShortcutJournal previous = journal;
+		journal = opened;
+		if (previous != null) {
+			try {
+				previous.discardUnsaved();
+			} finally {
+				previous.close();
+			}
+		}
+	}
+
+	private boolean isLoaded(String filename) {
+		return (lastLoadedFile != null) && Path.of(lastLoadedFile).toAbsolutePath().normalize()
+		        .equals(Path.of(filename).toAbsolutePath().normalize());
+	}
+
+	private void store(String filename) throws IOException {
+		try (Writer writer = new BufferedWriter(new FileWriter(filename))) {
+			sm.store(writer);
+		}
+	}
+
+	// the most recent command can't be merged with the next one, since undoing
+	// the merged command would also undo an edit which has been saved
+	private void sealHistory() {
+		List<EditorCommand> past = history.getPast();
+		if (!past.isEmpty())
+			past.get(0).mergeable = false;
+	}
+
 	public enum EditorAction {
 
 		LOAD {
@@ -59,9 +244,35 @@ class EditorBackend {
 				EditorBackend context = (EditorBackend) args[0];
 				String filename = (String) args[1];
 
-				try (Reader reader = new FileReader(filename)) {
-					context.sm.load(reader);
+				// the model is left unchanged if the file can't be loaded
+				PersistentShortcutList previous = context.current;
+				context.cache.load(context.sm, Path.of(filename));
+
+				// loading the same file again abandons the edits which weren't saved
+				if (context.isLoaded(filename))
+					context.setJournal(null);
+
+				// recovers the edits of a session which stopped without closing its
+				// journal, saved or not, and only then replaces the previous journal
+				ShortcutJournal opened = null;
+				List<Shortcut> recovered = List.copyOf(context.sm.getShortcuts());
+				try {
+					opened = context.openJournal(filename);
+					if (opened != null)
+						recovered = opened.replay(context.sm);
+				} catch (IOException | RuntimeException e) {
+					if (opened != null)
+						opened.close();
+					context.restore(previous);
+					throw e;
 				}
+				context.setJournal(opened);
+
+				context.analyzer.build(context.sm);
+				context.finder.build(context.sm);
+				context.current = PersistentShortcutList.of(context.sm.getShortcuts());
+				context.saved = recovered.equals(context.current) ? context.current
+				        : PersistentShortcutList.of(recovered);
 				context.lastLoadedFile = filename;
 				context.onLoadedFileChanged.accept(filename);
 				context.history.clear();
@@ -97,6 +308,17 @@ class EditorBackend {
 			}
 		},
 
+		REMOVE_ALL {
+			@Override
+			public void perform(Object... args) {
+				EditorBackend context = (EditorBackend) args[0];
+				@SuppressWarnings("unchecked")
+				List<Shortcut> shortcuts = (List<Shortcut>) args[1];
+
+				context.transaction(t -> shortcuts.forEach(t::remove));
+			}
+		},
+
 		EDIT {
 			@Override
 			public void perform(Object... args) {
@@ -138,13 +360,12 @@ class EditorBackend {
 			public void perform(Object... args) throws IOException, Exception {
 				EditorBackend context = (EditorBackend) args[0];
 
-				if (context.fileIsLoaded()) {
-					LOAD.perform(context, context.lastLoadedFile);
-				} else {
-					context.sm.clear();
-					context.history.clear();
-					onHistoryChanged(context);
-				}
+				// the Shortcuts of the file are still around, no need to read it again
+				context.restore(context.saved);
+				if (context.journal != null)
+					context.journal.discardUnsaved();
+				context.history.clear();
+				onHistoryChanged(context);
 			}
 		},
 
@@ -154,10 +375,15 @@ class EditorBackend {
 				EditorBackend context = (EditorBackend) args[0];
 				String filename = (String) args[1];
 
-				try (Writer writer = new FileWriter(filename)) {
-					context.sm.store(writer);
-				}
+				context.store(filename);
 
+				// the edits were saved to the new file, not to the old one
+				if (context.journal != null)
+					context.journal.discardUnsaved();
+				context.setJournal(context.openJournal(filename));
+
+				context.saved = context.current;
+				context.sealHistory();
 				context.lastLoadedFile = filename;
 				context.onLoadedFileChanged.accept(filename);
 			}
@@ -168,7 +394,25 @@ class EditorBackend {
 			public void perform(Object... args) throws IOException, Exception {
 				EditorBackend context = (EditorBackend) args[0];
 
-				SAVE_AS.perform(context, context.lastLoadedFile);
+				// the journal is forced to the disk before the file is rewritten
+				if (context.isModified()) {
+					if (context.journal != null)
+						context.journal.save(context.current);
+					else
+						context.store(context.lastLoadedFile);
+					context.saved = context.current;
+				}
+				context.sealHistory();
+			}
+		},
+
+		CLOSE {
+			@Override
+			public void perform(Object... args) throws IOException {
+				EditorBackend context = (EditorBackend) args[0];
+
+				// the edits which weren't saved are abandoned, only a crash keeps them
+				context.setJournal(null);
 			}
 		};
 
@@ -184,15 +428,38 @@ class EditorBackend {
 
 		protected final EditorBackend context;
 
+		// cleared when the file is saved after this command, so that undoing a
+		// later command doesn't also undo this one
+		boolean mergeable = true;
+
 		public EditorCommand(EditorBackend context) {
 			this.context = context;
 		}
+
+		// an estimate of the memory held by this command
+		abstract long size();
+
+		// returns a command with the effect of this one followed by the next one,
+		// or null if they can't be merged
+		EditorCommand merge(EditorCommand next) {
+			return null;
+		}
+
+		static long sizeOf(Shortcut shortcut) {
+			String action = shortcut.getAction();
+			return 64 + (action == null ? 0 : 2L * action.length())
+			        + (4L * shortcut.getKeySequence().keyCount());
+		}
 	}
 
 	private static class AddShortcut extends EditorCommand {
 
 		private final Shortcut shortcutToAdd;
 
+		// the row of the added Shortcut, which is the end of the model when the
+		// command is first executed
+		private int index = -1;
+
 		public AddShortcut(EditorBackend context, Shortcut shortcut) {
 			super(context);
 			this.shortcutToAdd = shortcut;
@@ -200,12 +467,20 @@ class EditorBackend {
 
 		@Override
 		public void execute() {
-			context.sm.addShortcut(shortcutToAdd);
+			if (index == -1)
+				index = context.sm.getShortcuts().size();
+
+			context.addShortcut(index, shortcutToAdd);
 		}
 
 		@Override
 		public void unexecute() {
-			context.sm.removeShortcut(shortcutToAdd);
+			context.removeShortcut(index);
+		}
+
+		@Override
+		long size() {
+			return sizeOf(shortcutToAdd);
 		}
 	}
 
@@ -213,6 +488,10 @@ class EditorBackend {
 
 		private final Shortcut shortcutToRemove;
 
+		// the row of the removed Shortcut, found when the command is first executed,
+		// to which it is inserted back when the command is undone
+		private int index = -1;
+
 		public RemoveShortcut(EditorBackend context, Shortcut shortcut) {
 			super(context);
 			this.shortcutToRemove = shortcut;
@@ -220,12 +499,61 @@ class EditorBackend {
 
 		@Override
 		public void execute() {
-			context.sm.removeShortcut(shortcutToRemove);
+			if (index == -1) {
+				index = context.sm.indexOf(shortcutToRemove);
+				if (index == -1) {
+					throw new IllegalArgumentException(
+					        String.format("Shortcut %s not found in model", shortcutToRemove));
+				}
+			}
+
+			context.removeShortcut(index);
 		}
 
 		@Override
 		public void unexecute() {
-			context.sm.addShortcut(shortcutToRemove);
+			context.addShortcut(index, shortcutToRemove);
+		}
+
+		@Override
+		long size() {
+			return sizeOf(shortcutToRemove);
+		}
+	}
+
+	/*
+	 * Many commands, which are executed and unexecuted as one batch of the model.
+	 * They are unexecuted in reverse order, so that each one finds the rows as it
+	 * left them and puts its Shortcut back in its row.
+	 */
+	private static class CompoundCommand extends EditorCommand {
+
+		private final List<EditorCommand> commands;
+
+		public CompoundCommand(EditorBackend context, List<EditorCommand> commands) {
+			super(context);
+			this.commands = commands;
+		}
+
+		@Override
+		public void execute() {
+			context.sm.batch(m -> commands.forEach(EditorCommand::execute));
+		}
+
+		@Override
+		public void unexecute() {
+			context.sm.batch(m -> {
+				for (int i = commands.size() - 1; i >= 0; i--)
+					commands.get(i).unexecute();
+			});
+		}
+
+		@Override
+		long size() {
+			long size = 0;
+			for (EditorCommand command : commands)
+				size += command.size();
+			return size;
 		}
 	}
 
@@ -233,22 +561,56 @@ class EditorBackend {
 
 		private final Shortcut oldShortcut, newShortcut;
 
+		// the row of the edited Shortcut, found when the edit is first executed,
+		// since equal Shortcuts may be in other rows by the time it is undone
+		private int index;
+
 		public EditShortcut(EditorBackend context, Shortcut oldShortcut, Shortcut newShortcut) {
+			this(context, oldShortcut, newShortcut, -1);
+		}
+
+		private EditShortcut(EditorBackend context, Shortcut oldShortcut, Shortcut newShortcut,
+		        int index) {
 			super(context);
 			this.oldShortcut = oldShortcut;
 			this.newShortcut = newShortcut;
+			this.index = index;
 		}
 
 		@Override
 		public void execute() {
-			context.sm.removeShortcut(oldShortcut);
-			context.sm.addShortcut(newShortcut);
+			if (index == -1) {
+				index = context.sm.indexOf(oldShortcut);
+				if (index == -1) {
+					throw new IllegalArgumentException(
+					        String.format("Shortcut %s not found in model", oldShortcut));
+				}
+			}
+
+			context.replaceShortcut(index, newShortcut);
 		}
 
 		@Override
 		public void unexecute() {
-			context.sm.removeShortcut(newShortcut);
-			context.sm.addShortcut(oldShortcut);
+			context.replaceShortcut(index, oldShortcut);
+		}
+
+		@Override
+		long size() {
+			return sizeOf(oldShortcut) + sizeOf(newShortcut);
+		}
+
+		// consecutive edits of the same Shortcut are undone at once
+		@Override
+		EditorCommand merge(EditorCommand next) {
+			if (!(next instanceof EditShortcut))
+				return null;
+
+			EditShortcut nextEdit = (EditShortcut) next;
+			if (!mergeable || (index != nextEdit.index) || !newShortcut.equals(nextEdit.oldShortcut))
+				return null;
+
+			return new EditShortcut(context, oldShortcut, nextEdit.newShortcut, index);
 		}
 	}
 }
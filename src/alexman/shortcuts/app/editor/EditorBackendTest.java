@@ -0,0 +1,94 @@
+package alexman.shortcuts.app.editor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import alexman.shortcuts.app.editor.EditorBackend.EditorAction;
+import alexman.shortcuts.shortcut.SimpleFormatter;
+import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.Shortcut;
+import alexman.shortcuts.shortcut.model.ShortcutModel;
+
+/**
+ * Regression tests for undoing and redoing the commands of the
+ * {@link EditorBackend}, which must restore every Shortcut to its row. A failed
+ * check throws an {@code AssertionError}.
+ *
+ * @author Alex Mandelias
+ */
+public class EditorBackendTest {
+
+	private static final Shortcut A = new Shortcut("a", "F1"), B = new Shortcut("b", "F2"),
+	        C = new Shortcut("c", "F3"), B2 = new Shortcut("b2", "F4");
+
+	public static void main(String[] args) throws Exception {
+		undoEditAfterRemove();
+		undoRemoveAll();
+		rollBackTransaction();
+		System.out.println("All tests passed");
+	}
+
+	// an edit is undone in its row, even after a row before it was removed
+	private static void undoEditAfterRemove() throws Exception {
+		IShortcutModel sm = new ShortcutModel(new SimpleFormatter());
+		EditorBackend backend = load(sm, "a = F1\nb = F2\nc = F3\n");
+
+		EditorAction.EDIT.perform(backend, B, "b2", "F4");
+		EditorAction.REMOVE.perform(backend, A);
+		check(sm, List.of(B2, C));
+
+		EditorAction.UNDO.perform(backend);
+		check(sm, List.of(A, B2, C));
+		EditorAction.UNDO.perform(backend);
+		check(sm, List.of(A, B, C));
+
+		EditorAction.REDO.perform(backend);
+		check(sm, List.of(A, B2, C));
+		EditorAction.REDO.perform(backend);
+		check(sm, List.of(B2, C));
+	}
+
+	// the Shortcuts removed together return to their rows, in their order
+	private static void undoRemoveAll() throws Exception {
+		IShortcutModel sm = new ShortcutModel(new SimpleFormatter());
+		EditorBackend backend = load(sm, "b2 = F4\nb = F2\na = F1\n");
+
+		EditorAction.REMOVE_ALL.perform(backend, List.of(B2, B));
+		check(sm, List.of(A));
+
+		EditorAction.UNDO.perform(backend);
+		check(sm, List.of(B2, B, A));
+		EditorAction.REDO.perform(backend);
+		check(sm, List.of(A));
+	}
+
+	// the edits of a transaction which fails are undone in their rows
+	private static void rollBackTransaction() throws Exception {
+		IShortcutModel sm = new ShortcutModel(new SimpleFormatter());
+		EditorBackend backend = load(sm, "a = F1\nb = F2\nc = F3\n");
+
+		try {
+			backend.transaction(t -> t.remove(B).remove(A).remove(B2));
+			throw new AssertionError("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			check(sm, List.of(A, B, C));
+		}
+	}
+
+	private static EditorBackend load(IShortcutModel sm, String contents) throws Exception {
+		Path file = Files.createTempDirectory("editor").resolve("shortcuts.txt");
+		Files.writeString(file, contents);
+
+		EditorBackend backend = new EditorBackend(sm, f -> {}, u -> {}, r -> {});
+		EditorAction.LOAD.perform(backend, file.toString());
+		return backend;
+	}
+
+	private static void check(IShortcutModel sm, List<Shortcut> expected) {
+		if (!sm.getShortcuts().equals(expected)) {
+			throw new AssertionError(
+			        String.format("Expected %s but was %s", expected, sm.getShortcuts()));
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package alexman.shortcuts.app.editor;
 
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
 import javax.swing.JFrame;
-import javax.swing.JPanel;
 import javax.swing.WindowConstants;
 
 import alexman.shortcuts.shortcut.IShortcutFormatter;
@@ -20,9 +22,15 @@ class EditorFrame extends JFrame {
 		configurePanel(new EditorPanel(sm));
 	}
 
-	private void configurePanel(JPanel editorPanel) {
+	private void configurePanel(EditorPanel editorPanel) {
 		add(editorPanel);
 		setSize(640, 480);
 		setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				editorPanel.close();
+			}
+		});
 	}
 }
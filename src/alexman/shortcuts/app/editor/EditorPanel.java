@@ -9,6 +9,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -20,12 +22,17 @@ import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 
 import alexman.shortcuts.app.editor.EditorBackend.EditorAction;
 import alexman.shortcuts.app.util.DialogBuilder;
 import alexman.shortcuts.shortcut.IShortcutFormatter;
+import alexman.shortcuts.shortcut.analysis.Conflict;
+import alexman.shortcuts.shortcut.model.KeySequence;
 import alexman.shortcuts.shortcut.model.Shortcut;
 import alexman.shortcuts.shortcut.model.ShortcutModel;
+import alexman.shortcuts.shortcut.model.ShortcutParseException;
 import requirement.requirements.StringType;
 import requirement.util.Requirements;
 
@@ -37,7 +44,8 @@ import requirement.util.Requirements;
  */
 class EditorPanel extends JPanel {
 
-	private final JButton load, undo, redo, reset, saveAs, save, saveAndExit, add, remove, edit;
+	private final JButton load, undo, redo, reset, saveAs, save, saveAndExit, add, remove, edit,
+	        suggest;
 	private final JLabel loadedFile;
 	private final JPanel top, main, right, bottom, bottomLeft, bottomRight;
 	private final JList<Shortcut> shortcutList;
@@ -73,6 +81,7 @@ class EditorPanel extends JPanel {
 		shortcutList = new JList<>();
 		shortcutList.setCellRenderer(new ShortcutCellRenderer());
 		shortcutList.setModel(sm);
+		sm.addListDataListener(new BulkChangeListener());
 		main = new JPanel(new FlowLayout());
 		main.add(shortcutList);
 		this.add(main, BorderLayout.CENTER);
@@ -94,6 +103,11 @@ class EditorPanel extends JPanel {
 		right.add(remove);
 		right.add(Box.createRigidArea(new Dimension(0, 5)));
 		right.add(edit);
+		suggest = new JButton("Suggest");
+		suggest.setAlignmentX(CENTER_ALIGNMENT);
+		suggest.addActionListener(new SuggestActionListener());
+		right.add(Box.createRigidArea(new Dimension(0, 5)));
+		right.add(suggest);
 		this.add(right, BorderLayout.EAST);
 
 		bottom = new JPanel(new BorderLayout());
@@ -132,6 +146,32 @@ class EditorPanel extends JPanel {
 		        (Boolean enabled) -> redo.setEnabled(enabled));
 	}
 
+	private void warnAboutConflicts(Object name, Object keySequence) {
+		List<Conflict> conflicts = backend
+		        .getConflicts(new Shortcut((String) name, (String) keySequence));
+		if (conflicts.isEmpty())
+			return;
+
+		StringBuilder sb = new StringBuilder();
+		for (Conflict conflict : conflicts) {
+			sb.append('\n').append(conflict.getType()).append(": ")
+			        .append(format(conflict.getShortcuts()));
+			if (conflict.getType() == Conflict.Type.PREFIX)
+				sb.append(" shadows ").append(format(conflict.getShadowed()));
+		}
+
+		new DialogBuilder(EditorPanel.this)
+		        .warning()
+		        .title("Conflicting Shortcut")
+		        .message("Key sequence <%s> conflicts with other Shortcuts:%s", keySequence, sb)
+		        .show();
+	}
+
+	private String format(List<Shortcut> shortcuts) {
+		IShortcutFormatter sf = backend.getFormatter();
+		return shortcuts.stream().map(sf::format).collect(Collectors.joining(", "));
+	}
+
 	private class ShortcutCellRenderer extends DefaultListCellRenderer {
 
 		@Override
@@ -144,6 +184,30 @@ class EditorPanel extends JPanel {
 		}
 	}
 
+	// the selected rows may hold other Shortcuts after a change of many rows
+	private class BulkChangeListener implements ListDataListener {
+		@Override
+		public void intervalAdded(ListDataEvent e) {}
+
+		@Override
+		public void intervalRemoved(ListDataEvent e) {}
+
+		@Override
+		public void contentsChanged(ListDataEvent e) {
+			if (e.getIndex0() != e.getIndex1())
+				shortcutList.clearSelection();
+		}
+	}
+
+	// closes the file, abandoning the edits which weren't saved
+	public void close() {
+		try {
+			EditorAction.CLOSE.perform(backend);
+		} catch (Exception e1) {
+			DialogBuilder.error(this, e1.getMessage());
+		}
+	}
+
 	private class LoadActionListener implements ActionListener {
 		@Override
 		public void actionPerformed(ActionEvent e) {
@@ -157,6 +221,14 @@ class EditorPanel extends JPanel {
 
 			try {
 				EditorAction.LOAD.perform(backend, filename);
+			} catch (ShortcutParseException e1) {
+				String invalidKeyCodes = e1.getCause().getMessage().split(":")[1];
+				new DialogBuilder(EditorPanel.this)
+				        .error()
+				        .title("Bad file")
+				        .message("File %s\ncontains an invalid Shortcut at line %d: %s.", filename,
+				                e1.getLineNumber(), invalidKeyCodes)
+				        .show();
 			} catch (IllegalArgumentException e1) {
 				String invalidKeyCodes = e1.getMessage().split(":")[1];
 				new DialogBuilder(EditorPanel.this)
@@ -190,6 +262,7 @@ class EditorPanel extends JPanel {
 
 			try {
 				EditorAction.ADD.perform(backend, name, shortcut);
+				warnAboutConflicts(name, shortcut);
 			} catch (IllegalArgumentException e1) {
 				new DialogBuilder(EditorPanel.this)
 				        .warning()
@@ -214,18 +287,21 @@ class EditorPanel extends JPanel {
 				return;
 			}
 
-			Shortcut selected = shortcutList.getSelectedValue();
-			if (selected == null) {
+			List<Shortcut> selected = shortcutList.getSelectedValuesList();
+			if (selected.isEmpty()) {
 				new DialogBuilder(EditorPanel.this)
 				        .information()
 				        .title("No Shortcut selected")
-				        .message("Select a Shortcut to delete.")
+				        .message("Select one or more Shortcuts to delete.")
 				        .show();
 				return;
 			}
 
 			try {
-				EditorAction.REMOVE.perform(backend, selected);
+				if (selected.size() == 1)
+					EditorAction.REMOVE.perform(backend, selected.get(0));
+				else
+					EditorAction.REMOVE_ALL.perform(backend, selected);
 			} catch (Exception e1) {
 				// will never throw
 			}
@@ -272,6 +348,7 @@ class EditorPanel extends JPanel {
 
 			try {
 				EditorAction.EDIT.perform(backend, selected, name, shortcut);
+				warnAboutConflicts(name, shortcut);
 			} catch (IllegalArgumentException e1) {
 				new DialogBuilder(EditorPanel.this)
 				        .warning()
@@ -284,6 +361,56 @@ class EditorPanel extends JPanel {
 		}
 	}
 
+	private class SuggestActionListener implements ActionListener {
+
+		private static final int SUGGESTIONS = 10;
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			Requirements reqs = new Requirements();
+			reqs.add("Modifiers", StringType.ANY);
+			reqs.offer("Modifiers", "CONTROL");
+
+			Frame frame = (Frame) SwingUtilities.getAncestorOfClass(Frame.class, EditorPanel.this);
+			reqs.fulfillWithDialog(frame, "Suggest free key combinations");
+
+			if (!reqs.fulfilled())
+				return;
+
+			String modifiers = (String) reqs.getValue("Modifiers");
+
+			List<KeySequence> suggestions;
+			try {
+				suggestions = backend.suggestFreeChords(modifiers, SUGGESTIONS);
+			} catch (IllegalArgumentException e1) {
+				new DialogBuilder(EditorPanel.this)
+				        .warning()
+				        .title("Invalid modifiers")
+				        .message("Modifiers <%s> are invalid.\nEnter modifiers such as CONTROL+SHIFT.",
+				                modifiers)
+				        .show();
+				return;
+			}
+
+			if (suggestions.isEmpty()) {
+				new DialogBuilder(EditorPanel.this)
+				        .information()
+				        .title("No free key combinations")
+				        .message("Every key combination with modifiers <%s> is in use.", modifiers)
+				        .show();
+				return;
+			}
+
+			String free = suggestions.stream().map(Shortcut.Parser::format)
+			        .collect(Collectors.joining("\n"));
+			new DialogBuilder(EditorPanel.this)
+			        .information()
+			        .title("Free key combinations")
+			        .message("The following key combinations are free:\n%s", free)
+			        .show();
+		}
+	}
+
 	private class UndoActionListener implements ActionListener {
 		@Override
 		public void actionPerformed(ActionEvent e) {
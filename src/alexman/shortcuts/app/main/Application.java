@@ -8,7 +8,6 @@ import alexman.shortcuts.InputProcessor;
 import alexman.shortcuts.kbsimulator.RobotAdapter;
 import alexman.shortcuts.shortcut.IShortcutFormatter;
 import alexman.shortcuts.shortcut.SimpleFormatter;
-import alexman.shortcuts.shortcut.model.IShortcutModel;
 import alexman.shortcuts.shortcut.model.ShortcutModel;
 
 
@@ -16,7 +15,7 @@ public class Application {
 
 	public static void main(String[] args) throws IOException {
 		IShortcutFormatter sf = new SimpleFormatter();
-		IShortcutModel sm = new ShortcutModel(sf);
+		ShortcutModel sm = new ShortcutModel(sf);
 
 		InputProcessor ip = new InputProcessor(new RobotAdapter());
 
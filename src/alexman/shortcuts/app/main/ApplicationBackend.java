@@ -1,15 +1,24 @@
 package alexman.shortcuts.app.main;
 
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import alexman.shortcuts.InputProcessor;
 import alexman.shortcuts.app.editor.Editor;
 import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.ParseCache;
 import alexman.shortcuts.shortcut.model.Shortcut;
+import alexman.shortcuts.shortcut.model.ShortcutModel;
+import alexman.shortcuts.shortcut.model.ShortcutProfile;
+import alexman.shortcuts.shortcut.model.ShortcutProfile.Overlay;
+import alexman.shortcuts.shortcut.search.CommandPalette;
+import alexman.shortcuts.shortcut.search.TrigramIndex;
 
 /**
  * TODO
@@ -20,17 +29,31 @@ import alexman.shortcuts.shortcut.model.Shortcut;
 class ApplicationBackend {
 
 	static final String USER_DIR = System.getProperty("user.dir");
+	static final String BASE_PROFILE = "Base";
 
 	private final IShortcutModel sm;
 	private final InputProcessor ip;
+
+	// the loaded file is the base, the other profiles are only their changes to it
+	private final ShortcutProfile profile;
+	private final Map<String, Overlay> profiles = new LinkedHashMap<>();
+	private String activeProfile = BASE_PROFILE;
+
+	private final ParseCache cache = new ParseCache();
+	private final TrigramIndex index;
+	private final CommandPalette palette;
 	private String lastLoadedFile;
 
 	private final Consumer<String> onLoadedFileChanged;
 
-	public ApplicationBackend(IShortcutModel sm, InputProcessor ip,
+	public ApplicationBackend(ShortcutModel sm, InputProcessor ip,
 	        Consumer<String> onLoadedFileChanged) {
 		this.sm = sm;
 		this.ip = ip;
+		this.profile = new ShortcutProfile(sm);
+		this.index = new TrigramIndex(profile);
+		this.palette = new CommandPalette(profile);
+		this.profiles.put(BASE_PROFILE, Overlay.empty());
 		this.onLoadedFileChanged = onLoadedFileChanged;
 	}
 
@@ -39,26 +62,49 @@ class ApplicationBackend {
 	}
 
 	public List<Shortcut> getShortcuts() {
-		return sm.getShortcuts();
+		return profile.getShortcuts();
+	}
+
+	public List<String> getProfileNames() {
+		return new ArrayList<>(profiles.keySet());
+	}
+
+	public String getActiveProfile() {
+		return activeProfile;
+	}
+
+	public List<Shortcut> search(String query, int limit) {
+		return index.search(query, limit);
 	}
 
-	public void process(List<List<Integer>> keySequence) {
+	public List<Shortcut> rank(String query, int k) {
+		return palette.search(query, k);
+	}
+
+	public void process(KeySequence keySequence) {
 		ip.process(keySequence);
 	}
 
+	public void trigger(Shortcut shortcut) {
+		palette.recordUse(shortcut);
+		process(shortcut.getKeySequence());
+	}
+
 	public enum ApplicationAction {
 
 		LOAD {
 			@Override
-			public void perform(Object... args) throws IOException {
+			public void perform(Object... args) throws IOException, Exception {
 				ApplicationBackend context = (ApplicationBackend) args[0];
 				String filename = (String) args[1];
 
-				try (Reader reader = new FileReader(filename)) {
-					context.sm.load(reader);
-					context.lastLoadedFile = filename;
-					context.onLoadedFileChanged.accept(filename);
-				}
+				// the profiles were changes to the previous file
+				context.profiles.keySet().retainAll(List.of(BASE_PROFILE));
+				SWITCH_PROFILE.perform(context, BASE_PROFILE);
+
+				context.cache.load(context.sm, Path.of(filename));
+				context.lastLoadedFile = filename;
+				context.onLoadedFileChanged.accept(filename);
 			}
 		},
 
@@ -67,7 +113,43 @@ class ApplicationBackend {
 			public void perform(Object... args) throws IOException, Exception {
 				ApplicationBackend context = (ApplicationBackend) args[0];
 
-				LOAD.perform(context, context.lastLoadedFile);
+				// the active profile is applied to the reloaded file
+				context.cache.load(context.sm, Path.of(context.lastLoadedFile));
+			}
+		},
+
+		LOAD_PROFILE {
+			@Override
+			public void perform(Object... args) throws IOException, Exception {
+				ApplicationBackend context = (ApplicationBackend) args[0];
+				String filename = (String) args[1];
+
+				// only the differences between the file and the base are kept
+				ShortcutModel variant = new ShortcutModel(context.sm.getFormatter());
+				context.cache.load(variant, Path.of(filename));
+				Overlay overlay = Overlay.diff(context.sm.getShortcuts(), variant.getShortcuts());
+
+				String name = Path.of(filename).getFileName().toString();
+				context.profiles.put(name, overlay);
+				SWITCH_PROFILE.perform(context, name);
+			}
+		},
+
+		SWITCH_PROFILE {
+			@Override
+			public void perform(Object... args) {
+				ApplicationBackend context = (ApplicationBackend) args[0];
+				String name = (String) args[1];
+
+				Overlay overlay = context.profiles.get(name);
+				if (overlay == null) {
+					throw new IllegalArgumentException(
+					        String.format("Profile %s not found", name));
+				}
+
+				// the search index is rebuilt once, not once for every changed row
+				context.profile.batch(p -> context.profile.setOverlay(overlay));
+				context.activeProfile = name;
 			}
 		},
 
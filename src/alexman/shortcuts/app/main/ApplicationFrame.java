@@ -5,11 +5,11 @@ import javax.swing.JPanel;
 import javax.swing.WindowConstants;
 
 import alexman.shortcuts.InputProcessor;
-import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.ShortcutModel;
 
 class ApplicationFrame extends JFrame {
 
-	public ApplicationFrame(IShortcutModel sm, InputProcessor ip) {
+	public ApplicationFrame(ShortcutModel sm, InputProcessor ip) {
 		super("The Great Shortcutinator");
 
 		JPanel applicationPanel = new ApplicationPanel(sm, ip);
@@ -2,20 +2,32 @@ package alexman.shortcuts.app.main;
 
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
+import java.awt.Frame;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.io.File;
+import java.util.List;
 
+import javax.swing.AbstractAction;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import alexman.shortcuts.InputProcessor;
 import alexman.shortcuts.app.main.ApplicationBackend.ApplicationAction;
 import alexman.shortcuts.app.util.DialogBuilder;
-import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.ShortcutModel;
 import alexman.shortcuts.shortcut.model.Shortcut;
 
 /**
@@ -26,13 +38,18 @@ import alexman.shortcuts.shortcut.model.Shortcut;
  */
 class ApplicationPanel extends JPanel {
 
-	private final JPanel top, topLeft, topRight, shortcutPanel;
-	private final JButton load, reload, edit;
+	// the number of Shortcuts shown, so that each keystroke creates few buttons
+	private static final int RESULTS = 50;
+
+	private final JPanel top, topLeft, topRight, search, shortcutPanel;
+	private final JButton load, reload, edit, palette, loadProfile;
 	private final JLabel loadedFile;
+	private final JComboBox<String> profiles;
+	private final JTextField searchField;
 
 	private final ApplicationBackend backend;
 
-	public ApplicationPanel(IShortcutModel sm, InputProcessor ip) {
+	public ApplicationPanel(ShortcutModel sm, InputProcessor ip) {
 		super(new BorderLayout());
 
 		top = new JPanel(new BorderLayout());
@@ -41,49 +58,124 @@ class ApplicationPanel extends JPanel {
 		load = new JButton("Load");
 		load.addActionListener(new LoadActionListener());
 		loadedFile = new JLabel("--- Click 'Load' to load a File ---");
+		profiles = new JComboBox<>(new String[] { ApplicationBackend.BASE_PROFILE });
+		profiles.addActionListener(new ProfileActionListener());
+		loadProfile = new JButton("Add Profile");
+		loadProfile.addActionListener(new LoadProfileActionListener());
+		profiles.setEnabled(false); // enable on load
+		loadProfile.setEnabled(false); // enable on load
 		topLeft.add(load);
 		topLeft.add(loadedFile);
+		topLeft.add(profiles);
+		topLeft.add(loadProfile);
 
 		topRight = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 		reload = new JButton("Reload");
 		edit = new JButton("Edit");
 		reload.addActionListener(new RelaodActionListener());
 		edit.addActionListener(new EditActionListener());
+		palette = new JButton("Palette");
+		palette.addActionListener(new PaletteActionListener());
 		reload.setEnabled(false); // enable on load
 		edit.setEnabled(false); // enable on load
+		palette.setEnabled(false); // enable on load
+		topRight.add(palette);
 		topRight.add(reload);
 		topRight.add(edit);
 
+		search = new JPanel(new BorderLayout(5, 0));
+		searchField = new JTextField();
+		searchField.getDocument().addDocumentListener(new SearchDocumentListener());
+		search.add(new JLabel("Search:"), BorderLayout.WEST);
+		search.add(searchField, BorderLayout.CENTER);
+
 		top.add(topLeft, BorderLayout.CENTER);
 		top.add(topRight, BorderLayout.EAST);
+		top.add(search, BorderLayout.SOUTH);
 		this.add(top, BorderLayout.NORTH);
 
 		shortcutPanel = new JPanel();
 		shortcutPanel.setLayout(new GridLayout(-1, 1));
 		add(shortcutPanel);
 
+		getInputMap(WHEN_IN_FOCUSED_WINDOW).put(
+		        KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK), "palette");
+		getActionMap().put("palette", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (palette.isEnabled())
+					palette.doClick();
+			}
+		});
+
 		backend = new ApplicationBackend(sm, ip, (String filename) -> loadedFile.setText(filename));
 	}
 
 	private JPanel createPanelForShortcut(Shortcut shortcut) {
 		JPanel panel = new JPanel();
 		JButton button = new JButton(shortcut.getAction());
-		button.addActionListener(e -> {
-			try {
-				Thread.sleep(2000);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-			backend.process(shortcut.getKeySequence());
-		});
+		button.addActionListener(e -> trigger(shortcut));
 		panel.add(button);
 		return panel;
 	}
 
+	private void trigger(Shortcut shortcut) {
+		try {
+			Thread.sleep(2000);
+		} catch (InterruptedException e1) {
+			e1.printStackTrace();
+		}
+		backend.trigger(shortcut);
+	}
+
+	private void refreshProfiles() {
+		// the listener ignores the selection of the profile which is already active
+		profiles.removeAllItems();
+		backend.getProfileNames().forEach(profiles::addItem);
+		profiles.setSelectedItem(backend.getActiveProfile());
+	}
+
 	private void refreshPanelWithShortcuts() {
 		shortcutPanel.removeAll();
-		backend.getShortcuts().forEach(s -> shortcutPanel.add(createPanelForShortcut(s)));
+
+		// one more is requested to tell whether some results were left out
+		List<Shortcut> results = backend.search(searchField.getText(), RESULTS + 1);
+		results.stream().limit(RESULTS)
+		        .forEach(s -> shortcutPanel.add(createPanelForShortcut(s)));
+		if (results.size() > RESULTS)
+			shortcutPanel.add(new JLabel(String.format(
+			        "Showing the first %d results, refine the search to see more", RESULTS),
+			        SwingConstants.CENTER));
+
 		revalidate();
+		repaint();
+	}
+
+	private class SearchDocumentListener implements DocumentListener {
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			refreshPanelWithShortcuts();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			refreshPanelWithShortcuts();
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// attribute changes don't change the query
+		}
+	}
+
+	private class PaletteActionListener implements ActionListener {
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			Frame frame = (Frame) SwingUtilities.getAncestorOfClass(Frame.class,
+			        ApplicationPanel.this);
+			new CommandPaletteDialog(frame, backend, ApplicationPanel.this::trigger)
+			        .setVisible(true);
+		}
 	}
 
 	private class LoadActionListener implements ActionListener {
@@ -100,11 +192,59 @@ class ApplicationPanel extends JPanel {
 
 			try {
 				ApplicationAction.LOAD.perform(backend, abs);
+				ApplicationPanel.this.refreshProfiles();
 				ApplicationPanel.this.refreshPanelWithShortcuts();
 				// enable now that a file has been loaded
 				// subsequent loads have no effect on this
 				reload.setEnabled(true);
 				edit.setEnabled(true);
+				palette.setEnabled(true);
+				profiles.setEnabled(true);
+				loadProfile.setEnabled(true);
+			} catch (Exception e1) {
+				DialogBuilder.error(ApplicationPanel.this, e1.getMessage());
+			}
+		}
+	}
+
+	private class LoadProfileActionListener implements ActionListener {
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			if (!backend.fileIsLoaded()) {
+				DialogBuilder.noFileLoaded(ApplicationPanel.this);
+				return;
+			}
+
+			JFileChooser jfc = new JFileChooser(ApplicationBackend.USER_DIR);
+			int rv = jfc.showOpenDialog(ApplicationPanel.this);
+			if (rv != JFileChooser.APPROVE_OPTION) {
+				return;
+			}
+
+			File file = jfc.getSelectedFile();
+			String abs = file.getAbsolutePath();
+
+			try {
+				ApplicationAction.LOAD_PROFILE.perform(backend, abs);
+				ApplicationPanel.this.refreshProfiles();
+				ApplicationPanel.this.refreshPanelWithShortcuts();
+			} catch (Exception e1) {
+				DialogBuilder.error(ApplicationPanel.this, e1.getMessage());
+			}
+		}
+	}
+
+	private class ProfileActionListener implements ActionListener {
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			String name = (String) profiles.getSelectedItem();
+			if ((name == null) || name.equals(backend.getActiveProfile())) {
+				return;
+			}
+
+			try {
+				ApplicationAction.SWITCH_PROFILE.perform(backend, name);
+				ApplicationPanel.this.refreshPanelWithShortcuts();
 			} catch (Exception e1) {
 				DialogBuilder.error(ApplicationPanel.this, e1.getMessage());
 			}
@@ -0,0 +1,144 @@
+package alexman.shortcuts.app.main;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Frame;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * A dialog in which the user types part of the name of an action and picks one
+ * of the best matching Shortcuts, ranked by the backend's command palette.
+ *
+ * @author Alex Mandelias
+ */
+class CommandPaletteDialog extends JDialog {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int RESULTS = 10;
+
+	private final JTextField queryField;
+	private final DefaultListModel<Shortcut> results;
+	private final JList<Shortcut> resultList;
+
+	private final ApplicationBackend backend;
+	private final Consumer<Shortcut> onShortcutChosen;
+
+	public CommandPaletteDialog(Frame owner, ApplicationBackend backend,
+	        Consumer<Shortcut> onShortcutChosen) {
+		super(owner, "Command Palette", true);
+		this.backend = backend;
+		this.onShortcutChosen = onShortcutChosen;
+
+		queryField = new JTextField(30);
+		queryField.getDocument().addDocumentListener(new QueryDocumentListener());
+
+		results = new DefaultListModel<>();
+		resultList = new JList<>(results);
+		resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		resultList.setVisibleRowCount(RESULTS);
+		resultList.setFocusable(false);
+		resultList.setCellRenderer(new ShortcutCellRenderer());
+
+		JPanel panel = new JPanel(new BorderLayout(0, 5));
+		panel.add(queryField, BorderLayout.NORTH);
+		panel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+		add(panel);
+
+		bind(KeyEvent.VK_ENTER, "choose", this::choose);
+		bind(KeyEvent.VK_ESCAPE, "close", this::dispose);
+		bind(KeyEvent.VK_DOWN, "next", () -> moveSelection(1));
+		bind(KeyEvent.VK_UP, "previous", () -> moveSelection(-1));
+
+		updateResults();
+		pack();
+		setLocationRelativeTo(owner);
+	}
+
+	private void bind(int keyCode, String name, Runnable action) {
+		getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+		        .put(KeyStroke.getKeyStroke(keyCode, 0), name);
+		getRootPane().getActionMap().put(name, new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				action.run();
+			}
+		});
+	}
+
+	private void updateResults() {
+		List<Shortcut> best = backend.rank(queryField.getText(), RESULTS);
+		results.clear();
+		best.forEach(results::addElement);
+		if (!results.isEmpty())
+			resultList.setSelectedIndex(0);
+	}
+
+	private void moveSelection(int offset) {
+		if (results.isEmpty())
+			return;
+
+		int index = Math.floorMod(resultList.getSelectedIndex() + offset, results.size());
+		resultList.setSelectedIndex(index);
+	}
+
+	private void choose() {
+		Shortcut selected = resultList.getSelectedValue();
+		if (selected == null)
+			return;
+
+		dispose();
+		onShortcutChosen.accept(selected);
+	}
+
+	private class QueryDocumentListener implements DocumentListener {
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			updateResults();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			updateResults();
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// attribute changes don't change the query
+		}
+	}
+
+	private static class ShortcutCellRenderer extends DefaultListCellRenderer {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+		        boolean isSelected, boolean cellHasFocus) {
+			super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+			Shortcut shortcut = (Shortcut) value;
+			setText(String.format("%s  (%s)", shortcut.getAction(),
+			        shortcut.getKeySequenceAsString()));
+			return this;
+		}
+	}
+}
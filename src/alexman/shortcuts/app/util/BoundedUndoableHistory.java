@@ -0,0 +1,283 @@
+package alexman.shortcuts.app.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.BinaryOperator;
+import java.util.function.ToLongFunction;
+
+import alexman.undo.Undoable;
+import alexman.undo.UndoableHistory;
+
+/**
+ * A bounded replacement for {@link UndoableHistory}, with the same methods.
+ * When an {@code Undoable} is added and the History holds more than the maximum
+ * number of {@code Undoables}, or more than the maximum number of bytes as
+ * estimated by a size function, the oldest {@code Undoables} are forgotten and
+ * can no longer be undone. The most recent one is always kept.
+ * <p>
+ * The {@code Undoables} are stored in a ring buffer, so adding, undoing and
+ * redoing take constant time and forgetting takes constant time per
+ * {@code Undoable} forgotten. An {@code Undoable} which is added right after
+ * another one may also be merged with it into a single {@code Undoable}, which
+ * is then undone and redone at once, if a merge function allows it.
+ * <p>
+ * The past and the future parts of the History are unmodifiable views, which
+ * reflect later changes to the History, instead of copies.
+ *
+ * @param <T> the type of {@code Undoable} object that will be stored
+ *
+ * @see Undoable
+ *
+ * @author Alex Mandelias
+ */
+public class BoundedUndoableHistory<T extends Undoable> {
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final ToLongFunction<? super T> sizeOf;
+	private final BinaryOperator<T> merge;
+
+	// the past, oldest first, followed by the future, most recently undone first,
+	// starting at head and wrapping around the end of the arrays
+	private Undoable[] entries = new Undoable[16];
+	private long[] sizes = new long[16];
+	private int head = 0, size = 0, cursor = 0;
+	private long bytes = 0;
+
+	private final List<T> past = new PastView(), future = new FutureView();
+
+	/**
+	 * Creates an empty Bounded Undoable History which keeps at most the given
+	 * number of {@code Undoables} and doesn't merge them.
+	 *
+	 * @param maxEntries the maximum number of {@code Undoables}
+	 *
+	 * @throws IllegalArgumentException if {@code maxEntries <= 0}
+	 */
+	public BoundedUndoableHistory(int maxEntries) {
+		this(maxEntries, Long.MAX_VALUE, undoable -> 0, (previous, next) -> null);
+	}
+
+	/**
+	 * Creates an empty Bounded Undoable History.
+	 *
+	 * @param maxEntries the maximum number of {@code Undoables}
+	 * @param maxBytes the maximum sum of the sizes of the {@code Undoables}
+	 * @param sizeOf estimates the size of an {@code Undoable} in bytes
+	 * @param merge returns an {@code Undoable} which has the effect of the two
+	 *        given ones, the first of which was executed before the second, or
+	 *        {@code null} if they can't be merged
+	 *
+	 * @throws NullPointerException if {@code sizeOf == null} or
+	 *         {@code merge == null}
+	 * @throws IllegalArgumentException if {@code maxEntries <= 0} or
+	 *         {@code maxBytes <= 0}
+	 */
+	public BoundedUndoableHistory(int maxEntries, long maxBytes,
+	        ToLongFunction<? super T> sizeOf, BinaryOperator<T> merge) {
+		if (maxEntries <= 0)
+			throw new IllegalArgumentException("maxEntries must be positive");
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("maxBytes must be positive");
+
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.sizeOf = Objects.requireNonNull(sizeOf, "sizeOf cannot be null");
+		this.merge = Objects.requireNonNull(merge, "merge cannot be null");
+	}
+
+	/**
+	 * Adds an {@code Undoable} to the history without executing it. The
+	 * {@code Undoable} should be executed before being added to the History in
+	 * order to catch any errors. If it can be merged with the most recently
+	 * executed {@code Undoable}, the merged one replaces it.
+	 *
+	 * @param undoable the Undoable
+	 *
+	 * @throws NullPointerException if {@code undoable == null}
+	 */
+	public void add(T undoable) {
+		Objects.requireNonNull(undoable, "undoable cannot be null");
+
+		// flush the redo history
+		while (size > cursor)
+			forget(--size);
+
+		T merged = cursor == 0 ? null : merge.apply(at(cursor - 1), undoable);
+		if (merged != null) {
+			forget(cursor - 1);
+			set(cursor - 1, merged);
+		} else {
+			if (size == entries.length)
+				grow();
+			size++;
+			cursor++;
+			set(cursor - 1, undoable);
+		}
+
+		// forget the oldest Undoables, but never the most recent one
+		while ((size > 1) && ((size > maxEntries) || (bytes > maxBytes))) {
+			forget(0);
+			head = slot(1);
+			size--;
+			cursor--;
+		}
+	}
+
+	/**
+	 * Undoes the last {@code Undoable}. If there are no {@code Undoables} to be
+	 * undone this method does nothing.
+	 */
+	public void undo() {
+		if (canUndo()) {
+			at(cursor - 1).unexecute();
+			cursor--;
+		}
+	}
+
+	/**
+	 * Re-does the last {@code Undoable}. If there are no {@code Undoables} to be
+	 * re-done this method does nothing.
+	 */
+	public void redo() {
+		if (canRedo()) {
+			at(cursor).execute();
+			cursor++;
+		}
+	}
+
+	/** Empties this Undoable History */
+	public void clear() {
+		Arrays.fill(entries, null);
+		head = size = cursor = 0;
+		bytes = 0;
+	}
+
+	/**
+	 * Returns whether there is an {@code Undoable} to be undone.
+	 *
+	 * @return {@code true} if there is, {@code false} otherwise
+	 */
+	public boolean canUndo() {
+		return cursor > 0;
+	}
+
+	/**
+	 * Returns whether there is an {@code Undoable} to be redone.
+	 *
+	 * @return {@code true} if there is, {@code false} otherwise
+	 */
+	public boolean canRedo() {
+		return cursor < size;
+	}
+
+	/**
+	 * Returns the number of {@code Undoables} in this History, both past and
+	 * future.
+	 *
+	 * @return the number of {@code Undoables}
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the sum of the estimated sizes of the {@code Undoables} in this
+	 * History.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the past part of the history.
+	 *
+	 * @return an unmodifiable view of the previously executed Undoables. The
+	 *         first {@code Undoable} will be the most recently executed one.
+	 */
+	public List<T> getPast() {
+		return past;
+	}
+
+	/**
+	 * Returns the future part of the history.
+	 *
+	 * @return an unmodifiable view of the previously un-executed Undoables. The
+	 *         first {@code Undoable} will be the most recently un-executed one.
+	 */
+	public List<T> getFuture() {
+		return future;
+	}
+
+	// the index in the arrays of the Undoable at the given position
+	private int slot(int position) {
+		int slot = head + position;
+		return slot < entries.length ? slot : slot - entries.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T at(int position) {
+		return (T) entries[slot(position)];
+	}
+
+	private void set(int position, T undoable) {
+		int slot = slot(position);
+		long undoableSize = sizeOf.applyAsLong(undoable);
+		entries[slot] = undoable;
+		sizes[slot] = undoableSize;
+		bytes += undoableSize;
+	}
+
+	private void forget(int position) {
+		int slot = slot(position);
+		bytes -= sizes[slot];
+		entries[slot] = null;
+	}
+
+	// grows the arrays, up to the maximum number of Undoables, and unwraps them
+	private void grow() {
+		int capacity = (int) Math.min(2L * entries.length, maxEntries + 1L);
+		Undoable[] newEntries = new Undoable[capacity];
+		long[] newSizes = new long[capacity];
+		for (int i = 0; i < size; i++) {
+			newEntries[i] = entries[slot(i)];
+			newSizes[i] = sizes[slot(i)];
+		}
+		entries = newEntries;
+		sizes = newSizes;
+		head = 0;
+	}
+
+	private class PastView extends AbstractList<T> implements RandomAccess {
+
+		@Override
+		public T get(int index) {
+			Objects.checkIndex(index, cursor);
+			return at(cursor - 1 - index);
+		}
+
+		@Override
+		public int size() {
+			return cursor;
+		}
+	}
+
+	private class FutureView extends AbstractList<T> implements RandomAccess {
+
+		@Override
+		public T get(int index) {
+			Objects.checkIndex(index, size - cursor);
+			return at(cursor + index);
+		}
+
+		@Override
+		public int size() {
+			return size - cursor;
+		}
+	}
+}
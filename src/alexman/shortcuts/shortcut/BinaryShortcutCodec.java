@@ -0,0 +1,223 @@
+package alexman.shortcuts.shortcut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.Shortcut;
+import alexman.shortcuts.shortcut.model.ShortcutModel;
+
+/**
+ * Stores Shortcuts in a compact binary layout which can be read by index,
+ * without decoding the rest of the file, using a {@link BinaryShortcutFile}.
+ * <p>
+ * The layout consists of, in order:
+ * <ul>
+ * <li>a header of {@value #HEADER_SIZE} bytes: the magic number, the version,
+ * the number of entries, the number of strings and the offsets of the
+ * following sections,</li>
+ * <li>a string table with the UTF-8 bytes of every distinct action,</li>
+ * <li>the offsets of the strings in the string table,</li>
+ * <li>the key codes of every distinct key sequence, packed one after the
+ * other,</li>
+ * <li>the index, which for every entry stores the string id of its action and
+ * the offset of its key sequence.</li>
+ * </ul>
+ * All numbers are big-endian {@code int}s.
+ *
+ * @author Alex Mandelias
+ */
+public class BinaryShortcutCodec {
+
+	/** The first four bytes of every binary shortcut file: {@code "GSCB"} */
+	public static final int MAGIC = 0x47534342;
+
+	/** The version of the layout this codec writes */
+	public static final int VERSION = 1;
+
+	/** The size of the header, in bytes */
+	public static final int HEADER_SIZE = 32;
+
+	/** The string id of a {@code null} action */
+	static final int NULL_STRING = -1;
+
+	// offsets of the fields of the header
+	static final int ENTRY_COUNT = 8, STRING_COUNT = 12, STRING_INDEX_OFFSET = 16,
+	        KEY_DATA_OFFSET = 20, INDEX_OFFSET = 24;
+
+	private BinaryShortcutCodec() {
+		// don't allow instantiation
+	}
+
+	/**
+	 * Converts a text shortcut file to a binary one.
+	 *
+	 * @param args the text file and the binary file
+	 *
+	 * @throws IOException if an IO Exception occurs while reading or writing
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: java BinaryShortcutCodec <text file> <binary file>");
+			return;
+		}
+
+		ShortcutModel sm = new ShortcutModel(new SimpleFormatter());
+		sm.loadParallel(Path.of(args[0]));
+		write(sm.getShortcuts(), Path.of(args[1]));
+	}
+
+	/**
+	 * Checks whether a file starts with the magic number of binary shortcut files.
+	 *
+	 * @param path the path of the file
+	 *
+	 * @return {@code true} if the file is a binary shortcut file, {@code false}
+	 *         otherwise
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 */
+	public static boolean isBinary(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			byte[] magic = in.readNBytes(Integer.BYTES);
+			return (magic.length == Integer.BYTES) && (ByteBuffer.wrap(magic).getInt() == MAGIC);
+		}
+	}
+
+	/**
+	 * Writes the given Shortcuts to a file in the binary layout.
+	 *
+	 * @param shortcuts the Shortcuts
+	 * @param path the path of the file
+	 *
+	 * @throws IOException if an IO Exception occurs while writing to the file
+	 */
+	public static void write(List<Shortcut> shortcuts, Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			write(shortcuts, out);
+		}
+	}
+
+	/**
+	 * Writes the given Shortcuts to a stream in the binary layout.
+	 *
+	 * @param shortcuts the Shortcuts
+	 * @param out the stream. It remains open after this method returns
+	 *
+	 * @throws IOException if an IO Exception occurs while writing to the stream
+	 */
+	public static void write(List<Shortcut> shortcuts, OutputStream out) throws IOException {
+		Map<String, Integer> stringIds = new LinkedHashMap<>();
+		Map<KeySequence, Integer> keyOffsets = new HashMap<>();
+		List<byte[]> strings = new ArrayList<>();
+		int[] keyData = new int[64];
+		int keyDataLength = 0;
+		int[] index = new int[2 * shortcuts.size()];
+
+		int entry = 0;
+		for (Shortcut shortcut : shortcuts) {
+			String action = shortcut.getAction();
+			int stringId = NULL_STRING;
+			if (action != null) {
+				Integer id = stringIds.get(action);
+				if (id == null) {
+					id = strings.size();
+					stringIds.put(action, id);
+					strings.add(action.getBytes(StandardCharsets.UTF_8));
+				}
+				stringId = id;
+			}
+
+			KeySequence keySequence = shortcut.getKeySequence();
+			Integer keyOffset = keyOffsets.get(keySequence);
+			if (keyOffset == null) {
+				int required = 1 + keySequence.chordCount() + keySequence.keyCount();
+				if (keyDataLength + required > keyData.length)
+					keyData = Arrays.copyOf(keyData,
+					        Math.max(keyData.length * 2, keyDataLength + required));
+
+				keyOffset = keyDataLength;
+				keyOffsets.put(keySequence, keyOffset);
+				keyDataLength = pack(keySequence, keyData, keyDataLength);
+			}
+
+			index[2 * entry] = stringId;
+			index[(2 * entry) + 1] = keyOffset;
+			entry++;
+		}
+
+		int stringBytes = strings.stream().mapToInt(b -> b.length).sum();
+		int stringIndexOffset = HEADER_SIZE + stringBytes;
+		int keyDataOffset = stringIndexOffset + (Integer.BYTES * (strings.size() + 1));
+		int indexOffset = keyDataOffset + (Integer.BYTES * keyDataLength);
+
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+
+		// header
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeInt(entry);
+		dos.writeInt(strings.size());
+		dos.writeInt(stringIndexOffset);
+		dos.writeInt(keyDataOffset);
+		dos.writeInt(indexOffset);
+		dos.writeInt(0);
+
+		// string table
+		for (byte[] string : strings)
+			dos.write(string);
+
+		// string offsets, relative to the string table, followed by its end
+		int stringOffset = 0;
+		for (byte[] string : strings) {
+			dos.writeInt(stringOffset);
+			stringOffset += string.length;
+		}
+		dos.writeInt(stringOffset);
+
+		// key data
+		for (int i = 0; i < keyDataLength; i++)
+			dos.writeInt(keyData[i]);
+
+		// index
+		for (int i = 0; i < 2 * entry; i++)
+			dos.writeInt(index[i]);
+
+		dos.flush();
+	}
+
+	/*
+	 * Writes the key sequence as: the number of chords, the end of each chord and
+	 * then the key codes. Returns the offset after the last key code written.
+	 */
+	private static int pack(KeySequence keySequence, int[] keyData, int offset) {
+		int chordCount = keySequence.chordCount();
+		keyData[offset++] = chordCount;
+
+		int end = 0;
+		for (int chord = 0; chord < chordCount; chord++) {
+			end += keySequence.chordLength(chord);
+			keyData[offset++] = end;
+		}
+
+		for (int chord = 0; chord < chordCount; chord++) {
+			for (int i = 0; i < keySequence.chordLength(chord); i++)
+				keyData[offset++] = keySequence.keyCode(chord, i);
+		}
+
+		return offset;
+	}
+}
@@ -0,0 +1,206 @@
+package alexman.shortcuts.shortcut;
+
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.ENTRY_COUNT;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.HEADER_SIZE;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.INDEX_OFFSET;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.KEY_DATA_OFFSET;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.MAGIC;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.NULL_STRING;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.STRING_COUNT;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.STRING_INDEX_OFFSET;
+import static alexman.shortcuts.shortcut.BinaryShortcutCodec.VERSION;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * A read-only view of a file written by the {@link BinaryShortcutCodec}. The
+ * file is mapped into memory and any entry can be read by its index without
+ * decoding the rest of the file. Instances are safe to use from many threads.
+ *
+ * @author Alex Mandelias
+ */
+public class BinaryShortcutFile {
+
+	private final ByteBuffer data;
+	private final int entryCount, stringCount;
+	private final int stringIndexOffset, keyDataOffset, indexOffset;
+
+	private BinaryShortcutFile(ByteBuffer data) throws IOException {
+		this.data = data;
+
+		if ((data.capacity() < HEADER_SIZE) || (data.getInt(0) != MAGIC))
+			throw new IOException("Not a binary shortcut file");
+
+		int version = data.getInt(4);
+		if (version != VERSION)
+			throw new IOException(String.format("Unsupported binary shortcut file version %d",
+			        version));
+
+		entryCount = data.getInt(ENTRY_COUNT);
+		stringCount = data.getInt(STRING_COUNT);
+		stringIndexOffset = data.getInt(STRING_INDEX_OFFSET);
+		keyDataOffset = data.getInt(KEY_DATA_OFFSET);
+		indexOffset = data.getInt(INDEX_OFFSET);
+
+		if ((long) indexOffset + ((long) 2 * Integer.BYTES * entryCount) > data.capacity())
+			throw new IOException("Truncated binary shortcut file");
+	}
+
+	/**
+	 * Opens a binary shortcut file by mapping it into memory.
+	 *
+	 * @param path the path of the file
+	 *
+	 * @return the file
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file or if
+	 *         the file isn't a binary shortcut file
+	 */
+	public static BinaryShortcutFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new BinaryShortcutFile(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Wraps a buffer which contains the bytes of a binary shortcut file.
+	 *
+	 * @param data the buffer, from its start to its capacity
+	 *
+	 * @return the file
+	 *
+	 * @throws IOException if the buffer doesn't contain a binary shortcut file
+	 */
+	public static BinaryShortcutFile wrap(ByteBuffer data) throws IOException {
+		return new BinaryShortcutFile(data);
+	}
+
+	/**
+	 * Returns the number of entries in this file.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return entryCount;
+	}
+
+	/**
+	 * Decodes the entry at the given index.
+	 *
+	 * @param index the index of the entry
+	 *
+	 * @return the Shortcut
+	 *
+	 * @throws IndexOutOfBoundsException if the entry doesn't exist
+	 * @throws IllegalArgumentException if the entry contains invalid key codes
+	 */
+	public Shortcut get(int index) {
+		return new Shortcut(getAction(index), getKeySequence(index));
+	}
+
+	/**
+	 * Decodes only the action of the entry at the given index.
+	 *
+	 * @param index the index of the entry
+	 *
+	 * @return the action
+	 *
+	 * @throws IndexOutOfBoundsException if the entry doesn't exist
+	 */
+	public String getAction(int index) {
+		Objects.checkIndex(index, entryCount);
+		return getString(data.getInt(indexOffset + (2 * Integer.BYTES * index)));
+	}
+
+	/**
+	 * Decodes only the key sequence of the entry at the given index.
+	 *
+	 * @param index the index of the entry
+	 *
+	 * @return the key sequence
+	 *
+	 * @throws IndexOutOfBoundsException if the entry doesn't exist
+	 * @throws IllegalArgumentException if the entry contains invalid key codes
+	 */
+	public KeySequence getKeySequence(int index) {
+		Objects.checkIndex(index, entryCount);
+		int keyOffset = data.getInt(indexOffset + (2 * Integer.BYTES * index) + Integer.BYTES);
+
+		int position = keyDataOffset + (Integer.BYTES * keyOffset);
+		int chordCount = data.getInt(position);
+		int keys = position + (Integer.BYTES * (1 + chordCount));
+
+		KeySequence.Builder builder = new KeySequence.Builder();
+		int start = 0;
+		for (int chord = 0; chord < chordCount; chord++) {
+			int end = data.getInt(position + (Integer.BYTES * (1 + chord)));
+			for (int i = start; i < end; i++)
+				builder.key(data.getInt(keys + (Integer.BYTES * i)));
+			builder.endChord();
+			start = end;
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Decodes every entry of this file.
+	 *
+	 * @return a List with the Shortcuts, in file order
+	 *
+	 * @throws IllegalArgumentException if an entry contains invalid key codes
+	 */
+	public List<Shortcut> readAll() {
+		// decode every distinct string once
+		String[] strings = new String[stringCount];
+		for (int i = 0; i < stringCount; i++)
+			strings[i] = getString(i);
+
+		// share the key sequences of entries which share their key data
+		Map<Integer, KeySequence> keySequences = new HashMap<>();
+
+		List<Shortcut> shortcuts = new ArrayList<>(entryCount);
+		for (int i = 0; i < entryCount; i++) {
+			int stringId = data.getInt(indexOffset + (2 * Integer.BYTES * i));
+			int keyOffset = data.getInt(indexOffset + (2 * Integer.BYTES * i) + Integer.BYTES);
+			String action = stringId == NULL_STRING ? null : strings[stringId];
+
+			KeySequence keySequence = keySequences.get(keyOffset);
+			if (keySequence == null) {
+				keySequence = getKeySequence(i);
+				keySequences.put(keyOffset, keySequence);
+			}
+
+			shortcuts.add(new Shortcut(action, keySequence));
+		}
+
+		return shortcuts;
+	}
+
+	private String getString(int stringId) {
+		if (stringId == NULL_STRING)
+			return null;
+
+		Objects.checkIndex(stringId, stringCount);
+		int start = data.getInt(stringIndexOffset + (Integer.BYTES * stringId));
+		int end = data.getInt(stringIndexOffset + (Integer.BYTES * (stringId + 1)));
+
+		byte[] bytes = new byte[end - start];
+		data.get(HEADER_SIZE + start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -1,5 +1,6 @@
 package alexman.shortcuts.shortcut;
 
+import alexman.shortcuts.shortcut.model.KeySequence;
 import alexman.shortcuts.shortcut.model.Shortcut;
 
 /**
@@ -54,4 +55,55 @@ public interface IShortcutFormatter {
 	 *           }</pre>
 	 */
 	Shortcut parse(String string);
+
+	/**
+	 * Same as {@link #parse(String)} but parses only the region
+	 * {@code [start, end)} of the given CharSequence. This method is used when
+	 * loading large files, to avoid creating a String for every line. The default
+	 * implementation creates a String for the region and calls
+	 * {@link #parse(String)}.
+	 *
+	 * @param cs the CharSequence which contains the String to parse
+	 * @param start the index of the first character of the String
+	 * @param end the index after the last character of the String
+	 *
+	 * @return the Shortcut which results from the parsed region or {@code null} if
+	 *         the region is malformed
+	 *
+	 * @throws NullPointerException if {@code cs == null}
+	 * @throws IndexOutOfBoundsException if the region is out of bounds
+	 */
+	default Shortcut parse(CharSequence cs, int start, int end) {
+		return parse(cs.subSequence(start, end).toString());
+	}
+
+	/**
+	 * Returns a String that describes a Key Sequence in the desired format. The
+	 * default implementation uses the {@link Shortcut.Parser#format(KeySequence)}
+	 * method.
+	 *
+	 * @param keySequence the Key Sequence
+	 *
+	 * @return the String that describes the Key Sequence
+	 *
+	 * @throws NullPointerException if {@code keySequence == null}
+	 */
+	default String format(KeySequence keySequence) {
+		return Shortcut.Parser.format(keySequence);
+	}
+
+	/**
+	 * Parses the given String and returns a Key Sequence. The default
+	 * implementation uses the {@link Shortcut.Parser#parse(String)} method.
+	 *
+	 * @param string the String to parse
+	 *
+	 * @return the Key Sequence which results from the parsed string
+	 *
+	 * @throws NullPointerException if {@code string == null}
+	 * @throws IllegalArgumentException if the string contains invalid tokens
+	 */
+	default KeySequence parseKeySequence(String string) {
+		return Shortcut.Parser.parse(string);
+	}
 }
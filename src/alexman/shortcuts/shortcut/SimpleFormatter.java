@@ -1,6 +1,10 @@
 package alexman.shortcuts.shortcut;
 
+import java.util.Objects;
+
+import alexman.shortcuts.shortcut.model.KeySequence;
 import alexman.shortcuts.shortcut.model.Shortcut;
+import alexman.shortcuts.shortcut.model.Shortcut.Parser;
 
 /**
  * A simple {@code ShortcutFormatter} implementation which formats the Shortcut
@@ -33,28 +37,39 @@ public class SimpleFormatter implements IShortcutFormatter {
 		this.kvsep = actionKeysequenceSeparator;
 	}
 
+	@Override
+	public String toString() {
+		return String.format("SimpleFormatter [separator=%c]", kvsep);
+	}
+
 	@Override
 	public String format(Shortcut shortcut) {
-		return String.format("%s %c %s", shortcut.getAction(), this.kvsep,
-		        shortcut.getKeySequenceAsString());
+		StringBuilder sb = new StringBuilder();
+		sb.append(shortcut.getAction()).append(' ').append(this.kvsep).append(' ');
+		return Parser.format(shortcut.getKeySequence(), sb).toString();
 	}
 
 	@Override
 	public Shortcut parse(String string) {
-		char[] line = string.toCharArray();
+		return parse(string, 0, string.length());
+	}
+
+	@Override
+	public Shortcut parse(CharSequence line, int start, int end) {
+		Objects.checkFromToIndex(start, end, line.length());
 
 		int keyStart, keyEnd, kvSep, valueStart, valueEnd;
 
 		// find keyStart: key starts after the first non-whitespace character
-		for (keyStart = 0; keyStart < line.length; keyStart++) {
-			if (!Character.isWhitespace(line[keyStart]))
+		for (keyStart = start; keyStart < end; keyStart++) {
+			if (!Character.isWhitespace(line.charAt(keyStart)))
 				break;
 		}
 
 		// skip all whitespace until key-value separator (kv-sep)
 		boolean kvSepFound = false;
-		for (kvSep = keyStart + 1; kvSep < line.length; kvSep++) {
-			if (line[kvSep] == this.kvsep) {
+		for (kvSep = keyStart + 1; kvSep < end; kvSep++) {
+			if (line.charAt(kvSep) == this.kvsep) {
 				kvSepFound = true;
 				break;
 			}
@@ -69,30 +84,30 @@ public class SimpleFormatter implements IShortcutFormatter {
 		keyEnd = kvSep;
 		keyEnd--;
 		for (;; keyEnd--) {
-			if (!Character.isWhitespace(line[keyEnd])) {
+			if (!Character.isWhitespace(line.charAt(keyEnd))) {
 				keyEnd++;
 				break;
 			}
 		}
 
 		// find valueStart: value starts after the first non-whitespace character after kv-sep
-		for (valueStart = kvSep + 1; valueStart < line.length; valueStart++) {
-			if (!Character.isWhitespace(line[valueStart]))
+		for (valueStart = kvSep + 1; valueStart < end; valueStart++) {
+			if (!Character.isWhitespace(line.charAt(valueStart)))
 				break;
 		}
 
 		// find valueEnd: value includes all whitespace, just trim trailing whitespace
-		valueEnd = line.length;
+		valueEnd = end;
 		valueEnd--;
 		for (;; valueEnd--) {
-			if (!Character.isWhitespace(line[valueEnd])) {
+			if (!Character.isWhitespace(line.charAt(valueEnd))) {
 				valueEnd++;
 				break;
 			}
 		}
 
-		String key = new String(line, keyStart, keyEnd - keyStart);
-		String value = new String(line, valueStart, valueEnd - valueStart);
+		String key = line.subSequence(keyStart, keyEnd).toString();
+		KeySequence value = Parser.parse(line, valueStart, Math.max(valueStart, valueEnd));
 
 		return new Shortcut(key, value);
 	}
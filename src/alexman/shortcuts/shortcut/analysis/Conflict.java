@@ -0,0 +1,115 @@
+package alexman.shortcuts.shortcut.analysis;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * A conflict between Shortcuts, found by a {@link ConflictAnalyzer}. Every
+ * conflict concerns the Shortcuts bound to a key sequence and, for conflicts of
+ * type {@link Type#PREFIX PREFIX}, the Shortcuts they shadow.
+ *
+ * @author Alex Mandelias
+ */
+public final class Conflict {
+
+	/**
+	 * The types of conflicts.
+	 *
+	 * @author Alex Mandelias
+	 */
+	public enum Type {
+
+		/** The same action is bound to the same key sequence more than once */
+		DUPLICATE,
+
+		/** Different actions are bound to the same key sequence */
+		AMBIGUOUS,
+
+		/**
+		 * A key sequence is bound, and so are longer key sequences which start with
+		 * it. Those can never be triggered, since the shorter one is triggered first.
+		 */
+		PREFIX;
+	}
+
+	private final Type type;
+	private final KeySequence keySequence;
+	private final List<Shortcut> shortcuts, shadowed;
+
+	Conflict(Type type, KeySequence keySequence, List<Shortcut> shortcuts,
+	        List<Shortcut> shadowed) {
+		this.type = type;
+		this.keySequence = keySequence;
+		this.shortcuts = Collections.unmodifiableList(shortcuts);
+		this.shadowed = Collections.unmodifiableList(shadowed);
+	}
+
+	/**
+	 * Returns the type of this Conflict.
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the canonical key sequence this Conflict concerns.
+	 *
+	 * @return the key sequence
+	 *
+	 * @see KeySequence#canonical()
+	 */
+	public KeySequence getKeySequence() {
+		return keySequence;
+	}
+
+	/**
+	 * Returns the Shortcuts bound to the key sequence of this Conflict which take
+	 * part in it.
+	 *
+	 * @return an unmodifiable List with the Shortcuts
+	 */
+	public List<Shortcut> getShortcuts() {
+		return shortcuts;
+	}
+
+	/**
+	 * Returns the Shortcuts which are shadowed by the Shortcuts of this Conflict.
+	 * Only the nearest ones are included: a Shortcut which is shadowed by another
+	 * shadowed Shortcut is reported in the Conflict of the latter.
+	 *
+	 * @return an unmodifiable List with the Shortcuts, which is empty unless this
+	 *         Conflict is of type {@link Type#PREFIX PREFIX}
+	 */
+	public List<Shortcut> getShadowed() {
+		return shadowed;
+	}
+
+	@Override
+	public String toString() {
+		return type == Type.PREFIX
+		        ? String.format("%s %s: %s shadow %s", type, keySequence, shortcuts, shadowed)
+		        : String.format("%s %s: %s", type, keySequence, shortcuts);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, keySequence, shortcuts, shadowed);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Conflict))
+			return false;
+		Conflict other = (Conflict) obj;
+		return (type == other.type) && keySequence.equals(other.keySequence)
+		        && shortcuts.equals(other.shortcuts) && shadowed.equals(other.shadowed);
+	}
+}
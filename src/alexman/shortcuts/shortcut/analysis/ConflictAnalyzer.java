@@ -0,0 +1,327 @@
+package alexman.shortcuts.shortcut.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import alexman.shortcuts.shortcut.analysis.Conflict.Type;
+import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * Finds conflicts between Shortcuts using a trie over the chords of their
+ * {@link KeySequence#canonical() canonical} key sequences. Every node of the
+ * trie corresponds to a key sequence and holds the Shortcuts bound to it, so
+ * Shortcuts with the same key sequence share a node and Shortcuts whose key
+ * sequence starts with another one are found below its node.
+ * <p>
+ * The trie is updated incrementally as Shortcuts are added and removed, and
+ * all of its conflicts are found in a single pass, in time proportional to the
+ * total number of chords.
+ *
+ * @author Alex Mandelias
+ *
+ * @see Conflict
+ */
+public class ConflictAnalyzer {
+
+	private final Node root = new Node();
+	private int size = 0;
+
+	/** Constructs an empty Conflict Analyzer */
+	public ConflictAnalyzer() {}
+
+	/**
+	 * Constructs a Conflict Analyzer with the Shortcuts of a model.
+	 *
+	 * @param sm the model
+	 */
+	public ConflictAnalyzer(IShortcutModel sm) {
+		build(sm);
+	}
+
+	/**
+	 * Replaces the Shortcuts of this analyzer with the Shortcuts of a model.
+	 *
+	 * @param sm the model
+	 *
+	 * @return this analyzer
+	 */
+	public ConflictAnalyzer build(IShortcutModel sm) {
+		clear();
+		for (Shortcut shortcut : sm.getShortcuts())
+			add(shortcut);
+
+		return this;
+	}
+
+	/**
+	 * Removes all Shortcuts from this analyzer.
+	 *
+	 * @return this analyzer
+	 */
+	public ConflictAnalyzer clear() {
+		root.children.clear();
+		root.bindings.clear();
+		root.below = 0;
+		size = 0;
+		return this;
+	}
+
+	/**
+	 * Returns the number of Shortcuts in this analyzer.
+	 *
+	 * @return the number of Shortcuts
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds a Shortcut to this analyzer.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return this analyzer
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 */
+	public ConflictAnalyzer add(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		KeySequence keySequence = shortcut.getKeySequence().canonical();
+		Node node = root;
+		for (int chord = 0, chordCount = keySequence.chordCount(); chord < chordCount; chord++) {
+			node.below++;
+			node = node.children.computeIfAbsent(new Chord(keySequence, chord), c -> new Node());
+		}
+
+		node.bindings.add(shortcut);
+		size++;
+		return this;
+	}
+
+	/**
+	 * Removes a Shortcut from this analyzer.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return this analyzer
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 * @throws IllegalArgumentException if the Shortcut doesn't exist in this
+	 *         analyzer
+	 */
+	public ConflictAnalyzer remove(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		KeySequence keySequence = shortcut.getKeySequence().canonical();
+		int chordCount = keySequence.chordCount();
+		Node[] path = new Node[chordCount + 1];
+		Chord[] chords = new Chord[chordCount];
+
+		path[0] = root;
+		for (int chord = 0; chord < chordCount; chord++) {
+			chords[chord] = new Chord(keySequence, chord);
+			path[chord + 1] = path[chord].children.get(chords[chord]);
+			if (path[chord + 1] == null)
+				throw notFound(shortcut);
+		}
+
+		if (!path[chordCount].bindings.remove(shortcut))
+			throw notFound(shortcut);
+
+		// update the counts on the way up and drop the nodes which became empty
+		for (int depth = chordCount - 1; depth >= 0; depth--) {
+			Node parent = path[depth], child = path[depth + 1];
+			parent.below--;
+			if (child.isEmpty())
+				parent.children.remove(chords[depth]);
+		}
+
+		size--;
+		return this;
+	}
+
+	private static IllegalArgumentException notFound(Shortcut shortcut) {
+		return new IllegalArgumentException(
+		        String.format("Shortcut %s not found in analyzer", shortcut));
+	}
+
+	/**
+	 * Returns every conflict between the Shortcuts of this analyzer, in no
+	 * particular order.
+	 *
+	 * @return a List with the conflicts
+	 */
+	public List<Conflict> getConflicts() {
+		List<Conflict> conflicts = new ArrayList<>();
+
+		// each node is visited along with the list of Shortcuts shadowed by its
+		// nearest bound ancestor, to which it adds its own Shortcuts, if any
+		Deque<Visit> visits = new ArrayDeque<>();
+		visits.push(new Visit(root, null));
+
+		while (!visits.isEmpty()) {
+			Visit visit = visits.pop();
+			Node node = visit.node;
+			List<Shortcut> shadowed = visit.shadowed;
+
+			if (!node.bindings.isEmpty()) {
+				if (shadowed != null)
+					shadowed.addAll(node.bindings);
+
+				addSameSequenceConflicts(node, conflicts);
+
+				// filled in as the bound nodes below this one are visited
+				shadowed = new ArrayList<>();
+				if (node.below > 0) {
+					conflicts.add(new Conflict(Type.PREFIX, node.keySequence(),
+					        new ArrayList<>(node.bindings), shadowed));
+				}
+			}
+
+			for (Node child : node.children.values())
+				visits.push(new Visit(child, shadowed));
+		}
+
+		return conflicts;
+	}
+
+	/**
+	 * Returns the conflicts in which the Shortcuts bound to a key sequence take
+	 * part. This only visits the nodes of the key sequence and the nodes below
+	 * it, up to the nearest bound ones.
+	 *
+	 * @param keySequence the key sequence
+	 *
+	 * @return a List with the conflicts, which is empty if the key sequence isn't
+	 *         bound
+	 *
+	 * @throws NullPointerException if {@code keySequence == null}
+	 */
+	public List<Conflict> getConflicts(KeySequence keySequence) {
+		KeySequence canonical = keySequence.canonical();
+
+		Node node = root;
+		List<Node> boundAncestors = new ArrayList<>();
+		for (int chord = 0, chordCount = canonical.chordCount(); chord < chordCount; chord++) {
+			if (!node.bindings.isEmpty())
+				boundAncestors.add(node);
+
+			node = node.children.get(new Chord(canonical, chord));
+			if (node == null)
+				return new ArrayList<>();
+		}
+
+		List<Conflict> conflicts = new ArrayList<>();
+		if (node.bindings.isEmpty())
+			return conflicts;
+
+		for (Node ancestor : boundAncestors) {
+			conflicts.add(new Conflict(Type.PREFIX, ancestor.keySequence(),
+			        new ArrayList<>(ancestor.bindings), new ArrayList<>(node.bindings)));
+		}
+
+		addSameSequenceConflicts(node, conflicts);
+
+		if (node.below > 0) {
+			conflicts.add(new Conflict(Type.PREFIX, node.keySequence(),
+			        new ArrayList<>(node.bindings), nearestBoundBelow(node)));
+		}
+
+		return conflicts;
+	}
+
+	private static void addSameSequenceConflicts(Node node, List<Conflict> conflicts) {
+		if (node.bindings.size() < 2)
+			return;
+
+		Map<String, List<Shortcut>> byAction = new LinkedHashMap<>();
+		for (Shortcut shortcut : node.bindings)
+			byAction.computeIfAbsent(shortcut.getAction(), a -> new ArrayList<>()).add(shortcut);
+
+		KeySequence keySequence = node.keySequence();
+		for (List<Shortcut> sameAction : byAction.values()) {
+			if (sameAction.size() > 1)
+				conflicts.add(new Conflict(Type.DUPLICATE, keySequence, sameAction, List.of()));
+		}
+
+		if (byAction.size() > 1) {
+			conflicts.add(new Conflict(Type.AMBIGUOUS, keySequence,
+			        new ArrayList<>(node.bindings), List.of()));
+		}
+	}
+
+	private static List<Shortcut> nearestBoundBelow(Node node) {
+		List<Shortcut> found = new ArrayList<>();
+		Deque<Node> nodes = new ArrayDeque<>(node.children.values());
+		while (!nodes.isEmpty()) {
+			Node next = nodes.pop();
+			if (!next.bindings.isEmpty())
+				found.addAll(next.bindings);
+			else
+				next.children.values().forEach(nodes::push);
+		}
+		return found;
+	}
+
+	private static final class Node {
+
+		final Map<Chord, Node> children = new HashMap<>(4);
+		final List<Shortcut> bindings = new ArrayList<>(1);
+
+		// the number of Shortcuts bound to the nodes below this one
+		int below;
+
+		boolean isEmpty() {
+			return bindings.isEmpty() && children.isEmpty();
+		}
+
+		// only called on nodes with bindings, which all share the key sequence
+		KeySequence keySequence() {
+			return bindings.get(0).getKeySequence().canonical();
+		}
+	}
+
+	private static final class Visit {
+
+		final Node node;
+		final List<Shortcut> shadowed;
+
+		Visit(Node node, List<Shortcut> shadowed) {
+			this.node = node;
+			this.shadowed = shadowed;
+		}
+	}
+
+	private static final class Chord {
+
+		final int[] keyCodes;
+		final int hash;
+
+		Chord(KeySequence keySequence, int chord) {
+			keyCodes = new int[keySequence.chordLength(chord)];
+			for (int i = 0; i < keyCodes.length; i++)
+				keyCodes[i] = keySequence.keyCode(chord, i);
+			hash = Arrays.hashCode(keyCodes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof Chord) && Arrays.equals(keyCodes, ((Chord) obj).keyCodes);
+		}
+	}
+}
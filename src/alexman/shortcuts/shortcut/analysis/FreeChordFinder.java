@@ -0,0 +1,345 @@
+package alexman.shortcuts.shortcut.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import alexman.shortcuts.shortcut.model.IShortcutModel;
+import alexman.shortcuts.shortcut.model.KeySequence;
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * Finds combinations of keys (chords) which aren't used by any Shortcut. Every
+ * chord is encoded as a set of modifiers, stored as a bitmask, and a single
+ * other key. For each of the {@link #MODIFIER_SETS} sets of modifiers a bitset
+ * marks the keys which are occupied, so free keys are found by scanning for
+ * clear bits.
+ * <p>
+ * A chord is occupied when it is the first chord of the key sequence of a
+ * Shortcut, since binding it would shadow that Shortcut. Chords with no key or
+ * many keys other than modifiers are not tracked. The keys are the Virtual Key
+ * Codes of {@link Shortcut.Parser#getKeyCodes()} other than the modifiers,
+ * ordered so that letters, digits and function keys are suggested first.
+ *
+ * @author Alex Mandelias
+ *
+ * @see KeySequence#getModifiers()
+ */
+public class FreeChordFinder {
+
+	private static final int[] MODIFIERS = KeySequence.getModifiers();
+
+	/** The number of distinct sets of modifiers */
+	public static final int MODIFIER_SETS = 1 << MODIFIERS.length;
+
+	// the key codes in the order they are suggested and the index of each one
+	private static final int[] KEYS;
+	private static final Map<Integer, Integer> KEY_INDEX = new HashMap<>();
+
+	static {
+		List<Integer> letters = new ArrayList<>(), digits = new ArrayList<>(),
+		        functionKeys = new ArrayList<>(), others = new ArrayList<>();
+
+		for (int keyCode : Shortcut.Parser.getKeyCodes()) {
+			if ((keyCode == 0) || KeySequence.isModifier(keyCode))
+				continue; // VK_UNDEFINED isn't a key
+
+			if ((keyCode >= 'A') && (keyCode <= 'Z'))
+				letters.add(keyCode);
+			else if ((keyCode >= '0') && (keyCode <= '9'))
+				digits.add(keyCode);
+			else if (((keyCode >= 0x70) && (keyCode <= 0x7B))
+			        || ((keyCode >= 0xF000) && (keyCode <= 0xF00B)))
+				functionKeys.add(keyCode); // VK_F1 to VK_F12 and VK_F13 to VK_F24
+			else
+				others.add(keyCode);
+		}
+
+		List<Integer> keys = new ArrayList<>();
+		keys.addAll(letters);
+		keys.addAll(digits);
+		keys.addAll(functionKeys);
+		keys.addAll(others);
+
+		KEYS = new int[keys.size()];
+		for (int i = 0; i < KEYS.length; i++) {
+			KEYS[i] = keys.get(i);
+			KEY_INDEX.put(KEYS[i], i);
+		}
+	}
+
+	private final BitSet[] occupied = new BitSet[MODIFIER_SETS];
+	private final int[][] counts = new int[MODIFIER_SETS][];
+
+	/** Constructs an empty Free Chord Finder, in which every chord is free */
+	public FreeChordFinder() {
+		for (int mask = 0; mask < MODIFIER_SETS; mask++) {
+			occupied[mask] = new BitSet(KEYS.length);
+			counts[mask] = new int[KEYS.length];
+		}
+	}
+
+	/**
+	 * Constructs a Free Chord Finder with the Shortcuts of a model.
+	 *
+	 * @param sm the model
+	 */
+	public FreeChordFinder(IShortcutModel sm) {
+		this();
+		build(sm);
+	}
+
+	/**
+	 * Returns the bitmask of a set of modifiers.
+	 *
+	 * @param modifiers the key codes of the modifiers
+	 *
+	 * @return the bitmask
+	 *
+	 * @throws IllegalArgumentException if any of the key codes isn't a modifier
+	 *
+	 * @see KeySequence#isModifier(int)
+	 */
+	public static int modifierMask(int... modifiers) {
+		int mask = 0;
+		for (int keyCode : modifiers) {
+			int bit = modifierBit(keyCode);
+			if (bit == 0)
+				throw new IllegalArgumentException(
+				        String.format("Key code %d is not a modifier", keyCode));
+			mask |= bit;
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the bitmask of a set of modifiers written as a chord, e.g.
+	 * {@code "CONTROL+SHIFT"}. A blank string is the empty set.
+	 *
+	 * @param modifiers the modifiers
+	 *
+	 * @return the bitmask
+	 *
+	 * @throws IllegalArgumentException if the string isn't a single chord of
+	 *         modifiers
+	 */
+	public static int modifierMask(String modifiers) {
+		if (modifiers.isBlank())
+			return 0;
+
+		KeySequence chord = Shortcut.Parser.parse(modifiers.strip());
+		if (chord.chordCount() != 1)
+			throw new IllegalArgumentException(
+			        String.format("Modifiers <%s> must be a single chord", modifiers));
+
+		int[] keyCodes = new int[chord.chordLength(0)];
+		for (int i = 0; i < keyCodes.length; i++)
+			keyCodes[i] = chord.keyCode(0, i);
+
+		return modifierMask(keyCodes);
+	}
+
+	/**
+	 * Replaces the Shortcuts of this finder with the Shortcuts of a model.
+	 *
+	 * @param sm the model
+	 *
+	 * @return this finder
+	 */
+	public FreeChordFinder build(IShortcutModel sm) {
+		clear();
+		for (Shortcut shortcut : sm.getShortcuts())
+			add(shortcut);
+
+		return this;
+	}
+
+	/**
+	 * Removes all Shortcuts from this finder, so that every chord is free.
+	 *
+	 * @return this finder
+	 */
+	public FreeChordFinder clear() {
+		for (int mask = 0; mask < MODIFIER_SETS; mask++) {
+			occupied[mask].clear();
+			Arrays.fill(counts[mask], 0);
+		}
+		return this;
+	}
+
+	/**
+	 * Marks the first chord of a Shortcut as occupied.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return this finder
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 */
+	public FreeChordFinder add(Shortcut shortcut) {
+		long chord = encode(Objects.requireNonNull(shortcut, "shortcut cannot be null"));
+		if (chord == -1)
+			return this;
+
+		int mask = (int) (chord >>> 32), key = (int) chord;
+		if (counts[mask][key]++ == 0)
+			occupied[mask].set(key);
+
+		return this;
+	}
+
+	/**
+	 * Releases the first chord of a Shortcut, which becomes free if no other
+	 * Shortcut starts with it.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return this finder
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 * @throws IllegalArgumentException if the Shortcut's chord isn't occupied
+	 */
+	public FreeChordFinder remove(Shortcut shortcut) {
+		long chord = encode(Objects.requireNonNull(shortcut, "shortcut cannot be null"));
+		if (chord == -1)
+			return this;
+
+		int mask = (int) (chord >>> 32), key = (int) chord;
+		if (counts[mask][key] == 0)
+			throw new IllegalArgumentException(
+			        String.format("Shortcut %s not found in finder", shortcut));
+
+		if (--counts[mask][key] == 0)
+			occupied[mask].clear(key);
+
+		return this;
+	}
+
+	/**
+	 * Returns whether the chord of the given modifiers and key is free.
+	 *
+	 * @param modifierMask the bitmask of the modifiers
+	 * @param keyCode the key code of the key
+	 *
+	 * @return {@code true} if the chord is free, {@code false} if it is occupied
+	 *         or isn't tracked
+	 *
+	 * @throws IllegalArgumentException if the bitmask is invalid
+	 */
+	public boolean isFree(int modifierMask, int keyCode) {
+		checkMask(modifierMask);
+		Integer key = KEY_INDEX.get(keyCode);
+		return (key != null) && !occupied[modifierMask].get(key);
+	}
+
+	/**
+	 * Returns the number of free keys under the given modifiers.
+	 *
+	 * @param modifierMask the bitmask of the modifiers
+	 *
+	 * @return the number of free keys
+	 *
+	 * @throws IllegalArgumentException if the bitmask is invalid
+	 */
+	public int getFreeKeyCount(int modifierMask) {
+		checkMask(modifierMask);
+		return KEYS.length - occupied[modifierMask].cardinality();
+	}
+
+	/**
+	 * Returns the key codes of the keys which are free under the given modifiers,
+	 * in the order in which they are suggested.
+	 *
+	 * @param modifierMask the bitmask of the modifiers
+	 *
+	 * @return an array with the key codes
+	 *
+	 * @throws IllegalArgumentException if the bitmask is invalid
+	 */
+	public int[] getFreeKeys(int modifierMask) {
+		int[] free = new int[getFreeKeyCount(modifierMask)];
+		BitSet used = occupied[modifierMask];
+		int key = -1;
+		for (int i = 0; i < free.length; i++) {
+			key = used.nextClearBit(key + 1);
+			free[i] = KEYS[key];
+		}
+		return free;
+	}
+
+	/**
+	 * Suggests free chords with the given modifiers.
+	 *
+	 * @param modifierMask the bitmask of the modifiers
+	 * @param count the maximum number of chords to suggest
+	 *
+	 * @return a List with at most {@code count} Key Sequences, each of which
+	 *         consists of a single canonical chord
+	 *
+	 * @throws IllegalArgumentException if the bitmask is invalid or if
+	 *         {@code count < 0}
+	 */
+	public List<KeySequence> suggest(int modifierMask, int count) {
+		checkMask(modifierMask);
+		if (count < 0)
+			throw new IllegalArgumentException("count cannot be negative");
+
+		List<KeySequence> suggestions = new ArrayList<>(Math.min(count, KEYS.length));
+		BitSet used = occupied[modifierMask];
+		for (int key = used.nextClearBit(0); (key < KEYS.length)
+		        && (suggestions.size() < count); key = used.nextClearBit(key + 1)) {
+			KeySequence.Builder builder = new KeySequence.Builder();
+			for (int i = 0; i < MODIFIERS.length; i++) {
+				if ((modifierMask & (1 << i)) != 0)
+					builder.key(MODIFIERS[i]);
+			}
+			suggestions.add(builder.key(KEYS[key]).endChord().build());
+		}
+
+		return suggestions;
+	}
+
+	/*
+	 * Returns the modifier mask in the high and the index of the key in the low
+	 * 32 bits, or -1 if the first chord of the Shortcut isn't tracked.
+	 */
+	private static long encode(Shortcut shortcut) {
+		KeySequence keySequence = shortcut.getKeySequence();
+		if (keySequence.chordCount() == 0)
+			return -1;
+
+		int mask = 0, key = -1;
+		for (int i = 0, length = keySequence.chordLength(0); i < length; i++) {
+			int keyCode = keySequence.keyCode(0, i);
+			int bit = modifierBit(keyCode);
+			if (bit != 0) {
+				mask |= bit;
+			} else {
+				Integer index = KEY_INDEX.get(keyCode);
+				if ((index == null) || (key != -1))
+					return -1;
+				key = index;
+			}
+		}
+
+		return key == -1 ? -1 : ((long) mask << 32) | key;
+	}
+
+	private static int modifierBit(int keyCode) {
+		for (int i = 0; i < MODIFIERS.length; i++) {
+			if (MODIFIERS[i] == keyCode)
+				return 1 << i;
+		}
+		return 0;
+	}
+
+	private static void checkMask(int modifierMask) {
+		if ((modifierMask < 0) || (modifierMask >= MODIFIER_SETS))
+			throw new IllegalArgumentException(
+			        String.format("Invalid modifier mask %d", modifierMask));
+	}
+}
@@ -0,0 +1,708 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * A Shortcut Model, which also acts as a {@code ListModel}, which stores its
+ * Shortcuts in columns instead of as objects, for libraries with many Shortcuts
+ * which repeat the same actions and key sequences.
+ * <p>
+ * Every distinct action is stored once, in a pool of Strings, and every
+ * distinct key sequence is stored once, packed in a single array of key codes.
+ * Each Shortcut is then just two ints: the id of its action and the offset of
+ * its key sequence. The Shortcuts handed out by this model are created when
+ * they are requested and aren't kept, so they may be compared with
+ * {@code equals} but not {@code ==}.
+ * <p>
+ * The pools only grow as Shortcuts are added; removing Shortcuts doesn't
+ * release their action or key sequence. They are rebuilt, without the unused
+ * ones, when this model is loaded, cleared or replaced.
+ *
+ * @author Alex Mandelias
+ *
+ * @see #getFootprint()
+ */
+public class ColumnarShortcutModel
+        implements IShortcutModel, ListModel<Shortcut>, Iterable<Shortcut> {
+
+	// the ids of the actions and the offsets of the key sequences of the Shortcuts
+	private int[] actionIds = new int[16];
+	private int[] keyOffsets = new int[16];
+	private int size = 0;
+
+	// the distinct actions, by id, where the id 0 is reserved for null
+	private String[] actions = new String[16];
+	private int actionCount = 1;
+
+	// the distinct packed key sequences, one after the other
+	private int[] keyData = new int[64];
+	private int keyDataLength = 0;
+	private int keySequenceCount = 0;
+
+	// open addressing hash tables with the id + 1 of every action and the offset
+	// + 1 of every key sequence, so that equal ones are found without boxing
+	private int[] actionTable = new int[32];
+	private int[] keyTable = new int[32];
+
+	private IShortcutFormatter sf;
+
+	private final Set<ListDataListener> listDataListeners = new HashSet<>();
+
+	// the events of nested batches are coalesced into one, fired at the end
+	private int batchDepth = 0;
+	private boolean batchChanged;
+	private int batchSize;
+
+	/**
+	 * Constructs a Columnar Shortcut Model with no Formatter. It is necessary to
+	 * call {@link #setFormatter(IShortcutFormatter)} before attempting to call any
+	 * of the {@code load} or {@code store} methods, as they require a Formatter.
+	 */
+	public ColumnarShortcutModel() {
+		this(null);
+	}
+
+	/**
+	 * Constructs a Columnar Shortcut Model with the given Formatter.
+	 *
+	 * @param shortcutFormatter this Model's Formatter
+	 */
+	public ColumnarShortcutModel(IShortcutFormatter shortcutFormatter) {
+		this.sf = shortcutFormatter;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Shortcut s : this) {
+			sb.append(s).append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public IShortcutModel load(Reader reader, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(reader, "reader cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return replaceAll(ShortcutReader.read(reader, shortcutFormatter));
+	}
+
+	@Override
+	public IShortcutModel load(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return replaceAll(ShortcutReader.read(path, shortcutFormatter));
+	}
+
+	@Override
+	public IShortcutModel loadParallel(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return replaceAll(ShortcutReader.readParallel(path, shortcutFormatter));
+	}
+
+	@Override
+	public IShortcutModel store(Writer writer, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(writer, "writer cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		for (Shortcut s : this) {
+			writer.write(shortcutFormatter.format(s).toCharArray());
+			writer.write(System.lineSeparator().toCharArray());
+		}
+
+		return this;
+	}
+
+	@Override
+	public IShortcutFormatter getFormatter() {
+		return sf;
+	}
+
+	@Override
+	public final IShortcutModel setFormatter(IShortcutFormatter sf) {
+		this.sf = sf;
+		return this;
+	}
+
+	@Override
+	public IShortcutModel addShortcut(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		append(shortcut);
+		fire(ListDataEvent.INTERVAL_ADDED, size - 1, size - 1);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation shifts the columns after the index and fires a single
+	 * {@code INTERVAL_ADDED} event for it.
+	 */
+	@Override
+	public IShortcutModel insertShortcut(int index, Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		Objects.checkIndex(index, size + 1);
+
+		// appended first, so that the columns grow and the pools are interned
+		append(shortcut);
+		int actionId = actionIds[size - 1], keyOffset = keyOffsets[size - 1];
+		System.arraycopy(actionIds, index, actionIds, index + 1, size - index - 1);
+		System.arraycopy(keyOffsets, index, keyOffsets, index + 1, size - index - 1);
+		actionIds[index] = actionId;
+		keyOffsets[index] = keyOffset;
+
+		fire(ListDataEvent.INTERVAL_ADDED, index, index);
+
+		return this;
+	}
+
+	@Override
+	public IShortcutModel removeShortcut(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		int index = indexOf(shortcut);
+		if (index == -1) {
+			throw new IllegalArgumentException(
+			        String.format("Shortcut %s not found in model", shortcut));
+		}
+
+		return removeShortcut(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation shifts the columns after the index and fires a single
+	 * {@code INTERVAL_REMOVED} event for it.
+	 */
+	@Override
+	public IShortcutModel removeShortcut(int index) {
+		Objects.checkIndex(index, size);
+
+		System.arraycopy(actionIds, index + 1, actionIds, index, size - index - 1);
+		System.arraycopy(keyOffsets, index + 1, keyOffsets, index, size - index - 1);
+		size--;
+
+		fire(ListDataEvent.INTERVAL_REMOVED, index, index);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation overwrites the columns at the index and fires a single
+	 * {@code CONTENTS_CHANGED} event for it.
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(int index, Shortcut newShortcut) {
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+		Objects.checkIndex(index, size);
+
+		actionIds[index] = internAction(newShortcut.getAction());
+		keyOffsets[index] = internKeySequence(newShortcut.getKeySequence());
+
+		fire(ListDataEvent.CONTENTS_CHANGED, index, index);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code INTERVAL_ADDED} event for the
+	 * added Shortcuts.
+	 */
+	@Override
+	public IShortcutModel addAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> added = checked(shortcuts);
+		if (added.isEmpty())
+			return this;
+
+		int from = size;
+		for (Shortcut shortcut : added)
+			append(shortcut);
+
+		fire(ListDataEvent.INTERVAL_ADDED, from, size - 1);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation removes the Shortcuts in a single pass, comparing only
+	 * their ids and offsets, and fires a single {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel removeAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> removed = checked(shortcuts);
+		if (removed.isEmpty())
+			return this;
+
+		// the number of occurrences of every Shortcut which are left to remove
+		Map<Long, Integer> pending = new HashMap<>();
+		for (Shortcut shortcut : removed) {
+			int actionId = findActionId(shortcut.getAction());
+			int keyOffset = findKeyOffset(shortcut.getKeySequence());
+			if ((actionId == -1) || (keyOffset == -1)) {
+				throw new IllegalArgumentException(
+				        String.format("Shortcut %s not found in model", shortcut));
+			}
+			pending.merge(pair(actionId, keyOffset), 1, Integer::sum);
+		}
+
+		// the first occurrences are removed, as removeShortcut would
+		int[] newActionIds = new int[actionIds.length], newKeyOffsets = new int[keyOffsets.length];
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			Long pair = pair(actionIds[i], keyOffsets[i]);
+			Integer count = pending.get(pair);
+			if (count == null) {
+				newActionIds[kept] = actionIds[i];
+				newKeyOffsets[kept] = keyOffsets[i];
+				kept++;
+			} else if (count == 1) {
+				pending.remove(pair);
+			} else {
+				pending.put(pair, count - 1);
+			}
+		}
+
+		if (!pending.isEmpty()) {
+			long missing = pending.keySet().iterator().next();
+			throw new IllegalArgumentException(String.format("Shortcut %s not found in model",
+			        shortcutOf((int) (missing >>> 32), (int) missing)));
+		}
+
+		int previousSize = size;
+		actionIds = newActionIds;
+		keyOffsets = newKeyOffsets;
+		size = kept;
+
+		fireContentsChanged(previousSize);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation rebuilds the pools with only the actions and key
+	 * sequences of the new Shortcuts, trims every array to its size and fires a
+	 * single {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel replaceAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> replacements = checked(shortcuts);
+
+		int previousSize = size;
+		reset(replacements.size());
+		for (Shortcut shortcut : replacements)
+			append(shortcut);
+		trim();
+
+		fireContentsChanged(previousSize);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The listeners aren't notified while the action runs. Then, if the action
+	 * changed this model, a single {@code CONTENTS_CHANGED} event is fired.
+	 */
+	@Override
+	public IShortcutModel batch(Consumer<? super IShortcutModel> action) {
+		Objects.requireNonNull(action, "action cannot be null");
+
+		if (batchDepth++ == 0) {
+			batchChanged = false;
+			batchSize = size;
+		}
+
+		try {
+			action.accept(this);
+		} finally {
+			if ((--batchDepth == 0) && batchChanged)
+				fireContentsChanged(batchSize);
+		}
+
+		return this;
+	}
+
+	@Override
+	public IShortcutModel clear() {
+		return replaceAll(List.of());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The List creates the Shortcuts only when they are requested.
+	 */
+	@Override
+	public List<Shortcut> getShortcuts() {
+		return new ShortcutList();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation compares only the ids and offsets of the Shortcuts,
+	 * without creating them.
+	 */
+	@Override
+	public int indexOf(Shortcut shortcut) {
+		int actionId = findActionId(shortcut.getAction());
+		int keyOffset = findKeyOffset(shortcut.getKeySequence());
+		if ((actionId == -1) || (keyOffset == -1))
+			return -1;
+
+		for (int i = 0; i < size; i++) {
+			if ((actionIds[i] == actionId) && (keyOffsets[i] == keyOffset))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation compares only the ids of the actions, and creates only
+	 * the Shortcuts which are returned.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByAction(String action) {
+		int actionId = findActionId(action);
+		if (actionId == -1)
+			return List.of();
+
+		List<Shortcut> found = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			if (actionIds[i] == actionId)
+				found.add(shortcutOf(actionId, keyOffsets[i]));
+		}
+		return List.copyOf(found);
+	}
+
+	/**
+	 * Returns an estimate of the memory used by this model, in bytes. It includes
+	 * the columns, the pools and the actions, but not the Shortcuts which have
+	 * been handed out. The estimate assumes a 64-bit JVM with compressed
+	 * references and compact Strings.
+	 *
+	 * @return the estimate
+	 */
+	public long getFootprint() {
+		long footprint = arraySize(actionIds.length, 4) + arraySize(keyOffsets.length, 4)
+		        + arraySize(keyData.length, 4) + arraySize(actionTable.length, 4)
+		        + arraySize(keyTable.length, 4) + arraySize(actions.length, 4);
+
+		for (int id = 1; id < actionCount; id++)
+			footprint += stringSize(actions[id]);
+
+		return footprint;
+	}
+
+	/**
+	 * Returns the number of distinct actions of the Shortcuts of this model,
+	 * including those of removed Shortcuts.
+	 *
+	 * @return the number of actions
+	 */
+	public int getDistinctActionCount() {
+		return actionCount - 1;
+	}
+
+	/**
+	 * Returns the number of distinct key sequences of the Shortcuts of this
+	 * model, including those of removed Shortcuts.
+	 *
+	 * @return the number of key sequences
+	 */
+	public int getDistinctKeySequenceCount() {
+		return keySequenceCount;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public Shortcut getElementAt(int index) {
+		Objects.checkIndex(index, size);
+		return shortcutOf(actionIds[index], keyOffsets[index]);
+	}
+
+	@Override
+	public void addListDataListener(ListDataListener l) {
+		listDataListeners.add(l);
+	}
+
+	@Override
+	public void removeListDataListener(ListDataListener l) {
+		listDataListeners.remove(l);
+	}
+
+	@Override
+	public Iterator<Shortcut> iterator() {
+		return getShortcuts().iterator();
+	}
+
+	private Shortcut shortcutOf(int actionId, int keyOffset) {
+		int length = packedLength(keyOffset);
+		return new Shortcut(actions[actionId],
+		        KeySequence.ofPacked(Arrays.copyOfRange(keyData, keyOffset, keyOffset + length)));
+	}
+
+	private void append(Shortcut shortcut) {
+		if (size == actionIds.length) {
+			actionIds = Arrays.copyOf(actionIds, Math.max(2 * size, 16));
+			keyOffsets = Arrays.copyOf(keyOffsets, Math.max(2 * size, 16));
+		}
+
+		actionIds[size] = internAction(shortcut.getAction());
+		keyOffsets[size] = internKeySequence(shortcut.getKeySequence());
+		size++;
+	}
+
+	// empties the columns and the pools, with room for the given number of Shortcuts
+	private void reset(int capacity) {
+		actionIds = new int[Math.max(capacity, 16)];
+		keyOffsets = new int[Math.max(capacity, 16)];
+		size = 0;
+
+		actions = new String[16];
+		actionCount = 1;
+		actionTable = new int[32];
+
+		keyData = new int[64];
+		keyDataLength = 0;
+		keySequenceCount = 0;
+		keyTable = new int[32];
+	}
+
+	private void trim() {
+		actionIds = Arrays.copyOf(actionIds, size);
+		keyOffsets = Arrays.copyOf(keyOffsets, size);
+		actions = Arrays.copyOf(actions, actionCount);
+		keyData = Arrays.copyOf(keyData, keyDataLength);
+	}
+
+	private int internAction(String action) {
+		if (action == null)
+			return 0;
+
+		int slot = actionSlot(action);
+		if (actionTable[slot] != 0)
+			return actionTable[slot] - 1;
+
+		if (actionCount == actions.length)
+			actions = Arrays.copyOf(actions, 2 * actionCount);
+
+		int id = actionCount++;
+		actions[id] = action;
+		actionTable[slot] = id + 1;
+
+		if (2 * actionCount > actionTable.length)
+			rehashActions();
+
+		return id;
+	}
+
+	// returns the id of the action, or -1 if it isn't in the pool
+	private int findActionId(String action) {
+		if (action == null)
+			return 0;
+
+		return actionTable[actionSlot(action)] - 1;
+	}
+
+	// returns the slot of the action or the empty slot where it would be
+	private int actionSlot(String action) {
+		int mask = actionTable.length - 1;
+		for (int slot = spread(action.hashCode()) & mask;; slot = (slot + 1) & mask) {
+			int entry = actionTable[slot];
+			if ((entry == 0) || actions[entry - 1].equals(action))
+				return slot;
+		}
+	}
+
+	private void rehashActions() {
+		actionTable = new int[2 * actionTable.length];
+		for (int id = 1; id < actionCount; id++)
+			actionTable[actionSlot(actions[id])] = id + 1;
+	}
+
+	private int internKeySequence(KeySequence keySequence) {
+		int[] packed = keySequence.packed();
+		int slot = keySlot(packed, keySequence.hashCode());
+		if (keyTable[slot] != 0)
+			return keyTable[slot] - 1;
+
+		if (keyDataLength + packed.length > keyData.length)
+			keyData = Arrays.copyOf(keyData, Math.max(2 * keyData.length,
+			        keyDataLength + packed.length));
+
+		int offset = keyDataLength;
+		System.arraycopy(packed, 0, keyData, offset, packed.length);
+		keyDataLength += packed.length;
+		keySequenceCount++;
+		keyTable[slot] = offset + 1;
+
+		if (2 * keySequenceCount > keyTable.length)
+			rehashKeySequences();
+
+		return offset;
+	}
+
+	// returns the offset of the key sequence, or -1 if it isn't in the pool
+	private int findKeyOffset(KeySequence keySequence) {
+		return keyTable[keySlot(keySequence.packed(), keySequence.hashCode())] - 1;
+	}
+
+	// returns the slot of the key sequence or the empty slot where it would be
+	private int keySlot(int[] packed, int hash) {
+		int mask = keyTable.length - 1;
+		for (int slot = spread(hash) & mask;; slot = (slot + 1) & mask) {
+			int entry = keyTable[slot];
+			if (entry == 0)
+				return slot;
+
+			int offset = entry - 1;
+			if ((packedLength(offset) == packed.length) && Arrays.equals(keyData, offset,
+			        offset + packed.length, packed, 0, packed.length))
+				return slot;
+		}
+	}
+
+	private void rehashKeySequences() {
+		keyTable = new int[2 * keyTable.length];
+		int mask = keyTable.length - 1;
+		for (int offset = 0; offset < keyDataLength; offset += packedLength(offset)) {
+			int slot = spread(packedHash(offset)) & mask;
+			while (keyTable[slot] != 0)
+				slot = (slot + 1) & mask;
+			keyTable[slot] = offset + 1;
+		}
+	}
+
+	// the same as the hash code of the Key Sequence, which hashes its packed form
+	private int packedHash(int offset) {
+		int hash = 1;
+		for (int i = offset, end = offset + packedLength(offset); i < end; i++)
+			hash = (31 * hash) + keyData[i];
+		return hash;
+	}
+
+	// see the layout of KeySequence: the chord count, the chord ends, the key codes
+	private int packedLength(int offset) {
+		int chordCount = keyData[offset];
+		return 1 + chordCount + (chordCount == 0 ? 0 : keyData[offset + chordCount]);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private static Long pair(int actionId, int keyOffset) {
+		return ((long) actionId << 32) | keyOffset;
+	}
+
+	private static List<Shortcut> checked(Collection<? extends Shortcut> shortcuts) {
+		Objects.requireNonNull(shortcuts, "shortcuts cannot be null");
+
+		List<Shortcut> copy = new ArrayList<>(shortcuts);
+		for (Shortcut shortcut : copy)
+			Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		return copy;
+	}
+
+	private static long arraySize(int length, int elementSize) {
+		return align(16 + ((long) length * elementSize));
+	}
+
+	private static long stringSize(String s) {
+		boolean latin1 = s.chars().allMatch(c -> c < 256);
+		return 24 + arraySize(s.length(), latin1 ? 1 : 2);
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	private void fire(int type, int index0, int index1) {
+		if (batchDepth > 0) {
+			batchChanged = true;
+			return;
+		}
+
+		ListDataEvent lde = new ListDataEvent(this, type, index0, index1);
+		for (ListDataListener ldl : listDataListeners) {
+			switch (type) {
+			case ListDataEvent.INTERVAL_ADDED:
+				ldl.intervalAdded(lde);
+				break;
+			case ListDataEvent.INTERVAL_REMOVED:
+				ldl.intervalRemoved(lde);
+				break;
+			default:
+				ldl.contentsChanged(lde);
+				break;
+			}
+		}
+	}
+
+	// the event covers the rows both before and after the change
+	private void fireContentsChanged(int previousSize) {
+		fire(ListDataEvent.CONTENTS_CHANGED, 0, Math.max(0, Math.max(previousSize, size) - 1));
+	}
+
+	private class ShortcutList extends AbstractList<Shortcut> implements RandomAccess {
+
+		@Override
+		public Shortcut get(int index) {
+			return getElementAt(index);
+		}
+
+		@Override
+		public int size() {
+			return getSize();
+		}
+	}
+}
@@ -0,0 +1,668 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * A thread-safe Shortcut Model, which also acts as a {@code ListModel}. Its
+ * state is an immutable, versioned {@link Snapshot}, which is replaced by a new
+ * one on every change (copy-on-write). Readers get the current Snapshot without
+ * locking and can use it for as long as they like, even while the model is
+ * being modified. Writers are serialized by a lock.
+ * <p>
+ * Listeners are always notified on the Event Dispatch Thread, in the order the
+ * changes were made. The {@code ListModel} methods, which are meant to be called
+ * on the Event Dispatch Thread, return the Snapshot of the last event which was
+ * delivered, so that they agree with the events the listeners have seen. The
+ * rest of the methods see the latest Snapshot.
+ * <p>
+ * Every change copies the Shortcuts, so this model suits libraries which are
+ * read much more often than they are modified. Many changes can be made with a
+ * single copy using the bulk operations or {@link #batch(Consumer)}, which also
+ * notify the listeners once.
+ *
+ * @author Alex Mandelias
+ */
+public class ConcurrentShortcutModel
+        implements IShortcutModel, ListModel<Shortcut>, Iterable<Shortcut> {
+
+	private final Object writeLock = new Object();
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+	private volatile IShortcutFormatter sf;
+
+	// the changes of a batch are published together when it ends
+	private int batchDepth = 0;
+	private Snapshot pending;
+
+	// only accessed on the Event Dispatch Thread
+	private Snapshot delivered = Snapshot.EMPTY;
+	private boolean draining = false;
+
+	private final Queue<Delivery> deliveries = new ConcurrentLinkedQueue<>();
+	private final List<ListDataListener> listDataListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructs a Concurrent Shortcut Model with no Formatter. It is necessary
+	 * to call {@link #setFormatter(IShortcutFormatter)} before attempting to call
+	 * any of the {@code load} or {@code store} methods, as they require a
+	 * Formatter.
+	 */
+	public ConcurrentShortcutModel() {
+		this(null);
+	}
+
+	/**
+	 * Constructs a Concurrent Shortcut Model with the given Formatter.
+	 *
+	 * @param shortcutFormatter this Model's Formatter
+	 */
+	public ConcurrentShortcutModel(IShortcutFormatter shortcutFormatter) {
+		this.sf = shortcutFormatter;
+	}
+
+	/**
+	 * Returns the current Snapshot of this model, without locking.
+	 *
+	 * @return the Snapshot
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Shortcut s : this) {
+			sb.append(s).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The reader is parsed before the lock is taken, so other threads can read
+	 * and modify this model in the meantime.
+	 */
+	@Override
+	public IShortcutModel load(Reader reader, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(reader, "reader cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return loaded(ShortcutReader.read(reader, shortcutFormatter));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The file is read before the lock is taken, so other threads can read and
+	 * modify this model in the meantime. Files written by
+	 * {@link #storeBinary(Path)} are detected by their header.
+	 */
+	@Override
+	public IShortcutModel load(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return loaded(ShortcutReader.read(path, shortcutFormatter));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The file is read before the lock is taken, so other threads can read and
+	 * modify this model in the meantime.
+	 */
+	@Override
+	public IShortcutModel loadParallel(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return loaded(ShortcutReader.readParallel(path, shortcutFormatter));
+	}
+
+	private IShortcutModel loaded(List<Shortcut> loaded) {
+		Shortcut[] shortcuts = loaded.toArray(new Shortcut[0]);
+		synchronized (writeLock) {
+			Snapshot current = current();
+			publishContentsChanged(current, new Snapshot(shortcuts, current.version + 1));
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation writes the Snapshot which is current when it is called,
+	 * without locking.
+	 */
+	@Override
+	public IShortcutModel store(Writer writer, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(writer, "writer cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		for (Shortcut s : snapshot) {
+			writer.write(shortcutFormatter.format(s).toCharArray());
+			writer.write(System.lineSeparator().toCharArray());
+		}
+
+		return this;
+	}
+
+	@Override
+	public IShortcutFormatter getFormatter() {
+		return sf;
+	}
+
+	@Override
+	public final IShortcutModel setFormatter(IShortcutFormatter sf) {
+		this.sf = sf;
+		return this;
+	}
+
+	@Override
+	public IShortcutModel addShortcut(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			int index = current.size();
+			Shortcut[] shortcuts = new Shortcut[index + 1];
+			System.arraycopy(current.shortcuts, 0, shortcuts, 0, index);
+			shortcuts[index] = shortcut;
+
+			publish(new Snapshot(shortcuts, current.version + 1), ListDataEvent.INTERVAL_ADDED,
+			        index, index);
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation copies the Shortcuts once and fires a single
+	 * {@code INTERVAL_ADDED} event for the index.
+	 */
+	@Override
+	public IShortcutModel insertShortcut(int index, Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			int size = current.size();
+			Objects.checkIndex(index, size + 1);
+
+			Shortcut[] shortcuts = new Shortcut[size + 1];
+			System.arraycopy(current.shortcuts, 0, shortcuts, 0, index);
+			shortcuts[index] = shortcut;
+			System.arraycopy(current.shortcuts, index, shortcuts, index + 1, size - index);
+
+			publish(new Snapshot(shortcuts, current.version + 1), ListDataEvent.INTERVAL_ADDED,
+			        index, index);
+		}
+
+		deliver();
+		return this;
+	}
+
+	@Override
+	public IShortcutModel removeShortcut(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			int index = current.indexOf(shortcut);
+			if (index == -1) {
+				throw new IllegalArgumentException(
+				        String.format("Shortcut %s not found in model", shortcut));
+			}
+
+			publishRemoved(current, index);
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation copies the Shortcuts once and fires a single
+	 * {@code INTERVAL_REMOVED} event for the index.
+	 */
+	@Override
+	public IShortcutModel removeShortcut(int index) {
+		synchronized (writeLock) {
+			Snapshot current = current();
+			Objects.checkIndex(index, current.size());
+
+			publishRemoved(current, index);
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation copies the Shortcuts once and fires a single
+	 * {@code CONTENTS_CHANGED} event for the index of the replaced Shortcut.
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(Shortcut oldShortcut, Shortcut newShortcut) {
+		Objects.requireNonNull(oldShortcut, "old shortcut cannot be null");
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			int index = current.indexOf(oldShortcut);
+			if (index == -1) {
+				throw new IllegalArgumentException(
+				        String.format("Shortcut %s not found in model", oldShortcut));
+			}
+
+			publishReplaced(current, index, newShortcut);
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation copies the Shortcuts once and fires a single
+	 * {@code CONTENTS_CHANGED} event for the index.
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(int index, Shortcut newShortcut) {
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			Objects.checkIndex(index, current.size());
+
+			publishReplaced(current, index, newShortcut);
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation copies the Shortcuts once and fires a single
+	 * {@code INTERVAL_ADDED} event.
+	 */
+	@Override
+	public IShortcutModel addAll(Collection<? extends Shortcut> shortcuts) {
+		Shortcut[] added = checked(shortcuts);
+		if (added.length == 0)
+			return this;
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			int size = current.size();
+			Shortcut[] next = Arrays.copyOf(current.shortcuts, size + added.length);
+			System.arraycopy(added, 0, next, size, added.length);
+
+			publish(new Snapshot(next, current.version + 1), ListDataEvent.INTERVAL_ADDED, size,
+			        next.length - 1);
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation removes the Shortcuts in a single pass over a copy of
+	 * the Shortcuts and fires a single {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel removeAll(Collection<? extends Shortcut> shortcuts) {
+		Shortcut[] removed = checked(shortcuts);
+		if (removed.length == 0)
+			return this;
+
+		// the number of occurrences of every Shortcut which are left to remove
+		Map<Shortcut, Integer> pendingRemovals = new HashMap<>();
+		for (Shortcut shortcut : removed)
+			pendingRemovals.merge(shortcut, 1, Integer::sum);
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			Shortcut[] next = new Shortcut[current.size()];
+			int kept = 0;
+			for (Shortcut shortcut : current.shortcuts) {
+				Integer count = pendingRemovals.get(shortcut);
+				if (count == null)
+					next[kept++] = shortcut;
+				else if (count == 1)
+					pendingRemovals.remove(shortcut);
+				else
+					pendingRemovals.put(shortcut, count - 1);
+			}
+
+			if (!pendingRemovals.isEmpty()) {
+				throw new IllegalArgumentException(String.format("Shortcut %s not found in model",
+				        pendingRemovals.keySet().iterator().next()));
+			}
+
+			publishContentsChanged(current,
+			        new Snapshot(Arrays.copyOf(next, kept), current.version + 1));
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel replaceAll(Collection<? extends Shortcut> shortcuts) {
+		Shortcut[] replacements = checked(shortcuts);
+
+		synchronized (writeLock) {
+			Snapshot current = current();
+			publishContentsChanged(current, new Snapshot(replacements, current.version + 1));
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The action runs while holding the lock, so other writers wait for it to
+	 * finish, and readers keep seeing the Snapshot from before the batch until it
+	 * ends. Then, if the action changed this model, its changes are published as
+	 * a single Snapshot with a single {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel batch(Consumer<? super IShortcutModel> action) {
+		Objects.requireNonNull(action, "action cannot be null");
+
+		try {
+			synchronized (writeLock) {
+				if (batchDepth++ == 0)
+					pending = snapshot;
+
+				try {
+					action.accept(this);
+				} finally {
+					if (--batchDepth == 0) {
+						Snapshot next = pending;
+						pending = null;
+						if (next != snapshot)
+							publishContentsChanged(snapshot, next);
+					}
+				}
+			}
+		} finally {
+			deliver();
+		}
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation returns the current Snapshot, which never changes.
+	 */
+	@Override
+	public List<Shortcut> getShortcuts() {
+		return snapshot;
+	}
+
+	/**
+	 * Removes all existing Shortcuts from this model, notifying the listeners
+	 * once.
+	 *
+	 * @return this model
+	 */
+	@Override
+	public IShortcutModel clear() {
+		synchronized (writeLock) {
+			Snapshot current = current();
+			publishContentsChanged(current, new Snapshot(new Shortcut[0], current.version + 1));
+		}
+
+		deliver();
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This method returns the size of the Snapshot of the last event delivered to
+	 * the listeners and should be called on the Event Dispatch Thread.
+	 */
+	@Override
+	public int getSize() {
+		return delivered.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This method reads the Snapshot of the last event delivered to the listeners
+	 * and should be called on the Event Dispatch Thread.
+	 */
+	@Override
+	public Shortcut getElementAt(int index) {
+		return delivered.get(index);
+	}
+
+	@Override
+	public void addListDataListener(ListDataListener l) {
+		listDataListeners.add(l);
+	}
+
+	@Override
+	public void removeListDataListener(ListDataListener l) {
+		listDataListeners.remove(l);
+	}
+
+	@Override
+	public Iterator<Shortcut> iterator() {
+		return snapshot.iterator();
+	}
+
+	private static Shortcut[] checked(Collection<? extends Shortcut> shortcuts) {
+		Objects.requireNonNull(shortcuts, "shortcuts cannot be null");
+
+		Shortcut[] copy = shortcuts.toArray(new Shortcut[0]);
+		for (Shortcut shortcut : copy)
+			Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		return copy;
+	}
+
+	/*
+	 * Returns the Snapshot which writers change: the current one, or the one
+	 * which is being built by a batch. Must be called while holding the lock.
+	 */
+	private Snapshot current() {
+		return batchDepth > 0 ? pending : snapshot;
+	}
+
+	/*
+	 * Installs the next Snapshot and queues its event, or only records it while a
+	 * batch is running. Must be called while holding the lock, so that events are
+	 * queued in the order of the changes.
+	 */
+	private void publish(Snapshot next, int type, int index0, int index1) {
+		if (batchDepth > 0) {
+			pending = next;
+			return;
+		}
+
+		snapshot = next;
+		deliveries.add(new Delivery(next, type, index0, index1));
+	}
+
+	private void publishRemoved(Snapshot current, int index) {
+		int size = current.size();
+		Shortcut[] shortcuts = new Shortcut[size - 1];
+		System.arraycopy(current.shortcuts, 0, shortcuts, 0, index);
+		System.arraycopy(current.shortcuts, index + 1, shortcuts, index, size - index - 1);
+
+		publish(new Snapshot(shortcuts, current.version + 1), ListDataEvent.INTERVAL_REMOVED,
+		        index, index);
+	}
+
+	private void publishReplaced(Snapshot current, int index, Shortcut newShortcut) {
+		Shortcut[] shortcuts = current.shortcuts.clone();
+		shortcuts[index] = newShortcut;
+
+		publish(new Snapshot(shortcuts, current.version + 1), ListDataEvent.CONTENTS_CHANGED,
+		        index, index);
+	}
+
+	// the event covers the rows both before and after the change
+	private void publishContentsChanged(Snapshot previous, Snapshot next) {
+		publish(next, ListDataEvent.CONTENTS_CHANGED, 0,
+		        Math.max(0, Math.max(previous.size(), next.size()) - 1));
+	}
+
+	/*
+	 * Delivers the queued events on the Event Dispatch Thread. Must be called
+	 * after releasing the lock, so that listeners may modify this model.
+	 */
+	private void deliver() {
+		if (SwingUtilities.isEventDispatchThread())
+			drain();
+		else
+			SwingUtilities.invokeLater(this::drain);
+	}
+
+	/*
+	 * A listener which modifies this model only queues its event, which the
+	 * outer call delivers after every listener has received the current one.
+	 */
+	private void drain() {
+		if (draining)
+			return;
+
+		draining = true;
+		try {
+			drainQueued();
+		} finally {
+			draining = false;
+		}
+	}
+
+	private void drainQueued() {
+		Delivery delivery;
+		while ((delivery = deliveries.poll()) != null) {
+			delivered = delivery.snapshot;
+
+			ListDataEvent lde = new ListDataEvent(this, delivery.type, delivery.index0,
+			        delivery.index1);
+			for (ListDataListener ldl : listDataListeners) {
+				switch (delivery.type) {
+				case ListDataEvent.INTERVAL_ADDED:
+					ldl.intervalAdded(lde);
+					break;
+				case ListDataEvent.INTERVAL_REMOVED:
+					ldl.intervalRemoved(lde);
+					break;
+				default:
+					ldl.contentsChanged(lde);
+					break;
+				}
+			}
+		}
+	}
+
+	private static final class Delivery {
+
+		final Snapshot snapshot;
+		final int type, index0, index1;
+
+		Delivery(Snapshot snapshot, int type, int index0, int index1) {
+			this.snapshot = snapshot;
+			this.type = type;
+			this.index0 = index0;
+			this.index1 = index1;
+		}
+	}
+
+	/**
+	 * An immutable List with the Shortcuts of a {@link ConcurrentShortcutModel}
+	 * at some point in time, along with its version. Every change to the model
+	 * creates a Snapshot with a greater version.
+	 *
+	 * @author Alex Mandelias
+	 */
+	public static final class Snapshot extends AbstractList<Shortcut> implements RandomAccess {
+
+		static final Snapshot EMPTY = new Snapshot(new Shortcut[0], 0);
+
+		private final Shortcut[] shortcuts;
+		private final long version;
+
+		private Snapshot(Shortcut[] shortcuts, long version) {
+			this.shortcuts = shortcuts;
+			this.version = version;
+		}
+
+		/**
+		 * Returns the version of this Snapshot.
+		 *
+		 * @return the version
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		@Override
+		public Shortcut get(int index) {
+			Objects.checkIndex(index, shortcuts.length);
+			return shortcuts[index];
+		}
+
+		@Override
+		public int size() {
+			return shortcuts.length;
+		}
+	}
+}
@@ -3,9 +3,17 @@ package alexman.shortcuts.shortcut.model;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
+import alexman.shortcuts.shortcut.BinaryShortcutCodec;
 import alexman.shortcuts.shortcut.IShortcutFormatter;
 
 /**
@@ -35,6 +43,42 @@ public interface IShortcutModel {
 		return load(reader, sf);
 	}
 
+	/**
+	 * Same as {@link #load(Path, IShortcutFormatter)} but using the model's current
+	 * Formatter as the second argument.
+	 *
+	 * @param path the path of the file
+	 *
+	 * @return this model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws NullPointerException if the provided Formatter is {@code null}
+	 */
+	default IShortcutModel load(Path path) throws IOException {
+		IShortcutFormatter sf = Objects.requireNonNull(getFormatter(),
+		        "No ShortcutFormatter found, use setFormatter() before calling this method");
+
+		return load(path, sf);
+	}
+
+	/**
+	 * Same as {@link #loadParallel(Path, IShortcutFormatter)} but using the
+	 * model's current Formatter as the second argument.
+	 *
+	 * @param path the path of the file
+	 *
+	 * @return this model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws NullPointerException if the provided Formatter is {@code null}
+	 */
+	default IShortcutModel loadParallel(Path path) throws IOException {
+		IShortcutFormatter sf = Objects.requireNonNull(getFormatter(),
+		        "No ShortcutFormatter found, use setFormatter() before calling this method");
+
+		return loadParallel(path, sf);
+	}
+
 	/**
 	 * Same as {@link #store(Writer, IShortcutFormatter)} but using the model's
 	 * current Formatter as the second argument.
@@ -64,9 +108,54 @@ public interface IShortcutModel {
 	 *
 	 * @throws IOException if an IO Exception occurs while reading from the reader
 	 * @throws NullPointerException if the provided Formatter is {@code null}
+	 * @throws ShortcutParseException if a line cannot be parsed
 	 */
 	IShortcutModel load(Reader reader, IShortcutFormatter sf) throws IOException;
 
+	/**
+	 * Clears this model and loads Shortcuts from the given file, decoded with the
+	 * platform's default Charset, using the given Formatter. Implementations may
+	 * also detect files written by {@link #storeBinary(Path)}. The default
+	 * implementation opens a buffered Reader and calls
+	 * {@link #load(Reader, IShortcutFormatter)}.
+	 *
+	 * @param path the path of the file
+	 * @param sf the Formatter used to parse the contents of the file
+	 *
+	 * @return this model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws NullPointerException if the provided Formatter is {@code null}
+	 * @throws ShortcutParseException if a line cannot be parsed
+	 */
+	default IShortcutModel load(Path path, IShortcutFormatter sf) throws IOException {
+		try (Reader reader = Files.newBufferedReader(path, Charset.defaultCharset())) {
+			return load(reader, sf);
+		}
+	}
+
+	/**
+	 * Same as {@link #load(Path, IShortcutFormatter)}, but the lines of the file
+	 * may be parsed in parallel, in which case the Formatter must be thread-safe.
+	 * The Shortcuts are added to the model in file order and listeners are
+	 * notified once, after all of them have been added. The default
+	 * implementation loads the file sequentially.
+	 *
+	 * @param path the path of the file
+	 * @param sf the Formatter used to parse the contents of the file
+	 *
+	 * @return this model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws NullPointerException if the provided Formatter is {@code null}
+	 * @throws ShortcutParseException if a line cannot be parsed. If many lines
+	 *         cannot be parsed, the first one is thrown and the rest are added as
+	 *         suppressed exceptions
+	 */
+	default IShortcutModel loadParallel(Path path, IShortcutFormatter sf) throws IOException {
+		return load(path, sf);
+	}
+
 	/**
 	 * Writes the Shortcuts of this model to the given writer using the given
 	 * Formatter.
@@ -81,6 +170,22 @@ public interface IShortcutModel {
 	 */
 	IShortcutModel store(Writer writer, IShortcutFormatter sf) throws IOException;
 
+	/**
+	 * Writes the Shortcuts of this model to the given file in the binary layout of
+	 * the {@link BinaryShortcutCodec}. Models detect such files when loading, so
+	 * they can be loaded without parsing any text.
+	 *
+	 * @param path the path of the file
+	 *
+	 * @return this model
+	 *
+	 * @throws IOException if an IO Exception occurs while writing to the file
+	 */
+	default IShortcutModel storeBinary(Path path) throws IOException {
+		BinaryShortcutCodec.write(getShortcuts(), path);
+		return this;
+	}
+
 	/**
 	 * Returns this model's current Formatter which is used when calling the
 	 * {@link #load(Reader)} and {@link #store(Writer)} methods.
@@ -112,6 +217,30 @@ public interface IShortcutModel {
 	 */
 	IShortcutModel addShortcut(Shortcut shortcut);
 
+	/**
+	 * Inserts a new Shortcut at an index of this model, moving the Shortcuts at
+	 * and after that index one row down. The default implementation replaces
+	 * every Shortcut with {@link #replaceAll(Collection)}; implementations should
+	 * insert only that Shortcut and notify their listeners that only its index has
+	 * been added.
+	 *
+	 * @param index the index of the new Shortcut
+	 * @param shortcut the Shortcut to insert
+	 *
+	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 *         ({@code index < 0 || index > size})
+	 */
+	default IShortcutModel insertShortcut(int index, Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		List<Shortcut> copy = new ArrayList<>(getShortcuts());
+		copy.add(index, shortcut);
+		return replaceAll(copy);
+	}
+
 	/**
 	 * Removes an existing Shortcut from this model.
 	 *
@@ -124,6 +253,75 @@ public interface IShortcutModel {
 	 */
 	IShortcutModel removeShortcut(Shortcut shortcut);
 
+	/**
+	 * Removes the Shortcut at an index of this model, moving the Shortcuts after
+	 * that index one row up. The default implementation replaces every Shortcut
+	 * with {@link #replaceAll(Collection)}; implementations should remove only
+	 * that Shortcut and notify their listeners that only its index has been
+	 * removed.
+	 *
+	 * @param index the index of the Shortcut to remove
+	 *
+	 * @return this model
+	 *
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	default IShortcutModel removeShortcut(int index) {
+		List<Shortcut> copy = new ArrayList<>(getShortcuts());
+		copy.remove(index);
+		return replaceAll(copy);
+	}
+
+	/**
+	 * Replaces the first occurrence of a Shortcut in this model with another one,
+	 * at the same index. The default implementation replaces every Shortcut with
+	 * {@link #replaceAll(Collection)}; implementations should replace only that
+	 * Shortcut and notify their listeners that only its index has changed.
+	 *
+	 * @param oldShortcut the Shortcut to replace
+	 * @param newShortcut the Shortcut which replaces it
+	 *
+	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code oldShortcut == null} or
+	 *         {@code newShortcut == null}
+	 * @throws IllegalArgumentException if {@code oldShortcut} doesn't exist in this
+	 *         model
+	 */
+	default IShortcutModel replaceShortcut(Shortcut oldShortcut, Shortcut newShortcut) {
+		Objects.requireNonNull(oldShortcut, "old shortcut cannot be null");
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+
+		int index = indexOf(oldShortcut);
+		if (index == -1)
+			throw new IllegalArgumentException(
+			        String.format("Shortcut %s not found in model", oldShortcut));
+
+		return replaceShortcut(index, newShortcut);
+	}
+
+	/**
+	 * Replaces the Shortcut at an index of this model with another one. The
+	 * default implementation replaces every Shortcut with
+	 * {@link #replaceAll(Collection)}; implementations should replace only that
+	 * Shortcut and notify their listeners that only its index has changed.
+	 *
+	 * @param index the index of the Shortcut to replace
+	 * @param newShortcut the Shortcut which replaces it
+	 *
+	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code newShortcut == null}
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	default IShortcutModel replaceShortcut(int index, Shortcut newShortcut) {
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+
+		List<Shortcut> copy = new ArrayList<>(getShortcuts());
+		copy.set(index, newShortcut);
+		return replaceAll(copy);
+	}
+
 	/**
 	 * Returns an unmodifiable List with this model's Shortcuts.
 	 *
@@ -132,14 +330,151 @@ public interface IShortcutModel {
 	List<Shortcut> getShortcuts();
 
 	/**
-	 * Removes all existing Shortcuts from this model.
+	 * Returns the index of the first occurrence of the given Shortcut in this
+	 * model. The default implementation scans every Shortcut.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return the index of the Shortcut, or {@code -1} if this model doesn't
+	 *         contain it
+	 */
+	default int indexOf(Shortcut shortcut) {
+		return getShortcuts().indexOf(shortcut);
+	}
+
+	/**
+	 * Returns the Shortcuts of this model with the given action, in the order in
+	 * which they appear in the model. The default implementation scans every
+	 * Shortcut; implementations should maintain an index instead.
+	 *
+	 * @param action the action, which may be {@code null}
+	 *
+	 * @return an unmodifiable List with the Shortcuts, which is empty if there
+	 *         are none
+	 */
+	default List<Shortcut> getShortcutsByAction(String action) {
+		List<Shortcut> found = new ArrayList<>();
+		for (Shortcut shortcut : getShortcuts()) {
+			if (Objects.equals(action, shortcut.getAction()))
+				found.add(shortcut);
+		}
+		return Collections.unmodifiableList(found);
+	}
+
+	/**
+	 * Returns the Shortcuts of this model which are bound to the given key
+	 * sequence, in the order in which they appear in the model. Key sequences are
+	 * compared by their {@link KeySequence#canonical() canonical form}, so the
+	 * order in which the keys of a chord are written doesn't matter. The default
+	 * implementation scans every Shortcut; implementations should maintain an
+	 * index instead.
+	 *
+	 * @param keySequence the key sequence
+	 *
+	 * @return an unmodifiable List with the Shortcuts, which is empty if there
+	 *         are none
+	 *
+	 * @throws NullPointerException if {@code keySequence == null}
+	 */
+	default List<Shortcut> getShortcutsByKeySequence(KeySequence keySequence) {
+		KeySequence canonical = keySequence.canonical();
+		List<Shortcut> found = new ArrayList<>();
+		for (Shortcut shortcut : getShortcuts()) {
+			if (canonical.equals(shortcut.getKeySequence().canonical()))
+				found.add(shortcut);
+		}
+		return Collections.unmodifiableList(found);
+	}
+
+	/**
+	 * Adds many Shortcuts to the end of this model, in the order of the
+	 * Collection. The default implementation adds them one at a time;
+	 * implementations should add them in one step and notify their listeners
+	 * once.
+	 *
+	 * @param shortcuts the Shortcuts to add
+	 *
+	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code shortcuts == null} or if any of the
+	 *         Shortcuts is {@code null}
+	 */
+	default IShortcutModel addAll(Collection<? extends Shortcut> shortcuts) {
+		for (Shortcut shortcut : new ArrayList<>(shortcuts))
+			addShortcut(shortcut);
+
+		return this;
+	}
+
+	/**
+	 * Removes many Shortcuts from this model. Each element of the Collection
+	 * removes one occurrence of the Shortcut, as {@link #removeShortcut(Shortcut)}
+	 * would. The default implementation removes them one at a time;
+	 * implementations should remove them in one step, check that all of them
+	 * exist before removing any, and notify their listeners once.
+	 *
+	 * @param shortcuts the Shortcuts to remove
 	 *
 	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code shortcuts == null} or if any of the
+	 *         Shortcuts is {@code null}
+	 *         IllegalArgumentException if any of the Shortcuts doesn't exist in
+	 *         this model
 	 */
-	default IShortcutModel clear() {
-		for (Shortcut shortcut : getShortcuts())
+	default IShortcutModel removeAll(Collection<? extends Shortcut> shortcuts) {
+		for (Shortcut shortcut : new ArrayList<>(shortcuts))
 			removeShortcut(shortcut);
 
 		return this;
 	}
+
+	/**
+	 * Replaces all Shortcuts of this model with the given ones, in the order of
+	 * the Collection. The default implementation clears this model and then adds
+	 * the Shortcuts; implementations should replace them in one step and notify
+	 * their listeners once.
+	 *
+	 * @param shortcuts the new Shortcuts
+	 *
+	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code shortcuts == null} or if any of the
+	 *         Shortcuts is {@code null}
+	 */
+	default IShortcutModel replaceAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> copy = new ArrayList<>(shortcuts);
+		clear();
+		return addAll(copy);
+	}
+
+	/**
+	 * Applies many changes to this model as a single one. The action is given
+	 * this model and may call any of its methods. The default implementation
+	 * simply runs the action; implementations should notify their listeners once,
+	 * after the action has finished, even if it throws. Batches may be nested, in
+	 * which case only the outermost one notifies the listeners.
+	 *
+	 * @param action the action which changes this model
+	 *
+	 * @return this model
+	 *
+	 * @throws NullPointerException if {@code action == null}
+	 */
+	default IShortcutModel batch(Consumer<? super IShortcutModel> action) {
+		Objects.requireNonNull(action, "action cannot be null");
+
+		action.accept(this);
+		return this;
+	}
+
+	/**
+	 * Removes all existing Shortcuts from this model. The default implementation
+	 * removes them with {@link #removeAll(Collection)}.
+	 *
+	 * @return this model
+	 */
+	default IShortcutModel clear() {
+		return removeAll(getShortcuts());
+	}
 }
@@ -0,0 +1,191 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A two-way, read-only table between the names of the Virtual Key Codes and
+ * their values, neither direction of which requires boxing or allocating.
+ * <p>
+ * Key codes to names are stored in a dense array indexed by key code, with a
+ * sorted sparse array for the few key codes that are too large. Names to key
+ * codes are stored in a compact char-trie which can match a region of any
+ * {@code CharSequence}.
+ *
+ * @author Alex Mandelias
+ */
+final class KeyNames {
+
+	/** The value returned by {@link #codeOf} when a name is not a valid key name */
+	static final int NO_KEY_CODE = Integer.MIN_VALUE;
+
+	/** Key codes less than this are stored in the dense array */
+	private static final int DENSE_LIMIT = 0x400;
+
+	private final String[] denseNames;
+	private final int[] sparseCodes;
+	private final String[] sparseNames;
+
+	/*
+	 * The trie is flattened in breadth-first order so that the children of each
+	 * node occupy a contiguous range, sorted by label. Node 0 is the root.
+	 */
+	private final char[] labels;
+	private final int[] firstChild;
+	private final int[] childCount;
+	private final int[] nodeKeyCode;
+
+	/**
+	 * Constructs the table from the names and key codes of the Virtual Key Codes.
+	 * If many names have the same key code, the last one is the name of that key
+	 * code.
+	 *
+	 * @param names the names, without the "VK_" prefix
+	 * @param codes the key codes, {@code codes[i]} being the key code of
+	 *        {@code names[i]}
+	 */
+	KeyNames(String[] names, int[] codes) {
+		if (names.length != codes.length)
+			throw new IllegalArgumentException("names and codes must have the same length");
+
+		// --- key code to name ---
+		denseNames = new String[DENSE_LIMIT];
+		Map<Integer, String> sparse = new TreeMap<>();
+		for (int i = 0; i < names.length; i++) {
+			int code = codes[i];
+			if ((code >= 0) && (code < DENSE_LIMIT))
+				denseNames[code] = names[i];
+			else
+				sparse.put(code, names[i]);
+		}
+
+		sparseCodes = new int[sparse.size()];
+		sparseNames = new String[sparse.size()];
+		int next = 0;
+		for (Map.Entry<Integer, String> e : sparse.entrySet()) {
+			sparseCodes[next] = e.getKey();
+			sparseNames[next] = e.getValue();
+			next++;
+		}
+
+		// --- name to key code ---
+		Node root = new Node();
+		int nodeCount = 1;
+		for (int i = 0; i < names.length; i++) {
+			Node node = root;
+			for (char c : names[i].toCharArray()) {
+				Node child = node.children.get(c);
+				if (child == null) {
+					child = new Node();
+					node.children.put(c, child);
+					nodeCount++;
+				}
+				node = child;
+			}
+			node.keyCode = codes[i];
+		}
+
+		labels = new char[nodeCount];
+		firstChild = new int[nodeCount];
+		childCount = new int[nodeCount];
+		nodeKeyCode = new int[nodeCount];
+
+		Deque<Node> queue = new ArrayDeque<>();
+		queue.add(root);
+		int current = 0, nextFree = 1;
+		while (!queue.isEmpty()) {
+			Node node = queue.remove();
+			nodeKeyCode[current] = node.keyCode;
+			firstChild[current] = nextFree;
+			childCount[current] = node.children.size();
+			for (Map.Entry<Character, Node> e : node.children.entrySet()) {
+				labels[nextFree++] = e.getKey();
+				queue.add(e.getValue());
+			}
+			current++;
+		}
+	}
+
+	/**
+	 * Returns the key code whose name is the region {@code [start, end)} of the
+	 * given CharSequence.
+	 *
+	 * @param cs the CharSequence
+	 * @param start the index of the first character of the name
+	 * @param end the index after the last character of the name
+	 *
+	 * @return the key code, or {@link #NO_KEY_CODE} if there is no such key code
+	 */
+	int codeOf(CharSequence cs, int start, int end) {
+		int node = 0;
+		for (int i = start; i < end; i++) {
+			node = child(node, cs.charAt(i));
+			if (node == -1)
+				return NO_KEY_CODE;
+		}
+
+		return nodeKeyCode[node];
+	}
+
+	/**
+	 * Returns the name of the given key code.
+	 *
+	 * @param keyCode the key code
+	 *
+	 * @return the name, or {@code null} if there is no such key code
+	 */
+	String nameOf(int keyCode) {
+		if ((keyCode >= 0) && (keyCode < DENSE_LIMIT))
+			return denseNames[keyCode];
+
+		int index = Arrays.binarySearch(sparseCodes, keyCode);
+		return index < 0 ? null : sparseNames[index];
+	}
+
+	/**
+	 * Returns every distinct key code of this table, in ascending order.
+	 *
+	 * @return a new array with the key codes
+	 */
+	int[] codes() {
+		int count = sparseCodes.length;
+		for (String name : denseNames) {
+			if (name != null)
+				count++;
+		}
+
+		int[] codes = new int[count];
+		int next = 0;
+		for (int code = 0; code < DENSE_LIMIT; code++) {
+			if (denseNames[code] != null)
+				codes[next++] = code;
+		}
+		System.arraycopy(sparseCodes, 0, codes, next, sparseCodes.length);
+
+		Arrays.sort(codes);
+		return codes;
+	}
+
+	private int child(int node, char c) {
+		int low = firstChild[node], high = low + childCount[node] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = labels[mid];
+			if (label < c)
+				low = mid + 1;
+			else if (label > c)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	private static final class Node {
+		final Map<Character, Node> children = new TreeMap<>();
+		int keyCode = NO_KEY_CODE;
+	}
+}
@@ -0,0 +1,424 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable sequence of key combinations (chords), each of which consists of
+ * key codes that are to be pressed at the same time. Pressing them at the same
+ * time means pressing them in order and then releasing them in reverse order.
+ * <p>
+ * The key codes are stored in a single packed {@code int} array, which is
+ * validated once on construction. For more information about the key codes,
+ * refer to the {@link Shortcut.Parser#parse(String)} method.
+ *
+ * @author Alex Mandelias
+ */
+public final class KeySequence {
+
+	/*
+	 * packed[0]                    : the number of chords, c
+	 * packed[1 .. c]               : the end (exclusive) of each chord, relative to the first key code
+	 * packed[c + 1 .. length - 1]  : the key codes of all the chords, one after the other
+	 */
+	private final int[] packed;
+
+	/*
+	 * The Virtual Key Codes of the modifier keys, in the order in which they
+	 * appear in canonical chords: VK_SHIFT, VK_CONTROL, VK_ALT, VK_ALT_GRAPH,
+	 * VK_META and VK_WINDOWS. They are repeated here so that KeyEvent isn't loaded.
+	 */
+	private static final int[] MODIFIERS = { 16, 17, 18, 0xFF7E, 157, 524 };
+
+	private int hash;
+	private boolean hashIsZero;
+	private List<List<Integer>> listView;
+	private KeySequence canonical;
+
+	private KeySequence(int[] packed) {
+		this.packed = packed;
+	}
+
+	/**
+	 * Creates a Key Sequence from a List of combinations of key codes.
+	 *
+	 * @param keySequence the key codes, e.g.
+	 *        {@code List.of(List.of(18, 16, 88), List.of(74))}
+	 *
+	 * @return the Key Sequence
+	 *
+	 * @throws IllegalArgumentException if any of the key codes are invalid. For
+	 *         more information, refer to the
+	 *         {@link Shortcut.Parser#isInvalid(int)} method.
+	 */
+	public static KeySequence of(List<List<Integer>> keySequence) {
+		Builder builder = new Builder();
+		for (List<Integer> chord : keySequence) {
+			for (Integer keyCode : chord)
+				builder.key(keyCode);
+			builder.endChord();
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Creates a Key Sequence from an array of combinations of key codes.
+	 *
+	 * @param chords the key codes, e.g. {@code new int[][] { { 18, 16, 88 }, { 74 } }}
+	 *
+	 * @return the Key Sequence
+	 *
+	 * @throws IllegalArgumentException if any of the key codes are invalid. For
+	 *         more information, refer to the
+	 *         {@link Shortcut.Parser#isInvalid(int)} method.
+	 */
+	public static KeySequence of(int[]... chords) {
+		Builder builder = new Builder();
+		for (int[] chord : chords) {
+			for (int keyCode : chord)
+				builder.key(keyCode);
+			builder.endChord();
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the number of combinations of keys in this Key Sequence.
+	 *
+	 * @return the number of chords
+	 */
+	public int chordCount() {
+		return packed[0];
+	}
+
+	/**
+	 * Returns the number of key codes of a combination of keys.
+	 *
+	 * @param chord the index of the chord
+	 *
+	 * @return the number of key codes in that chord
+	 *
+	 * @throws IndexOutOfBoundsException if the chord doesn't exist
+	 */
+	public int chordLength(int chord) {
+		return chordEnd(chord) - chordStart(chord);
+	}
+
+	/**
+	 * Returns a key code of a combination of keys.
+	 *
+	 * @param chord the index of the chord
+	 * @param index the index of the key code within the chord
+	 *
+	 * @return the key code
+	 *
+	 * @throws IndexOutOfBoundsException if the chord or the key code don't exist
+	 */
+	public int keyCode(int chord, int index) {
+		int start = chordStart(chord);
+		if ((index < 0) || (index >= chordEnd(chord) - start))
+			throw new IndexOutOfBoundsException(index);
+
+		return packed[keysOffset() + start + index];
+	}
+
+	/**
+	 * Returns the total number of key codes in this Key Sequence.
+	 *
+	 * @return the number of key codes
+	 */
+	public int keyCount() {
+		return packed.length - keysOffset();
+	}
+
+	/**
+	 * Returns whether a key code is the code of a modifier key, that is one of
+	 * {@code SHIFT}, {@code CONTROL}, {@code ALT}, {@code ALT_GRAPH}, {@code META}
+	 * and {@code WINDOWS}.
+	 *
+	 * @param keyCode the key code
+	 *
+	 * @return {@code true} if the key code is a modifier, {@code false} otherwise
+	 */
+	public static boolean isModifier(int keyCode) {
+		return modifierRank(keyCode) < MODIFIERS.length;
+	}
+
+	/**
+	 * Returns the key codes of the modifier keys, in the order in which they
+	 * appear in canonical chords.
+	 *
+	 * @return a new array with the key codes
+	 *
+	 * @see #canonical()
+	 */
+	public static int[] getModifiers() {
+		return MODIFIERS.clone();
+	}
+
+	/**
+	 * Returns the canonical form of this Key Sequence, in which the key codes of
+	 * every combination of keys are sorted: first the modifiers, in the order
+	 * {@code SHIFT}, {@code CONTROL}, {@code ALT}, {@code ALT_GRAPH}, {@code META}
+	 * and {@code WINDOWS}, and then the rest of the keys by their code. Key
+	 * Sequences which differ only in the order the keys of their chords are
+	 * written have the same canonical form. It is computed once and then cached.
+	 *
+	 * @return the canonical Key Sequence, which may be this Key Sequence
+	 */
+	public KeySequence canonical() {
+		KeySequence c = canonical;
+		if (c == null) {
+			c = computeCanonical();
+			canonical = c;
+		}
+		return c;
+	}
+
+	private KeySequence computeCanonical() {
+		int[] sorted = null;
+		int offset = keysOffset();
+		for (int chord = 0, chordCount = chordCount(); chord < chordCount; chord++) {
+			int start = offset + chordStart(chord), end = offset + chordEnd(chord);
+			if (isCanonical(packed, start, end))
+				continue;
+
+			if (sorted == null)
+				sorted = packed.clone();
+
+			// insertion sort, since chords are only a few keys long
+			for (int i = start + 1; i < end; i++) {
+				int key = sorted[i];
+				int j = i - 1;
+				while ((j >= start) && (compareKeys(sorted[j], key) > 0)) {
+					sorted[j + 1] = sorted[j];
+					j--;
+				}
+				sorted[j + 1] = key;
+			}
+		}
+
+		if (sorted == null)
+			return this;
+
+		KeySequence c = new KeySequence(sorted);
+		c.canonical = c;
+		return c;
+	}
+
+	private static boolean isCanonical(int[] keys, int start, int end) {
+		for (int i = start + 1; i < end; i++) {
+			if (compareKeys(keys[i - 1], keys[i]) > 0)
+				return false;
+		}
+		return true;
+	}
+
+	private static int compareKeys(int keyCode1, int keyCode2) {
+		int rank1 = modifierRank(keyCode1), rank2 = modifierRank(keyCode2);
+		if (rank1 != rank2)
+			return Integer.compare(rank1, rank2);
+		return Integer.compare(keyCode1, keyCode2);
+	}
+
+	// the index of the modifier in MODIFIERS or MODIFIERS.length for other keys
+	private static int modifierRank(int keyCode) {
+		for (int i = 0; i < MODIFIERS.length; i++) {
+			if (MODIFIERS[i] == keyCode)
+				return i;
+		}
+		return MODIFIERS.length;
+	}
+
+	/**
+	 * Returns a lazily created, unmodifiable List view of this Key Sequence, each
+	 * item of which contains the key codes of a combination of keys.
+	 *
+	 * @return the List view
+	 */
+	public List<List<Integer>> asList() {
+		if (listView == null)
+			listView = new ListView();
+		return listView;
+	}
+
+	@Override
+	public String toString() {
+		return asList().toString();
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if ((h == 0) && !hashIsZero) {
+			h = Arrays.hashCode(packed);
+			if (h == 0)
+				hashIsZero = true;
+			else
+				hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof KeySequence))
+			return false;
+		KeySequence other = (KeySequence) obj;
+		return (hashCode() == other.hashCode()) && Arrays.equals(packed, other.packed);
+	}
+
+	/*
+	 * Returns the packed representation of this Key Sequence, for models which
+	 * store Key Sequences themselves. It must not be modified.
+	 */
+	int[] packed() {
+		return packed;
+	}
+
+	/*
+	 * Creates a Key Sequence from a packed representation returned by packed(),
+	 * without copying or validating it.
+	 */
+	static KeySequence ofPacked(int[] packed) {
+		return new KeySequence(packed);
+	}
+
+	private int keysOffset() {
+		return packed[0] + 1;
+	}
+
+	private int chordStart(int chord) {
+		Objects.checkIndex(chord, packed[0]);
+		return chord == 0 ? 0 : packed[chord];
+	}
+
+	private int chordEnd(int chord) {
+		Objects.checkIndex(chord, packed[0]);
+		return packed[chord + 1];
+	}
+
+	private class ListView extends AbstractList<List<Integer>> {
+
+		@Override
+		public List<Integer> get(int chord) {
+			Objects.checkIndex(chord, chordCount());
+			return new ChordView(chord);
+		}
+
+		@Override
+		public int size() {
+			return chordCount();
+		}
+	}
+
+	private class ChordView extends AbstractList<Integer> {
+
+		private final int chord;
+
+		ChordView(int chord) {
+			this.chord = chord;
+		}
+
+		@Override
+		public Integer get(int index) {
+			return keyCode(chord, index);
+		}
+
+		@Override
+		public int size() {
+			return chordLength(chord);
+		}
+	}
+
+	/**
+	 * Incrementally builds a Key Sequence one key code at a time. The key codes
+	 * are validated once, when the Key Sequence is built.
+	 *
+	 * @author Alex Mandelias
+	 */
+	public static final class Builder {
+
+		private int[] keys = new int[8];
+		private int keyCount = 0;
+		private int[] ends = new int[4];
+		private int chordCount = 0;
+
+		/** Constructs an empty Builder */
+		public Builder() {}
+
+		/**
+		 * Appends a key code to the current combination of keys.
+		 *
+		 * @param keyCode the key code
+		 *
+		 * @return this Builder
+		 */
+		public Builder key(int keyCode) {
+			if (keyCount == keys.length)
+				keys = Arrays.copyOf(keys, keys.length * 2);
+
+			keys[keyCount++] = keyCode;
+			return this;
+		}
+
+		/**
+		 * Ends the current combination of keys. Subsequent key codes are added to a
+		 * new combination.
+		 *
+		 * @return this Builder
+		 */
+		public Builder endChord() {
+			if (chordCount == ends.length)
+				ends = Arrays.copyOf(ends, ends.length * 2);
+
+			ends[chordCount++] = keyCount;
+			return this;
+		}
+
+		/**
+		 * Builds the Key Sequence.
+		 *
+		 * @return the Key Sequence
+		 *
+		 * @throws IllegalArgumentException if any of the key codes are invalid. For
+		 *         more information, refer to the
+		 *         {@link Shortcut.Parser#isInvalid(int)} method.
+		 */
+		public KeySequence build() {
+			List<Integer> invalidKeyCodes = null;
+			for (int i = 0; i < keyCount; i++) {
+				if (Shortcut.Parser.isInvalid(keys[i])) {
+					if (invalidKeyCodes == null)
+						invalidKeyCodes = new ArrayList<>();
+					invalidKeyCodes.add(keys[i]);
+				}
+			}
+
+			if (invalidKeyCodes != null) {
+				throw new IllegalArgumentException(
+				        "The following key codes do not correspond to a Virtual Key Code of the KeyEvent class: "
+				                + invalidKeyCodes);
+			}
+
+			return buildValidated();
+		}
+
+		/*
+		 * Builds the Key Sequence without validating the key codes, for when they are
+		 * known to be valid.
+		 */
+		KeySequence buildValidated() {
+			int[] packed = new int[1 + chordCount + keyCount];
+			packed[0] = chordCount;
+			System.arraycopy(ends, 0, packed, 1, chordCount);
+			System.arraycopy(keys, 0, packed, 1 + chordCount, keyCount);
+			return new KeySequence(packed);
+		}
+	}
+}
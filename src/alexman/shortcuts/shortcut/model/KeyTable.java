@@ -0,0 +1,401 @@
+package alexman.shortcuts.shortcut.model;
+
+/**
+ * The names and values of the Virtual Key Codes of the KeyEvent class, in the
+ * order in which they are declared. Generated by {@link KeyTableGenerator}, do
+ * not edit.
+ *
+ * @author Alex Mandelias
+ */
+final class KeyTable {
+
+	private KeyTable() {
+		// don't allow instantiation
+	}
+
+	/** The names of the Virtual Key Codes, without the "VK_" prefix */
+	static final String[] NAMES = {
+	        "ENTER",
+	        "BACK_SPACE",
+	        "TAB",
+	        "CANCEL",
+	        "CLEAR",
+	        "SHIFT",
+	        "CONTROL",
+	        "ALT",
+	        "PAUSE",
+	        "CAPS_LOCK",
+	        "ESCAPE",
+	        "SPACE",
+	        "PAGE_UP",
+	        "PAGE_DOWN",
+	        "END",
+	        "HOME",
+	        "LEFT",
+	        "UP",
+	        "RIGHT",
+	        "DOWN",
+	        "COMMA",
+	        "MINUS",
+	        "PERIOD",
+	        "SLASH",
+	        "0",
+	        "1",
+	        "2",
+	        "3",
+	        "4",
+	        "5",
+	        "6",
+	        "7",
+	        "8",
+	        "9",
+	        "SEMICOLON",
+	        "EQUALS",
+	        "A",
+	        "B",
+	        "C",
+	        "D",
+	        "E",
+	        "F",
+	        "G",
+	        "H",
+	        "I",
+	        "J",
+	        "K",
+	        "L",
+	        "M",
+	        "N",
+	        "O",
+	        "P",
+	        "Q",
+	        "R",
+	        "S",
+	        "T",
+	        "U",
+	        "V",
+	        "W",
+	        "X",
+	        "Y",
+	        "Z",
+	        "OPEN_BRACKET",
+	        "BACK_SLASH",
+	        "CLOSE_BRACKET",
+	        "NUMPAD0",
+	        "NUMPAD1",
+	        "NUMPAD2",
+	        "NUMPAD3",
+	        "NUMPAD4",
+	        "NUMPAD5",
+	        "NUMPAD6",
+	        "NUMPAD7",
+	        "NUMPAD8",
+	        "NUMPAD9",
+	        "MULTIPLY",
+	        "ADD",
+	        "SEPARATER",
+	        "SEPARATOR",
+	        "SUBTRACT",
+	        "DECIMAL",
+	        "DIVIDE",
+	        "DELETE",
+	        "NUM_LOCK",
+	        "SCROLL_LOCK",
+	        "F1",
+	        "F2",
+	        "F3",
+	        "F4",
+	        "F5",
+	        "F6",
+	        "F7",
+	        "F8",
+	        "F9",
+	        "F10",
+	        "F11",
+	        "F12",
+	        "F13",
+	        "F14",
+	        "F15",
+	        "F16",
+	        "F17",
+	        "F18",
+	        "F19",
+	        "F20",
+	        "F21",
+	        "F22",
+	        "F23",
+	        "F24",
+	        "PRINTSCREEN",
+	        "INSERT",
+	        "HELP",
+	        "META",
+	        "BACK_QUOTE",
+	        "QUOTE",
+	        "KP_UP",
+	        "KP_DOWN",
+	        "KP_LEFT",
+	        "KP_RIGHT",
+	        "DEAD_GRAVE",
+	        "DEAD_ACUTE",
+	        "DEAD_CIRCUMFLEX",
+	        "DEAD_TILDE",
+	        "DEAD_MACRON",
+	        "DEAD_BREVE",
+	        "DEAD_ABOVEDOT",
+	        "DEAD_DIAERESIS",
+	        "DEAD_ABOVERING",
+	        "DEAD_DOUBLEACUTE",
+	        "DEAD_CARON",
+	        "DEAD_CEDILLA",
+	        "DEAD_OGONEK",
+	        "DEAD_IOTA",
+	        "DEAD_VOICED_SOUND",
+	        "DEAD_SEMIVOICED_SOUND",
+	        "AMPERSAND",
+	        "ASTERISK",
+	        "QUOTEDBL",
+	        "LESS",
+	        "GREATER",
+	        "BRACELEFT",
+	        "BRACERIGHT",
+	        "AT",
+	        "COLON",
+	        "CIRCUMFLEX",
+	        "DOLLAR",
+	        "EURO_SIGN",
+	        "EXCLAMATION_MARK",
+	        "INVERTED_EXCLAMATION_MARK",
+	        "LEFT_PARENTHESIS",
+	        "NUMBER_SIGN",
+	        "PLUS",
+	        "RIGHT_PARENTHESIS",
+	        "UNDERSCORE",
+	        "WINDOWS",
+	        "CONTEXT_MENU",
+	        "FINAL",
+	        "CONVERT",
+	        "NONCONVERT",
+	        "ACCEPT",
+	        "MODECHANGE",
+	        "KANA",
+	        "KANJI",
+	        "ALPHANUMERIC",
+	        "KATAKANA",
+	        "HIRAGANA",
+	        "FULL_WIDTH",
+	        "HALF_WIDTH",
+	        "ROMAN_CHARACTERS",
+	        "ALL_CANDIDATES",
+	        "PREVIOUS_CANDIDATE",
+	        "CODE_INPUT",
+	        "JAPANESE_KATAKANA",
+	        "JAPANESE_HIRAGANA",
+	        "JAPANESE_ROMAN",
+	        "KANA_LOCK",
+	        "INPUT_METHOD_ON_OFF",
+	        "CUT",
+	        "COPY",
+	        "PASTE",
+	        "UNDO",
+	        "AGAIN",
+	        "FIND",
+	        "PROPS",
+	        "STOP",
+	        "COMPOSE",
+	        "ALT_GRAPH",
+	        "BEGIN",
+	        "UNDEFINED",
+	};
+
+	/** The values of the Virtual Key Codes, {@code CODES[i]} being that of {@code NAMES[i]} */
+	static final int[] CODES = {
+	        0x000A, // ENTER
+	        0x0008, // BACK_SPACE
+	        0x0009, // TAB
+	        0x0003, // CANCEL
+	        0x000C, // CLEAR
+	        0x0010, // SHIFT
+	        0x0011, // CONTROL
+	        0x0012, // ALT
+	        0x0013, // PAUSE
+	        0x0014, // CAPS_LOCK
+	        0x001B, // ESCAPE
+	        0x0020, // SPACE
+	        0x0021, // PAGE_UP
+	        0x0022, // PAGE_DOWN
+	        0x0023, // END
+	        0x0024, // HOME
+	        0x0025, // LEFT
+	        0x0026, // UP
+	        0x0027, // RIGHT
+	        0x0028, // DOWN
+	        0x002C, // COMMA
+	        0x002D, // MINUS
+	        0x002E, // PERIOD
+	        0x002F, // SLASH
+	        0x0030, // 0
+	        0x0031, // 1
+	        0x0032, // 2
+	        0x0033, // 3
+	        0x0034, // 4
+	        0x0035, // 5
+	        0x0036, // 6
+	        0x0037, // 7
+	        0x0038, // 8
+	        0x0039, // 9
+	        0x003B, // SEMICOLON
+	        0x003D, // EQUALS
+	        0x0041, // A
+	        0x0042, // B
+	        0x0043, // C
+	        0x0044, // D
+	        0x0045, // E
+	        0x0046, // F
+	        0x0047, // G
+	        0x0048, // H
+	        0x0049, // I
+	        0x004A, // J
+	        0x004B, // K
+	        0x004C, // L
+	        0x004D, // M
+	        0x004E, // N
+	        0x004F, // O
+	        0x0050, // P
+	        0x0051, // Q
+	        0x0052, // R
+	        0x0053, // S
+	        0x0054, // T
+	        0x0055, // U
+	        0x0056, // V
+	        0x0057, // W
+	        0x0058, // X
+	        0x0059, // Y
+	        0x005A, // Z
+	        0x005B, // OPEN_BRACKET
+	        0x005C, // BACK_SLASH
+	        0x005D, // CLOSE_BRACKET
+	        0x0060, // NUMPAD0
+	        0x0061, // NUMPAD1
+	        0x0062, // NUMPAD2
+	        0x0063, // NUMPAD3
+	        0x0064, // NUMPAD4
+	        0x0065, // NUMPAD5
+	        0x0066, // NUMPAD6
+	        0x0067, // NUMPAD7
+	        0x0068, // NUMPAD8
+	        0x0069, // NUMPAD9
+	        0x006A, // MULTIPLY
+	        0x006B, // ADD
+	        0x006C, // SEPARATER
+	        0x006C, // SEPARATOR
+	        0x006D, // SUBTRACT
+	        0x006E, // DECIMAL
+	        0x006F, // DIVIDE
+	        0x007F, // DELETE
+	        0x0090, // NUM_LOCK
+	        0x0091, // SCROLL_LOCK
+	        0x0070, // F1
+	        0x0071, // F2
+	        0x0072, // F3
+	        0x0073, // F4
+	        0x0074, // F5
+	        0x0075, // F6
+	        0x0076, // F7
+	        0x0077, // F8
+	        0x0078, // F9
+	        0x0079, // F10
+	        0x007A, // F11
+	        0x007B, // F12
+	        0xF000, // F13
+	        0xF001, // F14
+	        0xF002, // F15
+	        0xF003, // F16
+	        0xF004, // F17
+	        0xF005, // F18
+	        0xF006, // F19
+	        0xF007, // F20
+	        0xF008, // F21
+	        0xF009, // F22
+	        0xF00A, // F23
+	        0xF00B, // F24
+	        0x009A, // PRINTSCREEN
+	        0x009B, // INSERT
+	        0x009C, // HELP
+	        0x009D, // META
+	        0x00C0, // BACK_QUOTE
+	        0x00DE, // QUOTE
+	        0x00E0, // KP_UP
+	        0x00E1, // KP_DOWN
+	        0x00E2, // KP_LEFT
+	        0x00E3, // KP_RIGHT
+	        0x0080, // DEAD_GRAVE
+	        0x0081, // DEAD_ACUTE
+	        0x0082, // DEAD_CIRCUMFLEX
+	        0x0083, // DEAD_TILDE
+	        0x0084, // DEAD_MACRON
+	        0x0085, // DEAD_BREVE
+	        0x0086, // DEAD_ABOVEDOT
+	        0x0087, // DEAD_DIAERESIS
+	        0x0088, // DEAD_ABOVERING
+	        0x0089, // DEAD_DOUBLEACUTE
+	        0x008A, // DEAD_CARON
+	        0x008B, // DEAD_CEDILLA
+	        0x008C, // DEAD_OGONEK
+	        0x008D, // DEAD_IOTA
+	        0x008E, // DEAD_VOICED_SOUND
+	        0x008F, // DEAD_SEMIVOICED_SOUND
+	        0x0096, // AMPERSAND
+	        0x0097, // ASTERISK
+	        0x0098, // QUOTEDBL
+	        0x0099, // LESS
+	        0x00A0, // GREATER
+	        0x00A1, // BRACELEFT
+	        0x00A2, // BRACERIGHT
+	        0x0200, // AT
+	        0x0201, // COLON
+	        0x0202, // CIRCUMFLEX
+	        0x0203, // DOLLAR
+	        0x0204, // EURO_SIGN
+	        0x0205, // EXCLAMATION_MARK
+	        0x0206, // INVERTED_EXCLAMATION_MARK
+	        0x0207, // LEFT_PARENTHESIS
+	        0x0208, // NUMBER_SIGN
+	        0x0209, // PLUS
+	        0x020A, // RIGHT_PARENTHESIS
+	        0x020B, // UNDERSCORE
+	        0x020C, // WINDOWS
+	        0x020D, // CONTEXT_MENU
+	        0x0018, // FINAL
+	        0x001C, // CONVERT
+	        0x001D, // NONCONVERT
+	        0x001E, // ACCEPT
+	        0x001F, // MODECHANGE
+	        0x0015, // KANA
+	        0x0019, // KANJI
+	        0x00F0, // ALPHANUMERIC
+	        0x00F1, // KATAKANA
+	        0x00F2, // HIRAGANA
+	        0x00F3, // FULL_WIDTH
+	        0x00F4, // HALF_WIDTH
+	        0x00F5, // ROMAN_CHARACTERS
+	        0x0100, // ALL_CANDIDATES
+	        0x0101, // PREVIOUS_CANDIDATE
+	        0x0102, // CODE_INPUT
+	        0x0103, // JAPANESE_KATAKANA
+	        0x0104, // JAPANESE_HIRAGANA
+	        0x0105, // JAPANESE_ROMAN
+	        0x0106, // KANA_LOCK
+	        0x0107, // INPUT_METHOD_ON_OFF
+	        0xFFD1, // CUT
+	        0xFFCD, // COPY
+	        0xFFCF, // PASTE
+	        0xFFCB, // UNDO
+	        0xFFC9, // AGAIN
+	        0xFFD0, // FIND
+	        0xFFCA, // PROPS
+	        0xFFC8, // STOP
+	        0xFF20, // COMPOSE
+	        0xFF7E, // ALT_GRAPH
+	        0xFF58, // BEGIN
+	        0x0000, // UNDEFINED
+	};
+}
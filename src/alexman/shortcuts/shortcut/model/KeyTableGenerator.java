@@ -0,0 +1,163 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Generates the source of the {@code KeyTable} class from the public static
+ * fields of the {@link KeyEvent} class, and verifies that an existing
+ * {@code KeyTable} matches them. This is the only class that reflects on
+ * {@code KeyEvent}, so that parsing key sequences doesn't need to load AWT.
+ * <p>
+ * Usage: {@code java KeyTableGenerator [--verify | <output file>]}. Without
+ * arguments the source is written to the standard output. With
+ * {@code --verify} the program exits with status 1 if the {@code KeyTable}
+ * has drifted from {@code KeyEvent}, which happens when the JDK adds or changes
+ * Virtual Key Codes, in which case the {@code KeyTable} must be regenerated.
+ *
+ * @author Alex Mandelias
+ */
+public class KeyTableGenerator {
+
+	private KeyTableGenerator() {
+		// don't allow instantiation
+	}
+
+	public static void main(String[] args) throws IOException {
+		if ((args.length == 1) && args[0].equals("--verify")) {
+			List<String> differences = verify();
+			differences.forEach(System.err::println);
+			System.out.printf("KeyTable %s KeyEvent%n",
+			        differences.isEmpty() ? "matches" : "does not match");
+			System.exit(differences.isEmpty() ? 0 : 1);
+
+		} else if (args.length == 1) {
+			try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(args[0])), false,
+			        StandardCharsets.UTF_8)) {
+				generate(out);
+			}
+
+		} else if (args.length == 0) {
+			generate(System.out);
+
+		} else {
+			System.out.println("Usage: java KeyTableGenerator [--verify | <output file>]");
+		}
+	}
+
+	/**
+	 * Writes the source of the {@code KeyTable} class to the given stream.
+	 *
+	 * @param out the stream
+	 */
+	public static void generate(PrintStream out) {
+		List<Field> fields = virtualKeyFields();
+
+		out.println("package alexman.shortcuts.shortcut.model;");
+		out.println();
+		out.println("/**");
+		out.println(" * The names and values of the Virtual Key Codes of the KeyEvent class, in the");
+		out.println(" * order in which they are declared. Generated by {@link KeyTableGenerator}, do");
+		out.println(" * not edit.");
+		out.println(" *");
+		out.println(" * @author Alex Mandelias");
+		out.println(" */");
+		out.println("final class KeyTable {");
+		out.println();
+		out.println("\tprivate KeyTable() {");
+		out.println("\t\t// don't allow instantiation");
+		out.println("\t}");
+		out.println();
+		out.println("\t/** The names of the Virtual Key Codes, without the \"VK_\" prefix */");
+		out.println("\tstatic final String[] NAMES = {");
+		for (Field field : fields)
+			out.printf("\t        \"%s\",%n", keyText(field));
+		out.println("\t};");
+		out.println();
+		out.println("\t/** The values of the Virtual Key Codes, {@code CODES[i]} being that of {@code NAMES[i]} */");
+		out.println("\tstatic final int[] CODES = {");
+		for (Field field : fields)
+			out.printf("\t        0x%04X, // %s%n", keyCode(field), keyText(field));
+		out.println("\t};");
+		out.println("}");
+	}
+
+	/**
+	 * Compares the {@code KeyTable} with the public static fields of the
+	 * {@link KeyEvent} class.
+	 *
+	 * @return a description of every difference, empty if there are none
+	 */
+	public static List<String> verify() {
+		List<String> differences = new ArrayList<>();
+		List<Field> fields = virtualKeyFields();
+
+		if (KeyTable.NAMES.length != KeyTable.CODES.length) {
+			differences.add(String.format("KeyTable has %d names but %d codes",
+			        KeyTable.NAMES.length, KeyTable.CODES.length));
+			return differences;
+		}
+
+		if (fields.size() != KeyTable.NAMES.length) {
+			differences.add(String.format("KeyEvent has %d Virtual Key Codes but KeyTable has %d",
+			        fields.size(), KeyTable.NAMES.length));
+		}
+
+		for (Field field : fields) {
+			String keyText = keyText(field);
+			int index = Arrays.asList(KeyTable.NAMES).indexOf(keyText);
+			if (index == -1)
+				differences.add(String.format("KeyTable is missing %s", keyText));
+			else if (KeyTable.CODES[index] != keyCode(field))
+				differences.add(String.format("KeyTable has %s = 0x%04X but KeyEvent has 0x%04X",
+				        keyText, KeyTable.CODES[index], keyCode(field)));
+		}
+
+		for (String keyText : KeyTable.NAMES) {
+			if (fields.stream().map(KeyTableGenerator::keyText).noneMatch(keyText::equals))
+				differences.add(String.format("KeyTable has %s which KeyEvent doesn't", keyText));
+		}
+
+		return differences;
+	}
+
+	// https://stackoverflow.com/questions/664896/get-the-vk-int-from-an-arbitrary-char-in-java#answer-665267
+	private static List<Field> virtualKeyFields() {
+
+		// filter "public static final int VK_..." fields
+		Predicate<Field> isValidField = field -> {
+			int mod = field.getModifiers();
+			return Modifier.isPublic(mod) && Modifier.isStatic(mod)
+			        && Modifier.isFinal(mod) &&
+			        field.getType().equals(int.class) &&
+			        field.getName().startsWith("VK_");
+		};
+
+		return Arrays.asList(KeyEvent.class.getDeclaredFields())
+		        .stream()
+		        .filter(isValidField)
+		        .toList();
+	}
+
+	private static String keyText(Field field) {
+		return field.getName().substring(3).toUpperCase(); // strip 'VK_'
+	}
+
+	private static int keyCode(Field field) {
+		try {
+			return field.getInt(null);
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,292 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads lines from a file or a Reader in large blocks and hands each line to a
+ * {@link LineConsumer} as a region of a shared buffer, without creating a
+ * String for it. Lines are terminated by {@code '\n'}, {@code '\r'} or
+ * {@code "\r\n"}. Blank lines are handed to the consumer like any other line.
+ *
+ * @author Alex Mandelias
+ */
+final class LineReader {
+
+	/** The number of bytes of a file that are mapped into memory at once */
+	private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+	/** The initial number of chars in the buffer. It grows to fit longer lines */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The buffer grows when a line leaves less than this many chars free */
+	private static final int MIN_FREE_SPACE = 16;
+
+	/**
+	 * Receives the lines read by a {@code LineReader}.
+	 *
+	 * @author Alex Mandelias
+	 */
+	@FunctionalInterface
+	interface LineConsumer {
+
+		/**
+		 * Consumes a line, which is the region {@code [start, end)} of the buffer,
+		 * not including the line terminator. The contents of the buffer are only valid
+		 * until this method returns.
+		 *
+		 * @param buffer the buffer that contains the line
+		 * @param start the index of the first character of the line
+		 * @param end the index after the last character of the line
+		 * @param lineNumber the number of the line in the input, starting from 1
+		 */
+		void accept(CharSequence buffer, int start, int end, int lineNumber);
+	}
+
+	private char[] buf = new char[BUFFER_SIZE];
+	private CharBuffer out = CharBuffer.wrap(buf);
+	private CharBuffer view = CharBuffer.wrap(buf);
+
+	private final LineConsumer consumer;
+	private int lineNumber = 0;
+	private boolean skipLineFeed = false;
+
+	private LineReader(LineConsumer consumer) {
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Reads the lines of a file by mapping it into memory a large window at a
+	 * time and decoding it with the given Charset.
+	 *
+	 * @param path the path of the file
+	 * @param charset the Charset with which to decode the file
+	 * @param consumer the consumer of the lines
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 */
+	static void forEachLine(Path path, Charset charset, LineConsumer consumer)
+	        throws IOException {
+		LineReader lr = new LineReader(consumer);
+
+		CharsetDecoder decoder = charset.newDecoder()
+		        .onMalformedInput(CodingErrorAction.REPLACE)
+		        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			boolean endOfInput;
+			do {
+				long remaining = size - position;
+				endOfInput = remaining <= MAP_WINDOW;
+
+				MappedByteBuffer in = channel.map(MapMode.READ_ONLY, position,
+				        Math.min(remaining, MAP_WINDOW));
+
+				CoderResult result;
+				do {
+					result = decoder.decode(in, lr.out, endOfInput);
+					lr.drain();
+				} while (result.isOverflow());
+
+				if (result.isError())
+					result.throwException();
+
+				// the bytes of an incomplete character are mapped again with the next window
+				position += in.position();
+			} while (!endOfInput);
+
+			while (decoder.flush(lr.out).isOverflow())
+				lr.drain();
+		}
+
+		lr.finish();
+	}
+
+	/**
+	 * Reads the lines of a Reader, a large block of characters at a time.
+	 *
+	 * @param reader the reader. It remains open after this method returns
+	 * @param consumer the consumer of the lines
+	 *
+	 * @throws IOException if an IO Exception occurs while reading from the reader
+	 */
+	static void forEachLine(Reader reader, LineConsumer consumer) throws IOException {
+		LineReader lr = new LineReader(consumer);
+
+		int read;
+		while ((read = reader.read(lr.buf, lr.out.position(), lr.out.remaining())) != -1) {
+			lr.out.position(lr.out.position() + read);
+			lr.drain();
+		}
+
+		lr.finish();
+	}
+
+	/**
+	 * Reads the lines of the region {@code [start, end)} of a CharSequence which
+	 * is already in memory. The line numbers start from 1 at the start of the
+	 * region, which must not start in the middle of a {@code "\r\n"}.
+	 *
+	 * @param cs the CharSequence
+	 * @param start the index of the first character of the region
+	 * @param end the index after the last character of the region
+	 * @param consumer the consumer of the lines
+	 *
+	 * @return the number of lines in the region
+	 */
+	static int forEachLine(CharSequence cs, int start, int end, LineConsumer consumer) {
+		int lineNumber = 0;
+		int lineStart = start;
+		for (int i = start; i < end; i++) {
+			char c = cs.charAt(i);
+			if ((c == '\n') || (c == '\r')) {
+				consumer.accept(cs, lineStart, i, ++lineNumber);
+				if ((c == '\r') && (i + 1 < end) && (cs.charAt(i + 1) == '\n'))
+					i++;
+				lineStart = i + 1;
+			}
+		}
+
+		if (lineStart < end)
+			consumer.accept(cs, lineStart, end, ++lineNumber);
+
+		return lineNumber;
+	}
+
+	/**
+	 * Returns the index after the end of the line which contains the given index,
+	 * including its line terminator, so that a region starting there doesn't start
+	 * in the middle of a line.
+	 *
+	 * @param cs the CharSequence
+	 * @param index the index
+	 *
+	 * @return the index of the start of the next line, or the length of the
+	 *         CharSequence if there is no next line
+	 */
+	static int nextLineStart(CharSequence cs, int index) {
+		int length = cs.length();
+		for (int i = index; i < length; i++) {
+			char c = cs.charAt(i);
+			if (c == '\n')
+				return i + 1;
+			if (c == '\r')
+				return ((i + 1 < length) && (cs.charAt(i + 1) == '\n')) ? i + 2 : i + 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Decodes a whole file into memory by mapping it a large window at a time.
+	 *
+	 * @param path the path of the file
+	 * @param charset the Charset with which to decode the file
+	 *
+	 * @return a CharBuffer with the contents of the file, ready to be read
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 */
+	static CharBuffer readAll(Path path, Charset charset) throws IOException {
+		CharsetDecoder decoder = charset.newDecoder()
+		        .onMalformedInput(CodingErrorAction.REPLACE)
+		        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long estimate = (long) (size * (double) decoder.averageCharsPerByte()) + MIN_FREE_SPACE;
+			CharBuffer out = CharBuffer.allocate((int) Math.min(estimate, Integer.MAX_VALUE - 8));
+
+			long position = 0;
+			boolean endOfInput;
+			do {
+				long remaining = size - position;
+				endOfInput = remaining <= MAP_WINDOW;
+
+				MappedByteBuffer in = channel.map(MapMode.READ_ONLY, position,
+				        Math.min(remaining, MAP_WINDOW));
+
+				CoderResult result;
+				while ((result = decoder.decode(in, out, endOfInput)).isOverflow())
+					out = grow(out);
+
+				if (result.isError())
+					result.throwException();
+
+				position += in.position();
+			} while (!endOfInput);
+
+			while (decoder.flush(out).isOverflow())
+				out = grow(out);
+
+			return out.flip();
+		}
+	}
+
+	private static CharBuffer grow(CharBuffer buffer) {
+		CharBuffer newBuffer = CharBuffer.allocate(Math.max(buffer.capacity() * 2, BUFFER_SIZE));
+		return newBuffer.put(buffer.flip());
+	}
+
+	/*
+	 * Hands every complete line in the buffer to the consumer, then moves the
+	 * incomplete last line to the start of the buffer, growing it if it is full.
+	 */
+	private void drain() {
+		int length = out.position();
+		int lineStart = 0;
+
+		for (int i = 0; i < length; i++) {
+			char c = buf[i];
+
+			if (skipLineFeed) {
+				skipLineFeed = false;
+				if (c == '\n') {
+					lineStart = i + 1;
+					continue;
+				}
+			}
+
+			if ((c == '\n') || (c == '\r')) {
+				consumer.accept(view, lineStart, i, ++lineNumber);
+				lineStart = i + 1;
+				skipLineFeed = c == '\r';
+			}
+		}
+
+		int leftover = length - lineStart;
+		System.arraycopy(buf, lineStart, buf, 0, leftover);
+
+		// a surrogate pair needs room for two characters
+		if (buf.length - leftover < MIN_FREE_SPACE) {
+			char[] newBuf = new char[buf.length * 2];
+			System.arraycopy(buf, 0, newBuf, 0, leftover);
+			buf = newBuf;
+			out = CharBuffer.wrap(buf);
+			view = CharBuffer.wrap(buf);
+		}
+
+		out.limit(buf.length);
+		out.position(leftover);
+	}
+
+	/* Hands the last line to the consumer, if it doesn't end with a line terminator */
+	private void finish() {
+		drain();
+
+		int length = out.position();
+		if (length > 0)
+			consumer.accept(view, 0, length, ++lineNumber);
+	}
+}
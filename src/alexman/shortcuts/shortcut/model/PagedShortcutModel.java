@@ -0,0 +1,455 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import alexman.shortcuts.shortcut.BinaryShortcutCodec;
+import alexman.shortcuts.shortcut.BinaryShortcutFile;
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * A read-only Shortcut Model, which also acts as a {@code ListModel}, backed by
+ * a memory-mapped binary shortcut file. Shortcuts are decoded a page at a time,
+ * only when they are requested, and a bounded number of recently used pages is
+ * kept in memory. This allows browsing libraries much larger than the heap.
+ * <p>
+ * Only files written by the {@link BinaryShortcutCodec} can be loaded. Since
+ * the model is read-only, the methods which change its Shortcuts throw an
+ * {@code UnsupportedOperationException} without changing anything, except for
+ * {@link #clear()}, which closes the file. When used with a {@code JList}, set a
+ * fixed cell height or a prototype cell value, otherwise the {@code JList}
+ * requests every Shortcut to compute its size.
+ *
+ * @author Alex Mandelias
+ */
+public class PagedShortcutModel implements IShortcutModel, ListModel<Shortcut>, Iterable<Shortcut> {
+
+	/** The number of Shortcuts decoded together */
+	public static final int PAGE_SIZE = 256;
+
+	/** The default number of pages kept in memory */
+	public static final int DEFAULT_CACHED_PAGES = 64;
+
+	private final int cachedPages;
+	private final Map<Integer, Shortcut[]> pages;
+	private volatile BinaryShortcutFile file;
+	private IShortcutFormatter sf;
+
+	private final Set<ListDataListener> listDataListeners = new HashSet<>();
+
+	/**
+	 * Constructs an empty Paged Shortcut Model with the given Formatter, which
+	 * keeps the default number of pages in memory.
+	 *
+	 * @param shortcutFormatter this Model's Formatter, used only when storing
+	 */
+	public PagedShortcutModel(IShortcutFormatter shortcutFormatter) {
+		this(DEFAULT_CACHED_PAGES, shortcutFormatter);
+	}
+
+	/**
+	 * Constructs an empty Paged Shortcut Model with the given Formatter, which
+	 * keeps the given number of pages in memory.
+	 *
+	 * @param cachedPages the maximum number of pages kept in memory
+	 * @param shortcutFormatter this Model's Formatter, used only when storing
+	 *
+	 * @throws IllegalArgumentException if {@code cachedPages < 1}
+	 */
+	public PagedShortcutModel(int cachedPages, IShortcutFormatter shortcutFormatter) {
+		if (cachedPages < 1)
+			throw new IllegalArgumentException("At least one page must be cached");
+
+		this.cachedPages = cachedPages;
+		this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Shortcut[]> eldest) {
+				return size() > PagedShortcutModel.this.cachedPages;
+			}
+		};
+		this.sf = shortcutFormatter;
+	}
+
+	/**
+	 * Opens a binary shortcut file, replacing the file this model is backed by.
+	 *
+	 * @param path the path of the file
+	 *
+	 * @return this model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file or if
+	 *         the file isn't a binary shortcut file
+	 */
+	public PagedShortcutModel open(Path path) throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+
+		BinaryShortcutFile newFile = BinaryShortcutFile.open(path);
+		synchronized (pages) {
+			file = newFile;
+			pages.clear();
+		}
+
+		fireContentsChanged();
+		return this;
+	}
+
+	/**
+	 * Unsupported, since only binary shortcut files can be loaded.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel load(Reader reader, IShortcutFormatter shortcutFormatter) {
+		throw new UnsupportedOperationException(
+		        "PagedShortcutModel can only load binary shortcut files, use load(Path)");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation only loads files written by the
+	 * {@link BinaryShortcutCodec}, so the Formatter is not used.
+	 *
+	 * @throws IOException if the file isn't a binary shortcut file
+	 */
+	@Override
+	public IShortcutModel load(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		if (!BinaryShortcutCodec.isBinary(path)) {
+			throw new IOException(String.format(
+			        "%s is not a binary shortcut file, convert it with BinaryShortcutCodec first",
+			        path));
+		}
+
+		return open(path);
+	}
+
+	@Override
+	public IShortcutModel loadParallel(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		return load(path, shortcutFormatter);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation decodes the Shortcuts one at a time, without caching
+	 * them.
+	 */
+	@Override
+	public IShortcutModel store(Writer writer, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(writer, "writer cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		BinaryShortcutFile current = file;
+		int size = current == null ? 0 : current.size();
+		for (int i = 0; i < size; i++) {
+			writer.write(shortcutFormatter.format(current.get(i)).toCharArray());
+			writer.write(System.lineSeparator().toCharArray());
+		}
+
+		return this;
+	}
+
+	@Override
+	public IShortcutFormatter getFormatter() {
+		return sf;
+	}
+
+	@Override
+	public final IShortcutModel setFormatter(IShortcutFormatter sf) {
+		this.sf = sf;
+		return this;
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel addShortcut(Shortcut shortcut) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel insertShortcut(int index, Shortcut shortcut) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel removeShortcut(Shortcut shortcut) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel removeShortcut(int index) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(Shortcut oldShortcut, Shortcut newShortcut) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(int index, Shortcut newShortcut) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel addAll(Collection<? extends Shortcut> shortcuts) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel removeAll(Collection<? extends Shortcut> shortcuts) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel replaceAll(Collection<? extends Shortcut> shortcuts) {
+		throw readOnly();
+	}
+
+	/**
+	 * Unsupported, since this model is read-only.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public IShortcutModel batch(Consumer<? super IShortcutModel> action) {
+		throw readOnly();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The List decodes the Shortcuts only when they are requested.
+	 */
+	@Override
+	public List<Shortcut> getShortcuts() {
+		return new ShortcutList();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation reads the entries straight from the file, decoding the
+	 * key sequence only of the entries with the same action, and doesn't change
+	 * the cached pages.
+	 */
+	@Override
+	public int indexOf(Shortcut shortcut) {
+		BinaryShortcutFile current = file;
+		if ((current == null) || (shortcut == null))
+			return -1;
+
+		for (int i = 0, size = current.size(); i < size; i++) {
+			if (Objects.equals(shortcut.getAction(), current.getAction(i))
+			        && Objects.equals(shortcut.getKeySequence(), current.getKeySequence(i)))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation reads the entries straight from the file, decoding only
+	 * the Shortcuts which are returned, and doesn't change the cached pages.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByAction(String action) {
+		BinaryShortcutFile current = file;
+		if (current == null)
+			return List.of();
+
+		List<Shortcut> found = new ArrayList<>();
+		for (int i = 0, size = current.size(); i < size; i++) {
+			if (Objects.equals(action, current.getAction(i)))
+				found.add(current.get(i));
+		}
+		return Collections.unmodifiableList(found);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation reads the key sequences straight from the file,
+	 * decoding only the actions of the Shortcuts which are returned, and doesn't
+	 * change the cached pages.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByKeySequence(KeySequence keySequence) {
+		KeySequence canonical = keySequence.canonical();
+		BinaryShortcutFile current = file;
+		if (current == null)
+			return List.of();
+
+		List<Shortcut> found = new ArrayList<>();
+		for (int i = 0, size = current.size(); i < size; i++) {
+			KeySequence other = current.getKeySequence(i);
+			if (canonical.equals(other.canonical()))
+				found.add(new Shortcut(current.getAction(i), other));
+		}
+		return Collections.unmodifiableList(found);
+	}
+
+	/**
+	 * Closes the file this model is backed by, leaving it empty.
+	 *
+	 * @return this model
+	 */
+	@Override
+	public IShortcutModel clear() {
+		synchronized (pages) {
+			file = null;
+			pages.clear();
+		}
+
+		fireContentsChanged();
+		return this;
+	}
+
+	@Override
+	public int getSize() {
+		BinaryShortcutFile current = file;
+		return current == null ? 0 : current.size();
+	}
+
+	@Override
+	public Shortcut getElementAt(int index) {
+		int pageIndex = index / PAGE_SIZE;
+		synchronized (pages) {
+			Objects.checkIndex(index, getSize());
+
+			Shortcut[] page = pages.get(pageIndex);
+			if (page == null) {
+				page = decodePage(pageIndex);
+				pages.put(pageIndex, page);
+			}
+			return page[index % PAGE_SIZE];
+		}
+	}
+
+	/**
+	 * Returns the number of pages which are currently decoded in memory.
+	 *
+	 * @return the number of pages
+	 */
+	public int getCachedPageCount() {
+		synchronized (pages) {
+			return pages.size();
+		}
+	}
+
+	@Override
+	public void addListDataListener(ListDataListener l) {
+		listDataListeners.add(l);
+	}
+
+	@Override
+	public void removeListDataListener(ListDataListener l) {
+		listDataListeners.remove(l);
+	}
+
+	@Override
+	public Iterator<Shortcut> iterator() {
+		return getShortcuts().iterator();
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("PagedShortcutModel is read-only");
+	}
+
+	private Shortcut[] decodePage(int pageIndex) {
+		int from = pageIndex * PAGE_SIZE;
+		int to = Math.min(from + PAGE_SIZE, file.size());
+
+		Shortcut[] page = new Shortcut[to - from];
+		for (int i = from; i < to; i++)
+			page[i - from] = file.get(i);
+
+		return page;
+	}
+
+	private void fireContentsChanged() {
+		ListDataEvent lde = new ListDataEvent(this, ListDataEvent.CONTENTS_CHANGED, 0,
+		        Math.max(0, getSize() - 1));
+		listDataListeners.forEach(ldl -> ldl.contentsChanged(lde));
+	}
+
+	private class ShortcutList extends AbstractList<Shortcut> implements RandomAccess {
+
+		@Override
+		public Shortcut get(int index) {
+			return getElementAt(index);
+		}
+
+		@Override
+		public int size() {
+			return getSize();
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * Parses the lines of a file into Shortcuts in parallel. The file is decoded
+ * into memory and split into line-aligned chunks, which are parsed on a
+ * fork/join pool and then merged in file order.
+ *
+ * @author Alex Mandelias
+ */
+final class ParallelLoader {
+
+	/** Files with fewer chars than this are parsed in a single chunk */
+	private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+	/** The number of chunks per thread of the pool, to balance uneven lines */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private ParallelLoader() {
+		// don't allow instantiation
+	}
+
+	/**
+	 * Parses the lines of a file into Shortcuts in parallel. A line which the
+	 * Formatter cannot parse fails the load, the same way as a sequential load,
+	 * once every chunk has been parsed.
+	 *
+	 * @param path the path of the file
+	 * @param charset the Charset with which to decode the file
+	 * @param sf the Formatter used to parse the lines. It must be thread-safe
+	 * @param pool the pool on which to parse the chunks
+	 *
+	 * @return the Shortcuts of the file, in file order
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws ShortcutParseException if a line cannot be parsed. If many lines
+	 *         cannot be parsed, the first one is thrown and the rest are added as
+	 *         suppressed exceptions
+	 */
+	static List<Shortcut> load(Path path, Charset charset, IShortcutFormatter sf,
+	        ForkJoinPool pool) throws IOException {
+		CharBuffer chars = LineReader.readAll(path, charset);
+
+		int length = chars.length();
+		int maxChunks = Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD);
+		int chunkCount = Math.max(1, Math.min(maxChunks, length / MIN_CHUNK_SIZE));
+
+		// move each boundary to the start of the next line
+		int[] bounds = new int[chunkCount + 1];
+		for (int i = 1; i < chunkCount; i++) {
+			int target = (int) (((long) length * i) / chunkCount);
+			bounds[i] = Math.max(bounds[i - 1], LineReader.nextLineStart(chars, target));
+		}
+		bounds[chunkCount] = length;
+
+		Chunk[] chunks = new Chunk[chunkCount];
+		for (int i = 0; i < chunkCount; i++)
+			chunks[i] = new Chunk(chars, bounds[i], bounds[i + 1], sf);
+
+		pool.invoke(new ParseTask(chunks, 0, chunkCount));
+
+		int total = 0;
+		for (Chunk chunk : chunks)
+			total += chunk.shortcuts.size();
+
+		List<Shortcut> shortcuts = new ArrayList<>(total);
+		ShortcutParseException first = null;
+		int firstLine = 0;
+		for (Chunk chunk : chunks) {
+			shortcuts.addAll(chunk.shortcuts);
+
+			for (int i = 0; i < chunk.errors.size(); i++) {
+				ShortcutParseException e = new ShortcutParseException(
+				        firstLine + chunk.errorLines.get(i), chunk.errors.get(i));
+				if (first == null)
+					first = e;
+				else
+					first.addSuppressed(e);
+			}
+
+			firstLine += chunk.lineCount;
+		}
+
+		if (first != null)
+			throw first;
+
+		return shortcuts;
+	}
+
+	private static final class Chunk {
+
+		final CharSequence chars;
+		final int start, end;
+		final IShortcutFormatter sf;
+
+		final List<Shortcut> shortcuts = new ArrayList<>();
+		final List<Integer> errorLines = new ArrayList<>();
+		final List<IllegalArgumentException> errors = new ArrayList<>();
+		int lineCount;
+
+		Chunk(CharBuffer chars, int start, int end, IShortcutFormatter sf) {
+			// each chunk reads through its own view, since CharBuffers aren't thread-safe
+			this.chars = chars.duplicate();
+			this.start = start;
+			this.end = end;
+			this.sf = sf;
+		}
+
+		void parse() {
+			lineCount = LineReader.forEachLine(chars, start, end,
+			        (buffer, lineStart, lineEnd, lineNumber) -> {
+				        try {
+					        Shortcut s = sf.parse(buffer, lineStart, lineEnd);
+					        if (s != null)
+						        shortcuts.add(s);
+				        } catch (IllegalArgumentException e) {
+					        errorLines.add(lineNumber);
+					        errors.add(e);
+				        }
+			        });
+		}
+	}
+
+	private static final class ParseTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Chunk[] chunks;
+		private final int from, to;
+
+		ParseTask(Chunk[] chunks, int from, int to) {
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				chunks[from].parse();
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ParseTask(chunks, from, mid), new ParseTask(chunks, mid, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,365 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import alexman.shortcuts.shortcut.BinaryShortcutCodec;
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * A transparent on-disk cache of parsed shortcut files. For every text file it
+ * keeps a sidecar copy in the binary layout of the {@link BinaryShortcutCodec},
+ * along with the path, size, modification time and content hash of the text
+ * file and a description of the Formatter that parsed it. When all of them
+ * match, the file is loaded from the binary copy without parsing; otherwise it
+ * is parsed and the cache is rebuilt in the background.
+ * <p>
+ * The cache keeps a bounded number of entries. Every time an entry is used its
+ * modification time is updated, and after an entry is written the least
+ * recently used entries beyond the bound are deleted.
+ * <p>
+ * Formatters are told apart by their {@code toString()}, so Formatters whose
+ * parsing can be configured should describe their configuration there. Those
+ * which don't are never served from the cache of another run.
+ * <p>
+ * The cache is best-effort: any problem while reading or writing it results in
+ * the text file being parsed, as if there was no cache.
+ *
+ * @author Alex Mandelias
+ */
+public class ParseCache {
+
+	private static final int MAGIC = 0x47535043; // "GSPC"
+	private static final int VERSION = 1;
+
+	private static final String DATA_SUFFIX = ".bin";
+	private static final String META_SUFFIX = ".meta";
+
+	/** The number of entries kept by a Parse Cache unless another is specified */
+	public static final int DEFAULT_MAX_ENTRIES = 64;
+
+	private final Path directory;
+	private final Executor executor;
+	private final int maxEntries;
+
+	/**
+	 * Constructs a Parse Cache in the default directory, which rebuilds entries on
+	 * a background daemon thread.
+	 *
+	 * @see #defaultDirectory()
+	 */
+	public ParseCache() {
+		this(defaultDirectory(), Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "ParseCache");
+			t.setDaemon(true);
+			return t;
+		}));
+	}
+
+	/**
+	 * Constructs a Parse Cache in the given directory, which rebuilds entries
+	 * using the given Executor.
+	 *
+	 * @param directory the directory where the entries are stored. It is created
+	 *        if it doesn't exist
+	 * @param executor the Executor which rebuilds entries
+	 */
+	public ParseCache(Path directory, Executor executor) {
+		this(directory, executor, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Constructs a Parse Cache in the given directory, which rebuilds entries
+	 * using the given Executor and keeps at most the given number of entries.
+	 *
+	 * @param directory the directory where the entries are stored. It is created
+	 *        if it doesn't exist
+	 * @param executor the Executor which rebuilds entries
+	 * @param maxEntries the maximum number of entries
+	 *
+	 * @throws IllegalArgumentException if {@code maxEntries} is not positive
+	 */
+	public ParseCache(Path directory, Executor executor, int maxEntries) {
+		this.directory = Objects.requireNonNull(directory, "directory cannot be null");
+		this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+
+		if (maxEntries <= 0)
+			throw new IllegalArgumentException("maxEntries must be positive");
+
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns the default directory of the cache, which is the
+	 * {@code shortcutinator} directory in {@code $XDG_CACHE_HOME} or, if it isn't
+	 * set, in {@code ~/.cache}.
+	 *
+	 * @return the default directory
+	 */
+	public static Path defaultDirectory() {
+		String xdg = System.getenv("XDG_CACHE_HOME");
+		Path base = (xdg == null) || xdg.isBlank()
+		        ? Path.of(System.getProperty("user.home"), ".cache")
+		        : Path.of(xdg);
+		return base.resolve("shortcutinator");
+	}
+
+	/**
+	 * Loads a shortcut file into a model, from the cache if it is valid or by
+	 * parsing it in parallel otherwise, in which case the cache is rebuilt in the
+	 * background.
+	 *
+	 * @param sm the model into which to load the file
+	 * @param path the path of the file
+	 * @param sf the Formatter used to parse the file
+	 *
+	 * @return the model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws NullPointerException if the provided Formatter is {@code null}
+	 * @throws ShortcutParseException if a line cannot be parsed
+	 *
+	 * @see IShortcutModel#loadParallel(Path, IShortcutFormatter)
+	 */
+	public IShortcutModel load(IShortcutModel sm, Path path, IShortcutFormatter sf)
+	        throws IOException {
+		Objects.requireNonNull(sf, "Shortcut Formatter cannot be null");
+
+		Path file = path.toAbsolutePath().normalize();
+		Key key = Key.of(file, sf);
+		String name = entryName(file);
+		Path data = directory.resolve(name + DATA_SUFFIX);
+		Path meta = directory.resolve(name + META_SUFFIX);
+
+		if (key.equals(readKey(meta))) {
+			try {
+				sm.load(data, sf);
+				executor.execute(() -> touch(meta));
+				return sm;
+			} catch (IOException | IllegalArgumentException e) {
+				// fall back to parsing the file
+			}
+		}
+
+		sm.loadParallel(file, sf);
+
+		List<Shortcut> snapshot = List.copyOf(sm.getShortcuts());
+		executor.execute(() -> write(key, snapshot, data, meta));
+
+		return sm;
+	}
+
+	/**
+	 * Same as {@link #load(IShortcutModel, Path, IShortcutFormatter)} but using
+	 * the model's current Formatter as the third argument.
+	 *
+	 * @param sm the model into which to load the file
+	 * @param path the path of the file
+	 *
+	 * @return the model
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws NullPointerException if the model's Formatter is {@code null}
+	 */
+	public IShortcutModel load(IShortcutModel sm, Path path) throws IOException {
+		return load(sm, path, sm.getFormatter());
+	}
+
+	private void write(Key key, List<Shortcut> shortcuts, Path data, Path meta) {
+		try {
+			Files.createDirectories(directory);
+
+			Path tempData = Files.createTempFile(directory, null, DATA_SUFFIX);
+			BinaryShortcutCodec.write(shortcuts, tempData);
+			move(tempData, data);
+
+			// written last, so that it never describes a data file that isn't there yet
+			Path tempMeta = Files.createTempFile(directory, null, META_SUFFIX);
+			try (DataOutputStream dos = new DataOutputStream(
+			        new BufferedOutputStream(Files.newOutputStream(tempMeta)))) {
+				key.writeTo(dos);
+			}
+			move(tempMeta, meta);
+
+			evict();
+		} catch (IOException e) {
+			// the cache is best-effort, the file will be parsed the next time
+		}
+	}
+
+	// marks an entry as the most recently used one
+	private static void touch(Path meta) {
+		try {
+			Files.setLastModifiedTime(meta, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// the entry is only evicted sooner
+		}
+	}
+
+	/*
+	 * Deletes the least recently used entries beyond the maximum. The metadata
+	 * file is deleted first, so that the entry is never used without its data.
+	 */
+	private void evict() throws IOException {
+		List<Path> metas = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.filter(f -> f.getFileName().toString().endsWith(META_SUFFIX))
+			        .forEach(metas::add);
+		}
+
+		if (metas.size() <= maxEntries)
+			return;
+
+		List<Entry> entries = new ArrayList<>(metas.size());
+		for (Path meta : metas) {
+			try {
+				entries.add(new Entry(meta, Files.getLastModifiedTime(meta)));
+			} catch (IOException e) {
+				// deleted by another run
+			}
+		}
+
+		entries.sort(Comparator.comparing((Entry e) -> e.used).reversed());
+		for (Entry entry : entries.subList(Math.min(maxEntries, entries.size()), entries.size())) {
+			String meta = entry.meta.getFileName().toString();
+			String name = meta.substring(0, meta.length() - META_SUFFIX.length());
+			Files.deleteIfExists(entry.meta);
+			Files.deleteIfExists(directory.resolve(name + DATA_SUFFIX));
+		}
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+			        StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static Key readKey(Path meta) {
+		try (DataInputStream dis = new DataInputStream(
+		        new BufferedInputStream(Files.newInputStream(meta)))) {
+			return Key.readFrom(dis);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static String entryName(Path file) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			byte[] digest = md.digest(file.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest, 0, 16);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static long contentHash(Path file, long size) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long position = 0;
+			while (position < size) {
+				long length = Math.min(size - position, Integer.MAX_VALUE);
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, length);
+				crc.update(buffer);
+				position += length;
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static final class Entry {
+
+		final Path meta;
+		final FileTime used;
+
+		Entry(Path meta, FileTime used) {
+			this.meta = meta;
+			this.used = used;
+		}
+	}
+
+	private static final class Key {
+
+		final String path, formatter;
+		final long size, modified, hash;
+
+		Key(String path, String formatter, long size, long modified, long hash) {
+			this.path = path;
+			this.formatter = formatter;
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+
+		static Key of(Path file, IShortcutFormatter sf) throws IOException {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			long size = attributes.size();
+			return new Key(file.toString(), sf.toString(), size,
+			        attributes.lastModifiedTime().toMillis(), contentHash(file, size));
+		}
+
+		static Key readFrom(DataInputStream dis) throws IOException {
+			if ((dis.readInt() != MAGIC) || (dis.readInt() != VERSION))
+				return null;
+
+			return new Key(dis.readUTF(), dis.readUTF(), dis.readLong(), dis.readLong(),
+			        dis.readLong());
+		}
+
+		void writeTo(DataOutputStream dos) throws IOException {
+			dos.writeInt(MAGIC);
+			dos.writeInt(VERSION);
+			dos.writeUTF(path);
+			dos.writeUTF(formatter);
+			dos.writeLong(size);
+			dos.writeLong(modified);
+			dos.writeLong(hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, formatter, size, modified, hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return Objects.equals(path, other.path) && Objects.equals(formatter, other.formatter)
+			        && (size == other.size) && (modified == other.modified)
+			        && (hash == other.hash);
+		}
+	}
+}
@@ -0,0 +1,310 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An immutable List of Shortcuts whose modifications return a new List instead
+ * of changing this one. The Shortcuts are stored in a balanced binary tree in
+ * which every node also stores the size of its subtree, so that Shortcuts are
+ * found by index in logarithmic time.
+ * <p>
+ * A modification only copies the nodes on the path to the changed index and
+ * shares the rest with the original List, so it takes logarithmic time and
+ * space. This makes every version a snapshot which costs nothing to keep and
+ * which can be safely read by other threads. Lists which share their tree are
+ * compared in constant time.
+ *
+ * @author Alex Mandelias
+ */
+public final class PersistentShortcutList extends AbstractList<Shortcut> {
+
+	private static final PersistentShortcutList EMPTY = new PersistentShortcutList(null);
+
+	private final Node root;
+
+	private PersistentShortcutList(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns the empty List.
+	 *
+	 * @return the List
+	 */
+	public static PersistentShortcutList empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Returns a List with the given Shortcuts, in the order of the Collection, in
+	 * linear time.
+	 *
+	 * @param shortcuts the Shortcuts
+	 *
+	 * @return the List
+	 *
+	 * @throws NullPointerException if {@code shortcuts == null} or if any of the
+	 *         Shortcuts is {@code null}
+	 */
+	public static PersistentShortcutList of(Collection<? extends Shortcut> shortcuts) {
+		if (shortcuts instanceof PersistentShortcutList)
+			return (PersistentShortcutList) shortcuts;
+
+		Shortcut[] array = shortcuts.toArray(new Shortcut[0]);
+		for (Shortcut shortcut : array)
+			Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		return array.length == 0 ? EMPTY
+		        : new PersistentShortcutList(build(array, 0, array.length));
+	}
+
+	@Override
+	public Shortcut get(int index) {
+		Objects.checkIndex(index, size());
+
+		Node node = root;
+		while (true) {
+			int leftSize = size(node.left);
+			if (index < leftSize) {
+				node = node.left;
+			} else if (index > leftSize) {
+				index -= leftSize + 1;
+				node = node.right;
+			} else {
+				return node.value;
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return size(root);
+	}
+
+	/**
+	 * Returns a List with the Shortcut at the given index replaced.
+	 *
+	 * @param index the index
+	 * @param shortcut the new Shortcut
+	 *
+	 * @return the new List
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public PersistentShortcutList with(int index, Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		Objects.checkIndex(index, size());
+
+		return new PersistentShortcutList(set(root, index, shortcut));
+	}
+
+	/**
+	 * Returns a List with a Shortcut added to the end.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return the new List
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 */
+	public PersistentShortcutList plus(Shortcut shortcut) {
+		return plus(size(), shortcut);
+	}
+
+	/**
+	 * Returns a List with a Shortcut inserted at the given index.
+	 *
+	 * @param index the index, which may be equal to the size of this List
+	 * @param shortcut the Shortcut
+	 *
+	 * @return the new List
+	 *
+	 * @throws NullPointerException if {@code shortcut == null}
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public PersistentShortcutList plus(int index, Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		Objects.checkIndex(index, size() + 1);
+
+		return new PersistentShortcutList(insert(root, index, shortcut));
+	}
+
+	/**
+	 * Returns a List with the Shortcut at the given index removed.
+	 *
+	 * @param index the index
+	 *
+	 * @return the new List
+	 *
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public PersistentShortcutList minus(int index) {
+		Objects.checkIndex(index, size());
+
+		Node newRoot = remove(root, index);
+		return newRoot == null ? EMPTY : new PersistentShortcutList(newRoot);
+	}
+
+	@Override
+	public Iterator<Shortcut> iterator() {
+		return new PersistentShortcutListIterator();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if ((o instanceof PersistentShortcutList) && (((PersistentShortcutList) o).root == root))
+			return true;
+
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
+	private static Node build(Shortcut[] shortcuts, int from, int to) {
+		if (from == to)
+			return null;
+
+		int middle = (from + to) >>> 1;
+		return Node.of(build(shortcuts, from, middle), shortcuts[middle],
+		        build(shortcuts, middle + 1, to));
+	}
+
+	private static Node set(Node node, int index, Shortcut shortcut) {
+		int leftSize = size(node.left);
+		if (index < leftSize)
+			return Node.of(set(node.left, index, shortcut), node.value, node.right);
+		if (index > leftSize)
+			return Node.of(node.left, node.value, set(node.right, index - leftSize - 1, shortcut));
+		return Node.of(node.left, shortcut, node.right);
+	}
+
+	private static Node insert(Node node, int index, Shortcut shortcut) {
+		if (node == null)
+			return Node.of(null, shortcut, null);
+
+		int leftSize = size(node.left);
+		if (index <= leftSize)
+			return balance(insert(node.left, index, shortcut), node.value, node.right);
+		return balance(node.left, node.value, insert(node.right, index - leftSize - 1, shortcut));
+	}
+
+	private static Node remove(Node node, int index) {
+		int leftSize = size(node.left);
+		if (index < leftSize)
+			return balance(remove(node.left, index), node.value, node.right);
+		if (index > leftSize)
+			return balance(node.left, node.value, remove(node.right, index - leftSize - 1));
+
+		if (node.left == null)
+			return node.right;
+		if (node.right == null)
+			return node.left;
+
+		// the node is replaced by the first node of its right subtree
+		Node first = node.right;
+		while (first.left != null)
+			first = first.left;
+		return balance(node.left, first.value, removeFirst(node.right));
+	}
+
+	private static Node removeFirst(Node node) {
+		if (node.left == null)
+			return node.right;
+		return balance(removeFirst(node.left), node.value, node.right);
+	}
+
+	/*
+	 * Joins two subtrees whose heights differ by at most two under a new node,
+	 * rotating it so that the heights of its subtrees differ by at most one (AVL).
+	 */
+	private static Node balance(Node left, Shortcut value, Node right) {
+		int leftHeight = height(left), rightHeight = height(right);
+
+		if (leftHeight > rightHeight + 1) {
+			if (height(left.left) >= height(left.right))
+				return Node.of(left.left, left.value, Node.of(left.right, value, right));
+
+			Node middle = left.right;
+			return Node.of(Node.of(left.left, left.value, middle.left), middle.value,
+			        Node.of(middle.right, value, right));
+		}
+
+		if (rightHeight > leftHeight + 1) {
+			if (height(right.right) >= height(right.left))
+				return Node.of(Node.of(left, value, right.left), right.value, right.right);
+
+			Node middle = right.left;
+			return Node.of(Node.of(left, value, middle.left), middle.value,
+			        Node.of(middle.right, right.value, right.right));
+		}
+
+		return Node.of(left, value, right);
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static int height(Node node) {
+		return node == null ? 0 : node.height;
+	}
+
+	private static final class Node {
+
+		final Node left, right;
+		final Shortcut value;
+		final int size, height;
+
+		private Node(Node left, Shortcut value, Node right) {
+			this.left = left;
+			this.value = value;
+			this.right = right;
+			this.size = size(left) + 1 + size(right);
+			this.height = Math.max(height(left), height(right)) + 1;
+		}
+
+		static Node of(Node left, Shortcut value, Node right) {
+			return new Node(left, value, right);
+		}
+	}
+
+	// visits the nodes in order, keeping the path to the next one in a stack
+	private class PersistentShortcutListIterator implements Iterator<Shortcut> {
+
+		final Deque<Node> path = new ArrayDeque<>();
+
+		PersistentShortcutListIterator() {
+			pushLeft(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !path.isEmpty();
+		}
+
+		@Override
+		public Shortcut next() {
+			if (path.isEmpty())
+				throw new NoSuchElementException();
+
+			Node node = path.pop();
+			pushLeft(node.right);
+			return node.value;
+		}
+
+		private void pushLeft(Node node) {
+			for (; node != null; node = node.left)
+				path.push(node);
+		}
+	}
+}
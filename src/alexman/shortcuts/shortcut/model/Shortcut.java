@@ -1,16 +1,8 @@
 package alexman.shortcuts.shortcut.model;
 
-import java.awt.event.KeyEvent;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 /**
  * Represents a series of key presses that perform an action.
@@ -20,7 +12,7 @@ import java.util.stream.Stream;
 public class Shortcut {
 
 	private final String action;
-	private final List<List<Integer>> keySequence;
+	private final KeySequence keySequence;
 
 	/**
 	 * Constructs a Shortcut by parsing a String. Calling
@@ -45,9 +37,8 @@ public class Shortcut {
 	}
 
 	/**
-	 * Constructs a Shortcut by using directly the List of List of Integers
-	 * provided. Calling {@link #getKeySequence()} shall return a reference to that
-	 * sequence.
+	 * Constructs a Shortcut by using the List of List of Integers provided. Calling
+	 * {@link #getKeySequenceAsList()} shall return a List equal to that sequence.
 	 * <p>
 	 * To indicate that pressing 'Alt Shift X' followed by 'J' performs the action
 	 * 'Run Java Application', the following Shortcut should be created:
@@ -63,16 +54,21 @@ public class Shortcut {
 	 *         more information, refer to the {@link Parser#isInvalid(int)} method.
 	 */
 	public Shortcut(String action, List<List<Integer>> keySequence) {
+		this(action, KeySequence.of(keySequence));
+	}
 
-		List<Integer> invalidKeyCodes = Parser.getInvalid(keySequence);
-		if (invalidKeyCodes.size() > 0) {
-			throw new IllegalArgumentException(
-			        "The following key codes do not correspond to a Virtual Key Code of the KeyEvent class: "
-			                + invalidKeyCodes);
-		}
-
+	/**
+	 * Constructs a Shortcut by using directly the Key Sequence provided. Calling
+	 * {@link #getKeySequence()} shall return a reference to that sequence.
+	 *
+	 * @param action a description of what the Shortcut will do
+	 * @param keySequence the key presses needed to perform the Shortcut
+	 *
+	 * @throws NullPointerException if {@code keySequence == null}
+	 */
+	public Shortcut(String action, KeySequence keySequence) {
 		this.action = action;
-		this.keySequence = keySequence;
+		this.keySequence = Objects.requireNonNull(keySequence, "keySequence cannot be null");
 	}
 
 	/**
@@ -85,18 +81,30 @@ public class Shortcut {
 	}
 
 	/**
-	 * Returns this Shortcut's key sequence as a List, each item of which contains
-	 * key codes that are to be pressed at the same time. Pressing them at the same
-	 * time means pressing them in order and then releasing them in reverse order.
+	 * Returns this Shortcut's key sequence, each combination of which contains key
+	 * codes that are to be pressed at the same time. Pressing them at the same time
+	 * means pressing them in order and then releasing them in reverse order.
 	 * <p>
 	 * For more information, refer to the {@link Parser#parse(String)} method.
 	 *
 	 * @return the key sequence
 	 */
-	public List<List<Integer>> getKeySequence() {
+	public KeySequence getKeySequence() {
 		return keySequence;
 	}
 
+	/**
+	 * Returns this Shortcut's key sequence as an unmodifiable List, each item of
+	 * which contains key codes that are to be pressed at the same time.
+	 * <p>
+	 * For more information, refer to the {@link KeySequence#asList()} method.
+	 *
+	 * @return the key sequence
+	 */
+	public List<List<Integer>> getKeySequenceAsList() {
+		return keySequence.asList();
+	}
+
 	/**
 	 * Returns this Shortcut's key sequence as a formatted string which can be used
 	 * to create another Shortcut with the same key sequence as this Shortcut.
@@ -117,7 +125,7 @@ public class Shortcut {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(action, keySequence);
+		return (31 * Objects.hashCode(action)) + keySequence.hashCode();
 	}
 
 	@Override
@@ -131,8 +139,8 @@ public class Shortcut {
 	}
 
 	/**
-	 * Defines static methods for parsing strings into lists of lists of key codes
-	 * and vice versa. Additional lower level methods are available.
+	 * Defines static methods for parsing strings into key sequences and vice
+	 * versa. Additional lower level methods are available.
 	 *
 	 * @author Alex Mandelias
 	 */
@@ -142,51 +150,22 @@ public class Shortcut {
 			// don't allow instantiation
 		}
 
-		// https://stackoverflow.com/questions/664896/get-the-vk-int-from-an-arbitrary-char-in-java#answer-665267
-		private static final Map<String, Integer> keyTextToCode = new HashMap<>();
-		private static final Map<Integer, String> keyCodeToText = new HashMap<>();
-
-		// populate both maps with the public static fields of the KeyEvent class
-		static {
-
-			// filter "public static final int VK_..." fields
-			Predicate<Field> isValidField = field -> {
-				int mod = field.getModifiers();
-				return Modifier.isPublic(mod) && Modifier.isStatic(mod)
-				        && Modifier.isFinal(mod) &&
-				        field.getType().equals(int.class) &&
-				        field.getName().startsWith("VK_");
-			};
-
-			// add the information of the filtered fields into the maps
-			Arrays.asList(KeyEvent.class.getDeclaredFields())
-			        .stream()
-			        .filter(isValidField)
-			        .forEach(field -> {
-				        String keyText = field.getName().substring(3).toUpperCase(); // strip 'VK_'
-				        try {
-					        int keyCode = field.getInt(null);
-					        keyTextToCode.put(keyText, keyCode);
-					        keyCodeToText.put(keyCode, keyText);
-				        } catch (IllegalArgumentException | IllegalAccessException e) {
-					        throw new RuntimeException(e);
-				        }
-			        });
-		}
+		// generated ahead of time by KeyTableGenerator, so that no reflection or AWT is needed
+		private static final KeyNames keyNames = new KeyNames(KeyTable.NAMES, KeyTable.CODES);
 
 		/**
-		 * Parses a String to return a valid List of consecutive combinations of key
-		 * codes.
+		 * Parses a String to return a valid Key Sequence of consecutive combinations
+		 * of key codes.
 		 * <p>
 		 * The key sequence defines which keys to press. The combinations of keys are
 		 * separated by a single ' ' character. Each combination of keys is a
 		 * '+'-separated string consisting of names of the public static fields of the
-		 * {@link KeyEvent} class, omitting the "VK_" prefix.
+		 * {@link java.awt.event.KeyEvent} class, omitting the "VK_" prefix.
 		 * <p>
-		 * The resulting List of Lists of Integers, defines which keys to press. Each
-		 * individual List contains the consecutive combinations of keys to be pressed.
+		 * The resulting Key Sequence, defines which keys to press. Each combination
+		 * of the sequence contains the keys to be pressed at the same time.
 		 * Each key code of the combination of keys is a valid key code of the
-		 * {@link KeyEvent} class.
+		 * {@link java.awt.event.KeyEvent} class.
 		 * <p>
 		 * For example, parsing the string {@code "ALT+SHIFT+X J"} returns the
 		 * equivalent of {@code List.of(List.of(18, 16, 88), List.of(74))}.
@@ -201,43 +180,97 @@ public class Shortcut {
 		 *         meaning that there isn't a public static field named
 		 *         {@code VK_<token>}.
 		 */
-		public static List<List<Integer>> parse(String keySequence) {
+		public static KeySequence parse(String keySequence) {
+			return parse(keySequence, 0, keySequence.length());
+		}
 
-			List<String> invalidTokens = Parser.getInvalid(keySequence);
-			if (invalidTokens.size() > 0) {
+		/**
+		 * Same as {@link #parse(String)} but parses only the region
+		 * {@code [start, end)} of the given CharSequence, without copying it.
+		 *
+		 * @param keySequence the CharSequence which contains the key presses
+		 * @param start the index of the first character of the key presses
+		 * @param end the index after the last character of the key presses
+		 *
+		 * @return the key codes for the given key sequence
+		 *
+		 * @throws IllegalArgumentException if any of the tokens of a key combination
+		 *         does not correspond to a Virtual Key Code of the KeyEvent class.
+		 *         The message lists every invalid token along with its position.
+		 * @throws IndexOutOfBoundsException if the region is out of bounds
+		 */
+		public static KeySequence parse(CharSequence keySequence, int start, int end) {
+			Objects.checkFromToIndex(start, end, keySequence.length());
+
+			KeySequence.Builder builder = new KeySequence.Builder();
+			List<InvalidToken> invalidTokens = scan(keySequence, start, end, builder);
+
+			if (invalidTokens != null) {
 				throw new IllegalArgumentException(
 				        "The following tokens do not correspond to a field of the KeyEvent class that is related to virtual key code: "
 				                + invalidTokens);
 			}
 
-			return toWordStream(keySequence).map(
-			        word -> toTokenStream(word).map(keyTextToCode::get)
-			                .toList())
-			        .toList();
+			// every key code comes from the table, there is no need to validate them
+			return builder.buildValidated();
 		}
 
 		/**
-		 * Formats the given List of combinations of key codes into a human-readable
-		 * String, which, when parsed, returns a List equal to the given one.
+		 * Formats the given Key Sequence into a human-readable String, which, when
+		 * parsed, returns a Key Sequence equal to the given one.
 		 * <p>
-		 * For more information about the contents of the list and about the format of
-		 * the string, refer to the {@link Parser#parse(String)} method.
+		 * For more information about the contents of the sequence and about the
+		 * format of the string, refer to the {@link Parser#parse(String)} method.
 		 *
 		 * @param keySequence the key codes to format into a human-readable String.
 		 *
 		 * @return the human-readable String which describes the given key codes
 		 */
-		public static String format(List<List<Integer>> keySequence) {
+		public static String format(KeySequence keySequence) {
+			return format(keySequence, new StringBuilder()).toString();
+		}
 
-			List<Integer> invalidKeyCodes = Parser.getInvalid(keySequence);
-			if (invalidKeyCodes.size() > 0) {
-				throw new IllegalArgumentException(
-				        "The following key codes do not correspond to a Virtual Key Code of the KeyEvent class: "
-				                + invalidKeyCodes);
+		/**
+		 * Same as {@link #format(KeySequence)} but appends the human-readable String
+		 * to the given StringBuilder instead.
+		 *
+		 * @param keySequence the key codes to format into a human-readable String.
+		 * @param sb the StringBuilder to which to append the String
+		 *
+		 * @return the StringBuilder
+		 */
+		public static StringBuilder format(KeySequence keySequence, StringBuilder sb) {
+			for (int chord = 0; chord < keySequence.chordCount(); chord++) {
+				if (chord > 0)
+					sb.append(wordSplitString);
+
+				for (int i = 0; i < keySequence.chordLength(chord); i++) {
+					if (i > 0)
+						sb.append(tokenSplitString);
+
+					sb.append(keyNames.nameOf(keySequence.keyCode(chord, i)));
+				}
 			}
 
-			return fromWordStream(keySequence.stream().map(
-			        wordList -> fromTokenStream(wordList.stream().map(keyCodeToText::get))));
+			return sb;
+		}
+
+		/**
+		 * Formats the given List of combinations of key codes into a human-readable
+		 * String, which, when parsed, returns a Key Sequence equal to the given one.
+		 *
+		 * @param keySequence the key codes to format into a human-readable String.
+		 *
+		 * @return the human-readable String which describes the given key codes
+		 *
+		 * @throws IllegalArgumentException if any of the key codes are invalid. For
+		 *         more information, refer to the {@link Parser#isInvalid(int)}
+		 *         method.
+		 *
+		 * @see #format(KeySequence)
+		 */
+		public static String format(List<List<Integer>> keySequence) {
+			return format(KeySequence.of(keySequence));
 		}
 
 		/**
@@ -248,12 +281,26 @@ public class Shortcut {
 		 * @return a list of the invalid tokens
 		 *
 		 * @see #isInvalid(String)
+		 * @see #getInvalidTokens(CharSequence)
 		 */
 		public static List<String> getInvalid(String keySequence) {
-			return toWordStream(keySequence)
-			        .flatMap(Parser::toTokenStream)
-			        .filter(Parser::isInvalid)
-			        .toList();
+			return getInvalidTokens(keySequence).stream().map(InvalidToken::getToken).toList();
+		}
+
+		/**
+		 * Returns the invalid tokens of the key sequence along with their position in
+		 * it. This method is meant to be used for validating user input, therefore it
+		 * only allocates memory for the invalid tokens.
+		 *
+		 * @param keySequence the key sequence from which to extract the invalid tokens
+		 *
+		 * @return a list of the invalid tokens, empty if there are none
+		 *
+		 * @see #isInvalid(String)
+		 */
+		public static List<InvalidToken> getInvalidTokens(CharSequence keySequence) {
+			List<InvalidToken> invalidTokens = scan(keySequence, 0, keySequence.length(), null);
+			return invalidTokens == null ? List.of() : invalidTokens;
 		}
 
 		/**
@@ -282,7 +329,7 @@ public class Shortcut {
 		 * @return {@code true} if the token is valid, {@code false} otherwise
 		 */
 		public static boolean isValid(String token) {
-			return keyTextToCode.containsKey(token);
+			return keyNames.codeOf(token, 0, token.length()) != KeyNames.NO_KEY_CODE;
 		}
 
 		/**
@@ -306,7 +353,17 @@ public class Shortcut {
 		 * @return {@code true} if the key code is valid, {@code false} otherwise
 		 */
 		public static boolean isValid(int keyCode) {
-			return keyCodeToText.containsKey(keyCode);
+			return keyNames.nameOf(keyCode) != null;
+		}
+
+		/**
+		 * Returns every distinct Virtual Key Code of the KeyEvent class, that is every
+		 * key code for which {@link #isValid(int)} returns {@code true}.
+		 *
+		 * @return a new array with the key codes, in ascending order
+		 */
+		public static int[] getKeyCodes() {
+			return keyNames.codes();
 		}
 
 		/**
@@ -320,23 +377,85 @@ public class Shortcut {
 			return !isValid(keyCode);
 		}
 
-		private static final String wordSplitString = " ";
-		private static final String tokenSplitString = "+";
+		/**
+		 * A token of a key sequence which does not correspond to a Virtual Key Code,
+		 * along with its position in the key sequence.
+		 *
+		 * @author Alex Mandelias
+		 */
+		public static final class InvalidToken {
 
-		private static Stream<String> toWordStream(String keySequence) {
-			return Arrays.asList(keySequence.split(Pattern.quote(wordSplitString))).stream();
-		}
+			private final String token;
+			private final int position;
 
-		private static Stream<String> toTokenStream(String word) {
-			return Arrays.asList(word.split(Pattern.quote(tokenSplitString))).stream();
-		}
+			private InvalidToken(String token, int position) {
+				this.token = token;
+				this.position = position;
+			}
 
-		private static String fromWordStream(Stream<String> words) {
-			return String.join(wordSplitString, words.toList());
+			/**
+			 * Returns the invalid token.
+			 *
+			 * @return the token
+			 */
+			public String getToken() {
+				return token;
+			}
+
+			/**
+			 * Returns the index of the first character of the token in the key sequence.
+			 *
+			 * @return the position
+			 */
+			public int getPosition() {
+				return position;
+			}
+
+			@Override
+			public String toString() {
+				return String.format("'%s' at %d", token, position);
+			}
 		}
 
-		private static String fromTokenStream(Stream<String> tokens) {
-			return String.join(tokenSplitString, tokens.toList());
+		private static final char wordSeparator = ' ';
+		private static final char tokenSeparator = '+';
+
+		private static final String wordSplitString = String.valueOf(wordSeparator);
+		private static final String tokenSplitString = String.valueOf(tokenSeparator);
+
+		/*
+		 * Scans the region [start, end) of the key sequence in a single pass. Valid
+		 * key codes are added to the builder, if it isn't null. Returns null if there
+		 * are no invalid tokens, so that no memory is allocated for valid sequences.
+		 */
+		private static List<InvalidToken> scan(CharSequence keySequence, int start, int end,
+		        KeySequence.Builder builder) {
+			List<InvalidToken> invalidTokens = null;
+
+			int tokenStart = start;
+			for (int i = start; i <= end; i++) {
+				char c = i == end ? wordSeparator : keySequence.charAt(i);
+				if ((c != wordSeparator) && (c != tokenSeparator))
+					continue;
+
+				int keyCode = keyNames.codeOf(keySequence, tokenStart, i);
+				if (keyCode == KeyNames.NO_KEY_CODE) {
+					if (invalidTokens == null)
+						invalidTokens = new ArrayList<>();
+
+					String token = keySequence.subSequence(tokenStart, i).toString();
+					invalidTokens.add(new InvalidToken(token, tokenStart - start));
+				} else if (builder != null) {
+					builder.key(keyCode);
+				}
+
+				if ((c == wordSeparator) && (builder != null))
+					builder.endChord();
+
+				tokenStart = i + 1;
+			}
+
+			return invalidTokens;
 		}
 	}
 }
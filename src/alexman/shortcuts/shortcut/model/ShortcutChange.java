@@ -0,0 +1,139 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.util.List;
+
+/**
+ * A change to the Shortcuts of a model, published by a
+ * {@link ShortcutChangePublisher}. Every change has a version, which is greater
+ * than the version of every change published before it, and concerns a range
+ * of rows of the model.
+ * <p>
+ * Changes carry the Shortcuts they concern, so that subscribers don't have to
+ * read the model, which may have changed again by the time a change is
+ * delivered to them.
+ *
+ * @author Alex Mandelias
+ */
+public final class ShortcutChange {
+
+	/**
+	 * The types of changes.
+	 *
+	 * @author Alex Mandelias
+	 */
+	public enum Type {
+
+		/** Shortcuts were inserted in the rows of the change */
+		ADDED,
+
+		/** The Shortcuts in the rows of the change were removed */
+		REMOVED,
+
+		/** The Shortcuts in the rows of the change were replaced by others */
+		REPLACED,
+
+		/**
+		 * The Shortcuts changed in some other way, possibly all of them. The change
+		 * carries every Shortcut of the model, so that subscribers can start over.
+		 */
+		RELOADED;
+	}
+
+	private final Type type;
+	private final long version;
+	private final int index0, index1;
+	private final List<Shortcut> shortcuts, previous;
+
+	private ShortcutChange(Type type, long version, int index0, int index1,
+	        List<Shortcut> shortcuts, List<Shortcut> previous) {
+		this.type = type;
+		this.version = version;
+		this.index0 = index0;
+		this.index1 = index1;
+		this.shortcuts = List.copyOf(shortcuts);
+		this.previous = List.copyOf(previous);
+	}
+
+	static ShortcutChange added(long version, int index, List<Shortcut> added) {
+		return new ShortcutChange(Type.ADDED, version, index, index + added.size() - 1, added,
+		        List.of());
+	}
+
+	static ShortcutChange removed(long version, int index, List<Shortcut> removed) {
+		return new ShortcutChange(Type.REMOVED, version, index, index + removed.size() - 1,
+		        removed, List.of());
+	}
+
+	static ShortcutChange replaced(long version, int index, List<Shortcut> previous,
+	        List<Shortcut> replacements) {
+		return new ShortcutChange(Type.REPLACED, version, index,
+		        index + replacements.size() - 1, replacements, previous);
+	}
+
+	static ShortcutChange reloaded(long version, int previousSize, List<Shortcut> shortcuts) {
+		return new ShortcutChange(Type.RELOADED, version, 0,
+		        Math.max(0, Math.max(previousSize, shortcuts.size()) - 1), shortcuts, List.of());
+	}
+
+	/**
+	 * Returns the type of this Change.
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the version of the model after this Change.
+	 *
+	 * @return the version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the first row of this Change.
+	 *
+	 * @return the index of the row
+	 */
+	public int getIndex0() {
+		return index0;
+	}
+
+	/**
+	 * Returns the last row of this Change, inclusive. For {@code RELOADED}
+	 * changes the rows span the model both before and after the change.
+	 *
+	 * @return the index of the row
+	 */
+	public int getIndex1() {
+		return index1;
+	}
+
+	/**
+	 * Returns the Shortcuts of this Change: the added, removed or new Shortcuts,
+	 * or every Shortcut of the model for {@code RELOADED} changes.
+	 *
+	 * @return an unmodifiable List with the Shortcuts
+	 */
+	public List<Shortcut> getShortcuts() {
+		return shortcuts;
+	}
+
+	/**
+	 * Returns the Shortcuts which were replaced by a {@code REPLACED} change.
+	 *
+	 * @return an unmodifiable List with the Shortcuts, which is empty for other
+	 *         types of changes
+	 */
+	public List<Shortcut> getPrevious() {
+		return previous;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s v%d [%d, %d]", type, version, index0, index1);
+	}
+}
@@ -0,0 +1,282 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the {@link ShortcutChange changes} of a model to any number of
+ * {@link Flow.Subscriber subscribers}. Every subscriber is given its own
+ * Executor, on which it is notified, and its own bounded buffer, so that a slow
+ * subscriber neither delays the model nor the other subscribers.
+ * <p>
+ * Subscribers receive changes only as they {@link Flow.Subscription#request
+ * request} them. When the buffer of a subscriber fills up, the changes in it
+ * are dropped and replaced by a single {@code RELOADED} change with every
+ * Shortcut of the model, from which the subscriber can start over. Therefore
+ * subscribers never block the model and always catch up.
+ * <p>
+ * Subscribers which are notified on the thread which modifies the model, with
+ * an Executor such as {@code Runnable::run}, are notified before the
+ * modification returns, as {@code ListDataListener}s are.
+ *
+ * @author Alex Mandelias
+ */
+public class ShortcutChangePublisher implements Flow.Publisher<ShortcutChange> {
+
+	/** The size of the buffer of subscribers which don't specify one */
+	public static final int DEFAULT_BUFFER_SIZE = Flow.defaultBufferSize();
+
+	private final Supplier<ShortcutChange> reload;
+	private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructs a Shortcut Change Publisher.
+	 *
+	 * @param reload supplies a {@code RELOADED} change with the current Shortcuts
+	 *        of the model, for subscribers whose buffer is full. It is called on
+	 *        the thread which publishes changes.
+	 */
+	public ShortcutChangePublisher(Supplier<ShortcutChange> reload) {
+		this.reload = Objects.requireNonNull(reload, "reload cannot be null");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The subscriber is notified on the common fork/join pool and has a buffer of
+	 * {@link #DEFAULT_BUFFER_SIZE} changes.
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super ShortcutChange> subscriber) {
+		subscribe(subscriber, ForkJoinPool.commonPool(), DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Adds a subscriber, which is notified on the given Executor and whose buffer
+	 * has the given size. The subscriber receives the changes published after
+	 * this method is called.
+	 *
+	 * @param subscriber the subscriber
+	 * @param executor the Executor on which the subscriber is notified
+	 * @param bufferSize the maximum number of changes which are kept for the
+	 *        subscriber until it requests them
+	 *
+	 * @throws NullPointerException if {@code subscriber == null} or
+	 *         {@code executor == null}
+	 * @throws IllegalArgumentException if {@code bufferSize <= 0}
+	 */
+	public void subscribe(Flow.Subscriber<? super ShortcutChange> subscriber, Executor executor,
+	        int bufferSize) {
+		Objects.requireNonNull(subscriber, "subscriber cannot be null");
+		Objects.requireNonNull(executor, "executor cannot be null");
+		if (bufferSize <= 0)
+			throw new IllegalArgumentException("bufferSize must be positive");
+
+		ChangeSubscription subscription = new ChangeSubscription(subscriber, executor,
+		        bufferSize);
+		subscriptions.add(subscription);
+		subscription.signal();
+	}
+
+	/**
+	 * Returns the number of subscribers which haven't cancelled their
+	 * subscription.
+	 *
+	 * @return the number of subscribers
+	 */
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * Publishes a change to every subscriber.
+	 *
+	 * @param change the change
+	 *
+	 * @throws NullPointerException if {@code change == null}
+	 */
+	public void submit(ShortcutChange change) {
+		Objects.requireNonNull(change, "change cannot be null");
+
+		ShortcutChange reloaded = null;
+		for (ChangeSubscription subscription : subscriptions) {
+			if (!subscription.offer(change)) {
+				// the same reload serves every subscriber which is behind
+				if (reloaded == null)
+					reloaded = reload.get();
+				subscription.resync(reloaded);
+			}
+
+			subscription.signal();
+		}
+	}
+
+	/**
+	 * Completes every subscription, after the subscribers have received the
+	 * changes in their buffers, and removes the subscribers.
+	 */
+	public void close() {
+		for (ChangeSubscription subscription : subscriptions) {
+			subscription.complete();
+			subscription.signal();
+		}
+		subscriptions.clear();
+	}
+
+	/*
+	 * The buffer and the demand of a subscriber. The subscriber is notified by a
+	 * single task at a time, which is scheduled by signal() whenever there may be
+	 * something to deliver and runs until there is nothing left. signal() is
+	 * never called while holding the lock, since the task may run on the
+	 * calling thread.
+	 */
+	private final class ChangeSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super ShortcutChange> subscriber;
+		private final Executor executor;
+		private final int bufferSize;
+
+		// guarded by this
+		private final Queue<ShortcutChange> buffer = new ArrayDeque<>();
+		private long requested = 0;
+		private boolean completed = false, cancelled = false;
+		private Throwable error;
+
+		// only accessed by the task which notifies the subscriber
+		private boolean subscribed = false;
+
+		// the number of times the subscriber was signalled since the task started
+		private final AtomicInteger signals = new AtomicInteger();
+
+		ChangeSubscription(Flow.Subscriber<? super ShortcutChange> subscriber,
+		        Executor executor, int bufferSize) {
+			this.subscriber = subscriber;
+			this.executor = executor;
+			this.bufferSize = bufferSize;
+		}
+
+		@Override
+		public void request(long n) {
+			synchronized (this) {
+				if (cancelled)
+					return;
+
+				if (n <= 0) {
+					error = new IllegalArgumentException(
+					        String.format("Requested %d changes, must be positive", n));
+				} else {
+					requested += n;
+					if (requested < 0)
+						requested = Long.MAX_VALUE; // unbounded demand
+				}
+			}
+
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (this) {
+				cancelled = true;
+				buffer.clear();
+			}
+
+			subscriptions.remove(this);
+		}
+
+		// returns false if the buffer is full
+		synchronized boolean offer(ShortcutChange change) {
+			if (cancelled || completed)
+				return true;
+
+			if (buffer.size() == bufferSize)
+				return false;
+
+			buffer.add(change);
+			return true;
+		}
+
+		synchronized void resync(ShortcutChange reloaded) {
+			buffer.clear();
+			buffer.add(reloaded);
+		}
+
+		synchronized void complete() {
+			completed = true;
+		}
+
+		void signal() {
+			if (signals.getAndIncrement() == 0)
+				executor.execute(this::drain);
+		}
+
+		private void drain() {
+			int missed = 1;
+			do {
+				if (!subscribed) {
+					subscribed = true;
+					try {
+						subscriber.onSubscribe(this);
+					} catch (Throwable t) {
+						fail(t);
+						return;
+					}
+				}
+
+				while (true) {
+					ShortcutChange next;
+					Throwable failure;
+					boolean done;
+					synchronized (this) {
+						if (cancelled)
+							return;
+
+						failure = error;
+						done = completed && buffer.isEmpty();
+						next = (failure == null) && !done && (requested > 0) ? buffer.poll() : null;
+						if ((next != null) && (requested != Long.MAX_VALUE))
+							requested--;
+					}
+
+					if (failure != null) {
+						fail(failure);
+						return;
+					}
+
+					if (done) {
+						synchronized (this) {
+							cancelled = true;
+						}
+						subscriber.onComplete();
+						return;
+					}
+
+					if (next == null)
+						break;
+
+					try {
+						subscriber.onNext(next);
+					} catch (Throwable t) {
+						fail(t);
+						return;
+					}
+				}
+
+				missed = signals.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void fail(Throwable t) {
+			cancel();
+			subscriber.onError(t);
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * A write-ahead journal of the edits of a shortcut file, kept next to it, so
+ * that edits which weren't saved survive a crash.
+ * <p>
+ * Every Shortcut added to or removed from the model of the file is appended to
+ * the journal as a line with its row, which is flushed immediately. A Shortcut
+ * replaced by another one in the same row is appended as two lines, the first
+ * of which also has the row, which are flushed together. Saving appends a mark,
+ * forces the journal to the disk and folds the saved edits into the file before
+ * returning, so that anything which reads the file sees what was saved: the
+ * Shortcuts are written to a temporary file, which is moved over the file, and
+ * the journal is rewritten with the edits after the mark. When the file is
+ * opened again, the journal is {@link #replay(IShortcutModel) replayed} on it,
+ * which also folds the saved edits of a session that stopped before folding
+ * them.
+ * <p>
+ * Saving rewrites the whole file, so it takes time linear in the number of
+ * Shortcuts, as writing the file without a journal does. The journal only
+ * protects the edits between saves.
+ * <p>
+ * Nothing is written next to the file until the first edit is appended, and
+ * the journal is deleted whenever it has no edits left, so only files with
+ * edits which weren't saved have a journal.
+ * <p>
+ * The journal starts with the hash of the contents of the file it applies to,
+ * so it is never replayed on another version of the file, even if the editor
+ * stops after moving the folded file but before moving its journal. A journal
+ * whose file was changed by something else is discarded.
+ *
+ * @author Alex Mandelias
+ */
+public class ShortcutJournal implements Closeable {
+
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final String NEW_SUFFIX = ".new";
+
+	private static final char HEADER = '@', ADDED = '+', REMOVED = '-', SAVED = '=';
+	private static final char REPLACED = '~', REPLACEMENT = '>';
+
+	private final Path file, journal;
+	private final IShortcutFormatter sf;
+
+	// guarded by this: the hash of the file, the records since the file was last
+	// folded and the appending writer
+	private long hash;
+	private final List<String> records = new ArrayList<>();
+	private FileChannel channel;
+	private Writer writer;
+	private boolean closed = false;
+
+	/**
+	 * Opens the journal of a shortcut file. The journal is only read; it is
+	 * created or rewritten when the first edit is appended.
+	 *
+	 * @param file the path of the file
+	 * @param sf the Formatter which formats the records and writes the file
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file or the
+	 *         journal, or while writing the journal
+	 * @throws NullPointerException if any of the arguments is {@code null}
+	 */
+	public ShortcutJournal(Path file, IShortcutFormatter sf) throws IOException {
+		this.file = Objects.requireNonNull(file, "file cannot be null").toAbsolutePath()
+		        .normalize();
+		this.journal = sibling(this.file, JOURNAL_SUFFIX);
+		this.sf = Objects.requireNonNull(sf, "Shortcut Formatter cannot be null");
+
+		hash = contentHash(this.file);
+
+		// the editor may have stopped after moving the folded file but before
+		// moving its journal. The journal which matches the file is used, and the
+		// other one is replaced when the first edit is appended
+		for (Path path : List.of(sibling(journal, NEW_SUFFIX), journal)) {
+			List<String> lines = Files.exists(path) ? readJournal(path) : List.of();
+			if (matches(lines)) {
+				records.addAll(lines.subList(1, lines.size()));
+				break;
+			}
+		}
+
+		// a replacement whose second line wasn't written didn't happen
+		int last = records.size() - 1;
+		if ((last >= 0) && !records.get(last).isEmpty() && (records.get(last).charAt(0) == REPLACED))
+			records.remove(last);
+	}
+
+	/**
+	 * Applies the records of this journal to the model of the file, which must
+	 * have just been loaded. The records which were saved but not yet folded into
+	 * the file are then folded into it.
+	 *
+	 * @param sm the model into which the file was loaded
+	 *
+	 * @return the Shortcuts of the file when it was last saved, before the edits
+	 *         which weren't saved
+	 *
+	 * @throws IOException if an IO Exception occurs while folding the records
+	 * @throws IllegalArgumentException if a record cannot be parsed or applied
+	 */
+	public synchronized List<Shortcut> replay(IShortcutModel sm) throws IOException {
+		int saved = records.lastIndexOf(String.valueOf(SAVED)) + 1;
+
+		sm.batch(model -> apply(model, records.subList(0, saved)));
+		List<Shortcut> savedShortcuts = List.copyOf(sm.getShortcuts());
+		sm.batch(model -> apply(model, records.subList(saved, records.size())));
+
+		if (saved > 0)
+			fold(savedShortcuts, saved);
+
+		return savedShortcuts;
+	}
+
+	/**
+	 * Appends the insertion of a Shortcut in a row to this journal.
+	 *
+	 * @param index the row of the Shortcut
+	 * @param shortcut the added Shortcut
+	 *
+	 * @throws UncheckedIOException if an IO Exception occurs while writing the
+	 *         journal
+	 * @throws IllegalStateException if this journal is closed
+	 */
+	public void add(int index, Shortcut shortcut) {
+		append(ADDED + " " + index + " " + sf.format(shortcut));
+	}
+
+	/**
+	 * Appends the removal of the Shortcut in a row to this journal.
+	 *
+	 * @param index the row of the Shortcut
+	 * @param shortcut the removed Shortcut
+	 *
+	 * @throws UncheckedIOException if an IO Exception occurs while writing the
+	 *         journal
+	 * @throws IllegalStateException if this journal is closed
+	 */
+	public void remove(int index, Shortcut shortcut) {
+		append(REMOVED + " " + index + " " + sf.format(shortcut));
+	}
+
+	/**
+	 * Appends the replacement of a Shortcut by another one, in the same row, to
+	 * this journal.
+	 *
+	 * @param index the row of the Shortcut
+	 * @param oldShortcut the replaced Shortcut
+	 * @param newShortcut the Shortcut which replaced it
+	 *
+	 * @throws UncheckedIOException if an IO Exception occurs while writing the
+	 *         journal
+	 * @throws IllegalStateException if this journal is closed
+	 */
+	public void replace(int index, Shortcut oldShortcut, Shortcut newShortcut) {
+		append(REPLACED + " " + index + " " + sf.format(oldShortcut),
+		        REPLACEMENT + " " + sf.format(newShortcut));
+	}
+
+	/**
+	 * Marks the edits in this journal as saved, forces it to the disk and then
+	 * writes the given Shortcuts to the file. If writing the file fails, the
+	 * edits are still saved in the journal and are folded into the file when it
+	 * is opened again.
+	 *
+	 * @param shortcuts the Shortcuts of the model after the edits in the journal
+	 *
+	 * @throws IOException if an IO Exception occurs while writing the journal or
+	 *         the file
+	 * @throws IllegalStateException if this journal is closed
+	 */
+	public synchronized void save(List<Shortcut> shortcuts) throws IOException {
+		Objects.requireNonNull(shortcuts, "shortcuts cannot be null");
+
+		write(String.valueOf(SAVED));
+		channel.force(false);
+
+		fold(shortcuts, records.size());
+	}
+
+	/**
+	 * Removes the edits after the last save from this journal, so that they are
+	 * not replayed. The journal is deleted if it has no edits left.
+	 *
+	 * @throws IOException if an IO Exception occurs while writing the journal
+	 */
+	public synchronized void discardUnsaved() throws IOException {
+		int saved = records.lastIndexOf(String.valueOf(SAVED)) + 1;
+		if (saved == records.size())
+			return;
+
+		records.subList(saved, records.size()).clear();
+		rewrite();
+	}
+
+	/**
+	 * Closes this journal. Edits which were saved but couldn't be folded into the
+	 * file are folded when it is opened again.
+	 *
+	 * @throws IOException if an IO Exception occurs while closing the journal
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		closeWriter();
+	}
+
+	private void apply(IShortcutModel sm, List<String> toApply) {
+		// the row of a REPLACED record, until its REPLACEMENT record
+		int replacedRow = -1;
+		for (String record : toApply) {
+			char type = record.isEmpty() ? 0 : record.charAt(0);
+			if ((replacedRow != -1) != (type == REPLACEMENT))
+				throw invalid(record);
+
+			if (type == SAVED)
+				continue;
+
+			if (record.length() < 2)
+				throw invalid(record);
+
+			// every record but a replacement starts with the row
+			String value = record.substring(2);
+			int row = -1;
+			if (type != REPLACEMENT) {
+				int space = value.indexOf(' ');
+				if (space == -1)
+					throw invalid(record);
+				row = Integer.parseInt(value.substring(0, space));
+				value = value.substring(space + 1);
+			}
+
+			Shortcut shortcut = sf.parse(value);
+			List<Shortcut> shortcuts = sm.getShortcuts();
+			if (type == ADDED) {
+				if ((row < 0) || (row > shortcuts.size()))
+					throw invalid(record);
+				sm.insertShortcut(row, shortcut);
+			} else if (type == REMOVED) {
+				if ((row < 0) || (row >= shortcuts.size()) || !shortcuts.get(row).equals(shortcut))
+					throw invalid(record);
+				sm.removeShortcut(row);
+			} else if (type == REPLACED) {
+				if ((row < 0) || (row >= shortcuts.size()) || !shortcuts.get(row).equals(shortcut))
+					throw invalid(record);
+				replacedRow = row;
+			} else if (type == REPLACEMENT) {
+				sm.replaceShortcut(replacedRow, shortcut);
+				replacedRow = -1;
+			} else {
+				throw invalid(record);
+			}
+		}
+	}
+
+	private IllegalArgumentException invalid(String record) {
+		return new IllegalArgumentException(
+		        String.format("Invalid record %s in journal %s", record, journal));
+	}
+
+	private synchronized void append(String... toAppend) {
+		try {
+			write(toAppend);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void write(String... toWrite) throws IOException {
+		if (closed)
+			throw new IllegalStateException(String.format("Journal %s is closed", journal));
+
+		// the journal on the disk may be missing, stale or of another file
+		if (writer == null) {
+			records.addAll(List.of(toWrite));
+			try {
+				rewrite();
+			} catch (IOException e) {
+				records.subList(records.size() - toWrite.length, records.size()).clear();
+				throw e;
+			}
+			return;
+		}
+
+		for (String record : toWrite) {
+			writer.write(record);
+			writer.write('\n');
+		}
+		writer.flush();
+		records.addAll(List.of(toWrite));
+	}
+
+	/*
+	 * Writes the Shortcuts saved by the first records to the file and then keeps
+	 * only the records after them. A failure leaves the file and the journal as
+	 * they were, so the records are folded the next time.
+	 */
+	private void fold(List<Shortcut> shortcuts, int saved) throws IOException {
+		Path newFile = sibling(file, NEW_SUFFIX);
+		try {
+			long newHash = writeFile(newFile, shortcuts);
+
+			// without records left, the journal is deleted after the file is moved,
+			// and until then it doesn't match the new file
+			List<String> left = records.subList(saved, records.size());
+			Path newJournal = sibling(journal, NEW_SUFFIX);
+			if (!left.isEmpty())
+				writeJournal(newJournal, newHash, left);
+
+			// the journal of the new file is moved last, see the constructor
+			boolean open = writer != null;
+			closeWriter();
+			try {
+				move(newFile, file);
+				if (left.isEmpty())
+					Files.deleteIfExists(journal);
+				else
+					move(newJournal, journal);
+				hash = newHash;
+				records.subList(0, saved).clear();
+			} finally {
+				if (open && !records.isEmpty())
+					openWriter();
+			}
+		} catch (IOException e) {
+			try {
+				Files.deleteIfExists(newFile);
+			} catch (IOException e1) {
+				e.addSuppressed(e1);
+			}
+			throw e;
+		}
+	}
+
+	// replaces the journal on the disk with the records, or deletes it without any
+	private void rewrite() throws IOException {
+		closeWriter();
+		if (records.isEmpty()) {
+			Files.deleteIfExists(journal);
+			Files.deleteIfExists(sibling(journal, NEW_SUFFIX));
+			return;
+		}
+
+		Path newJournal = sibling(journal, NEW_SUFFIX);
+		writeJournal(newJournal, hash, records);
+		move(newJournal, journal);
+		if (!closed)
+			openWriter();
+	}
+
+	private void openWriter() throws IOException {
+		channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+	}
+
+	private void closeWriter() throws IOException {
+		if (writer != null) {
+			writer.close();
+			writer = null;
+			channel = null;
+		}
+	}
+
+	private boolean matches(List<String> lines) {
+		return !lines.isEmpty() && lines.get(0).equals(header(hash));
+	}
+
+	private long writeFile(Path path, List<Shortcut> shortcuts) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (Writer w = new BufferedWriter(new OutputStreamWriter(
+		        new CheckedOutputStream(Files.newOutputStream(path), crc),
+		        Charset.defaultCharset()))) {
+			for (Shortcut s : shortcuts) {
+				w.write(sf.format(s));
+				w.write(System.lineSeparator());
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static void writeJournal(Path path, long hash, List<String> records)
+	        throws IOException {
+		try (Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			w.write(header(hash));
+			w.write('\n');
+			for (String record : records) {
+				w.write(record);
+				w.write('\n');
+			}
+		}
+	}
+
+	// the complete lines of a journal, without a partially written last one
+	private static List<String> readJournal(Path path) throws IOException {
+		String contents = Files.readString(path, StandardCharsets.UTF_8);
+
+		List<String> lines = new ArrayList<>();
+		for (int start = 0, end; (end = contents.indexOf('\n', start)) != -1; start = end + 1)
+			lines.add(contents.substring(start, end));
+		return lines;
+	}
+
+	private static String header(long hash) {
+		return HEADER + " " + Long.toHexString(hash);
+	}
+
+	private static Path sibling(Path path, String suffix) {
+		return path.resolveSibling(path.getFileName() + suffix);
+	}
+
+	private static long contentHash(Path file) throws IOException {
+		CRC32C crc = new CRC32C();
+		byte[] buffer = new byte[1 << 16];
+		try (InputStream in = Files.newInputStream(file)) {
+			for (int read; (read = in.read(buffer)) != -1;)
+				crc.update(buffer, 0, read);
+		}
+		return crc.getValue();
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+			        StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
@@ -3,13 +3,22 @@ package alexman.shortcuts.shortcut.model;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.swing.ListModel;
 import javax.swing.event.ListDataEvent;
@@ -21,16 +30,54 @@ import alexman.shortcuts.shortcut.IShortcutFormatter;
  * Implements the ShortcutModel interface, which also acts as a
  * {@code ListModel} to use with a JList, which manages a list of Shortcuts. The
  * model can store a ShortcutFormatter for uniform load and store operations.
+ * <p>
+ * The Shortcuts are stored in an array, so that they can be accessed by index
+ * in constant time, along with a map from each distinct Shortcut to the number
+ * of its occurrences and the index of its first occurrence. Removals and
+ * insertions only mark the indexes after the changed one as stale, and they
+ * are recomputed the next time they are needed.
+ * <p>
+ * The Shortcuts are also indexed by their action and by the canonical form of
+ * their key sequence, so that they can be looked up by either in constant time.
+ * <p>
+ * The bulk operations and {@link #batch(Consumer)} take linear time and notify
+ * the listeners with a single event, no matter how many Shortcuts they change,
+ * except for removals, which fire one event per range of adjacent removed
+ * Shortcuts so that a JList keeps its selection on the remaining ones.
+ * <p>
+ * Every change is published as a versioned {@link ShortcutChange} by the
+ * model's {@link #getChangePublisher() publisher}, whose subscribers may be
+ * notified asynchronously. The {@code ListDataListener}s are notified by one of
+ * its subscribers, on the thread which modifies the model.
  *
  * @author Alex Mandelias
  */
 public class ShortcutModel implements IShortcutModel, ListModel<Shortcut>, Iterable<Shortcut> {
 
-	private final List<Shortcut> shortcuts = new LinkedList<>();
+	private final List<Shortcut> shortcuts = new ArrayList<>();
+	private final Map<Shortcut, Slot> slots = new HashMap<>();
+
+	// the first index of every Shortcut before this index is up to date
+	private int indexedTo = 0;
+
+	private final Map<String, List<Shortcut>> byAction = new HashMap<>();
+	private final Map<KeySequence, List<Shortcut>> byKeySequence = new HashMap<>();
+
 	private IShortcutFormatter sf;
 
 	private final Set<ListDataListener> listDataListeners = new HashSet<>();
 
+	private long version = 0;
+	private final ShortcutChangePublisher publisher = new ShortcutChangePublisher(
+	        () -> ShortcutChange.reloaded(version, shortcuts.size(), shortcuts));
+
+	// the events of nested batches are coalesced into one, fired at the end. If
+	// the batch only removed Shortcuts, they are kept by their index before it
+	private int batchDepth = 0;
+	private boolean batchChanged;
+	private int batchSize;
+	private NavigableMap<Integer, Shortcut> batchRemoved;
+
 	/**
 	 * Constructs a Shortcut Model with no Formatter. It is necessary to call
 	 * {@link #setFormatter(IShortcutFormatter)} before attempting to call any of the
@@ -50,6 +97,28 @@ public class ShortcutModel implements IShortcutModel, ListModel<Shortcut>, Itera
 	 */
 	public ShortcutModel(IShortcutFormatter shortcutFormatter) {
 		this.sf = shortcutFormatter;
+		publisher.subscribe(new ListDataBridge(), Runnable::run, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the publisher of the changes of this model. Subscribers which are
+	 * notified on other threads may safely read the Shortcuts of the changes, but
+	 * not this model, which isn't thread-safe.
+	 *
+	 * @return the publisher
+	 */
+	public ShortcutChangePublisher getChangePublisher() {
+		return publisher;
+	}
+
+	/**
+	 * Returns the version of this model, which is the version of the last change
+	 * published.
+	 *
+	 * @return the version
+	 */
+	public long getVersion() {
+		return version;
 	}
 
 	@Override
@@ -67,20 +136,46 @@ public class ShortcutModel implements IShortcutModel, ListModel<Shortcut>, Itera
 		Objects.requireNonNull(reader, "reader cannot be null");
 		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
 
-		shortcuts.clear();
+		return loaded(ShortcutReader.read(reader, shortcutFormatter));
+	}
 
-		String nextLine;
-		while ((nextLine = ShortcutModel.readLine(reader)) != null) {
-			Shortcut s = shortcutFormatter.parse(nextLine);
-			if (s != null) {
-				shortcuts.add(s);
-			}
-		}
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation maps the file into memory in large windows, decodes it
+	 * and hands each line to the Formatter without creating a String for it. Files
+	 * written by {@link #storeBinary(Path)} are detected by their header and are
+	 * decoded without the Formatter. Every entry of a binary file is decoded, since
+	 * this model holds all of its Shortcuts; a {@link PagedShortcutModel} reads
+	 * the entries of a binary file by index, without decoding the rest.
+	 */
+	@Override
+	public IShortcutModel load(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
 
-		ListDataEvent lde = new ListDataEvent(this, ListDataEvent.CONTENTS_CHANGED, 0, getSize());
-		listDataListeners.forEach(ldl -> ldl.contentsChanged(lde));
+		return loaded(ShortcutReader.read(path, shortcutFormatter));
+	}
 
-		return this;
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation parses line-aligned chunks of the file on the common
+	 * fork/join pool. Binary files are detected the same way as
+	 * {@link #load(Path, IShortcutFormatter)}.
+	 */
+	@Override
+	public IShortcutModel loadParallel(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return loaded(ShortcutReader.readParallel(path, shortcutFormatter));
+	}
+
+	private IShortcutModel loaded(List<Shortcut> loaded) {
+		return replaceAll(loaded);
 	}
 
 	@Override
@@ -112,11 +207,37 @@ public class ShortcutModel implements IShortcutModel, ListModel<Shortcut>, Itera
 	public IShortcutModel addShortcut(Shortcut shortcut) {
 		Objects.requireNonNull(shortcut, "shortcut cannot be null");
 
-		shortcuts.add(shortcut);
+		append(shortcut);
 
-		int index = shortcuts.size() - 1;
-		ListDataEvent lde = new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, index, index + 1);
-		listDataListeners.forEach(ldl -> ldl.intervalAdded(lde));
+		fireAdded(shortcuts.size() - 1);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code INTERVAL_ADDED} event for the
+	 * index.
+	 */
+	@Override
+	public IShortcutModel insertShortcut(int index, Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		Objects.checkIndex(index, shortcuts.size() + 1);
+
+		if (index == shortcuts.size())
+			return addShortcut(shortcut);
+
+		shortcuts.add(index, shortcut);
+
+		// the first index of a Shortcut after this one is recomputed by reindex()
+		Slot slot = slots.computeIfAbsent(shortcut, s -> new Slot());
+		if (slot.count++ == 0)
+			slot.first = index;
+		indexedTo = Math.min(indexedTo, index);
+		index(shortcut, index);
+
+		fireInserted(index);
 
 		return this;
 	}
@@ -125,19 +246,532 @@ public class ShortcutModel implements IShortcutModel, ListModel<Shortcut>, Itera
 	public IShortcutModel removeShortcut(Shortcut shortcut) {
 		Objects.requireNonNull(shortcut, "shortcut cannot be null");
 
-		int index = shortcuts.indexOf(shortcut);
-		boolean shortcutExists = shortcuts.remove(shortcut);
-		if (!shortcutExists) {
-			throw new IllegalArgumentException(String.format("Shortcut %s not found in model"));
+		int index = indexOf(shortcut);
+		if (index == -1) {
+			throw new IllegalArgumentException(
+			        String.format("Shortcut %s not found in model", shortcut));
 		}
 
-		ListDataEvent lde = new ListDataEvent(this, ListDataEvent.INTERVAL_REMOVED, index,
-		        index + 1);
-		listDataListeners.forEach(ldl -> ldl.intervalRemoved(lde));
+		shortcuts.remove(index);
+
+		Slot slot = slots.get(shortcut);
+		if (--slot.count == 0)
+			slots.remove(shortcut);
+		else
+			slot.first = -1; // the next occurrence is somewhere after the removed one
+		indexedTo = Math.min(indexedTo, index);
+		unindex(shortcut);
+
+		fireRemoved(index, List.of(shortcut));
 
 		return this;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code INTERVAL_REMOVED} event for the
+	 * index.
+	 */
+	@Override
+	public IShortcutModel removeShortcut(int index) {
+		Shortcut shortcut = shortcuts.remove(index);
+
+		Slot slot = slots.get(shortcut);
+		if (--slot.count == 0) {
+			slots.remove(shortcut);
+		} else if (slot.first == index) {
+			slot.first = -1; // the next occurrence is somewhere after the removed one
+		}
+		indexedTo = Math.min(indexedTo, index);
+
+		// other occurrences of the Shortcut may be on either side of this one
+		if (slot.count == 0)
+			unindex(shortcut);
+		else
+			rescan(shortcut);
+
+		fireRemoved(index, List.of(shortcut));
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation replaces the Shortcut in place and fires a single
+	 * {@code CONTENTS_CHANGED} event for its index.
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(int index, Shortcut newShortcut) {
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+
+		Shortcut oldShortcut = shortcuts.get(index);
+		if (oldShortcut.equals(newShortcut))
+			return this;
+
+		shortcuts.set(index, newShortcut);
+
+		Slot oldSlot = slots.get(oldShortcut);
+		if (--oldSlot.count == 0) {
+			slots.remove(oldShortcut);
+		} else if (oldSlot.first == index) {
+			oldSlot.first = -1; // the next occurrence is somewhere after the replaced one
+			indexedTo = Math.min(indexedTo, index);
+		}
+
+		// an outdated first index is left for reindex() unless this one precedes it
+		Slot newSlot = slots.computeIfAbsent(newShortcut, s -> new Slot());
+		boolean upToDate = (newSlot.first >= 0) && (newSlot.first < indexedTo);
+		if ((newSlot.count++ == 0) || (upToDate ? index < newSlot.first : index < indexedTo))
+			newSlot.first = index;
+
+		// other occurrences of the old Shortcut may be on either side of this one
+		if (oldSlot.count == 0) {
+			unindex(oldShortcut);
+			index(newShortcut, index);
+		} else {
+			rescan(oldShortcut);
+			rescan(newShortcut);
+		}
+
+		fireReplaced(index, oldShortcut);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code INTERVAL_ADDED} event for the
+	 * added Shortcuts.
+	 */
+	@Override
+	public IShortcutModel addAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> added = checked(shortcuts);
+		if (added.isEmpty())
+			return this;
+
+		int from = this.shortcuts.size();
+		for (Shortcut shortcut : added)
+			append(shortcut);
+
+		fireAdded(from);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation checks that all of the Shortcuts exist, removes them in
+	 * a single pass and fires an {@code INTERVAL_REMOVED} event for every range
+	 * of adjacent removed Shortcuts, starting from the last one.
+	 */
+	@Override
+	public IShortcutModel removeAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> removed = checked(shortcuts);
+		if (removed.isEmpty())
+			return this;
+
+		if (removed.size() == 1)
+			return removeShortcut(removed.get(0));
+
+		// the number of occurrences of every Shortcut which are left to remove
+		Map<Shortcut, Integer> pending = new HashMap<>();
+		for (Shortcut shortcut : removed) {
+			int count = pending.merge(shortcut, 1, Integer::sum);
+			Slot slot = slots.get(shortcut);
+			if ((slot == null) || (slot.count < count)) {
+				throw new IllegalArgumentException(
+				        String.format("Shortcut %s not found in model", shortcut));
+			}
+		}
+
+		// the first occurrences are removed, as removeShortcut would
+		NavigableMap<Integer, Shortcut> removedAt = new TreeMap<>();
+		int size = this.shortcuts.size(), kept = 0;
+		for (int i = 0; i < size; i++) {
+			Shortcut shortcut = this.shortcuts.get(i);
+			Integer count = pending.get(shortcut);
+			if (count == null) {
+				this.shortcuts.set(kept++, shortcut);
+				continue;
+			}
+
+			removedAt.put(i, shortcut);
+			if (count == 1)
+				pending.remove(shortcut);
+			else
+				pending.put(shortcut, count - 1);
+		}
+		this.shortcuts.subList(kept, size).clear();
+
+		rebuild();
+		fireRemoved(removedAt);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel replaceAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> replacements = checked(shortcuts);
+
+		int size = this.shortcuts.size();
+		this.shortcuts.clear();
+		this.shortcuts.addAll(replacements);
+
+		rebuild();
+		fireContentsChanged(size);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The listeners aren't notified while the action runs, so anything which
+	 * listens to this model is out of date until the batch ends. Then, if the
+	 * action only removed Shortcuts, an {@code INTERVAL_REMOVED} event is fired
+	 * for every range of adjacent removed Shortcuts, as with
+	 * {@link #removeAll(Collection)}. If it changed this model in any other way, a
+	 * single {@code CONTENTS_CHANGED} event is fired.
+	 */
+	@Override
+	public IShortcutModel batch(Consumer<? super IShortcutModel> action) {
+		Objects.requireNonNull(action, "action cannot be null");
+
+		if (batchDepth++ == 0) {
+			batchChanged = false;
+			batchSize = shortcuts.size();
+			batchRemoved = new TreeMap<>();
+		}
+
+		try {
+			action.accept(this);
+		} finally {
+			if (--batchDepth == 0) {
+				NavigableMap<Integer, Shortcut> removed = batchRemoved;
+				batchRemoved = null;
+				if (batchChanged && (removed != null))
+					fireRemoved(removed);
+				else if (batchChanged)
+					fireContentsChanged(batchSize);
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation takes constant time per Shortcut and fires a single
+	 * {@code INTERVAL_REMOVED} event.
+	 */
+	@Override
+	public IShortcutModel clear() {
+		if (shortcuts.isEmpty())
+			return this;
+
+		List<Shortcut> removed = List.copyOf(shortcuts);
+		shortcuts.clear();
+
+		rebuild();
+		fireRemoved(0, removed);
+
+		return this;
+	}
+
+	/**
+	 * Returns whether this model contains the given Shortcut, in constant time.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return {@code true} if this model contains the Shortcut, {@code false}
+	 *         otherwise
+	 */
+	public boolean contains(Shortcut shortcut) {
+		return slots.containsKey(shortcut);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This takes constant time, unless Shortcuts have been removed since the last
+	 * time an index was requested.
+	 */
+	@Override
+	public int indexOf(Shortcut shortcut) {
+		Slot slot = slots.get(shortcut);
+		if (slot == null)
+			return -1;
+
+		if ((slot.first < 0) || (slot.first >= indexedTo))
+			reindex();
+
+		return slot.first;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation looks the action up in an index and copies the
+	 * Shortcuts found, in time linear in their number. The List doesn't reflect
+	 * later changes to this model.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByAction(String action) {
+		return copy(byAction.get(action));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation looks the key sequence up in an index and copies the
+	 * Shortcuts found, in time linear in their number. The List doesn't reflect
+	 * later changes to this model.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByKeySequence(KeySequence keySequence) {
+		return copy(byKeySequence.get(keySequence.canonical()));
+	}
+
+	private static List<Shortcut> checked(Collection<? extends Shortcut> shortcuts) {
+		Objects.requireNonNull(shortcuts, "shortcuts cannot be null");
+
+		List<Shortcut> copy = new ArrayList<>(shortcuts);
+		for (Shortcut shortcut : copy)
+			Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		return copy;
+	}
+
+	private static List<Shortcut> copy(List<Shortcut> bucket) {
+		return bucket == null ? List.of() : List.copyOf(bucket);
+	}
+
+	/*
+	 * Appends a Shortcut to the end of the array and updates its slot and the
+	 * indexes, without notifying the listeners.
+	 */
+	private void append(Shortcut shortcut) {
+		shortcuts.add(shortcut);
+
+		int index = shortcuts.size() - 1;
+		Slot slot = slots.computeIfAbsent(shortcut, s -> new Slot());
+		if (slot.count++ == 0)
+			slot.first = index;
+		if (indexedTo == index)
+			indexedTo++;
+		index(shortcut);
+	}
+
+	/*
+	 * Recomputes the slots and the indexes from the array, in linear time.
+	 */
+	private void rebuild() {
+		slots.clear();
+		byAction.clear();
+		byKeySequence.clear();
+		for (int i = 0, size = shortcuts.size(); i < size; i++) {
+			Shortcut shortcut = shortcuts.get(i);
+			Slot slot = slots.computeIfAbsent(shortcut, s -> new Slot());
+			if (slot.count++ == 0)
+				slot.first = i;
+			index(shortcut);
+		}
+		indexedTo = shortcuts.size();
+	}
+
+	/*
+	 * Returns whether the change is deferred because a batch is running, in
+	 * which case it records that this model changed in a way other than removing
+	 * Shortcuts.
+	 */
+	private boolean deferred() {
+		if (batchDepth > 0) {
+			batchChanged = true;
+			batchRemoved = null;
+		}
+		return batchDepth > 0;
+	}
+
+	// the Shortcuts from the index to the end were added
+	private void fireAdded(int from) {
+		if (!deferred())
+			publisher.submit(ShortcutChange.added(++version, from,
+			        shortcuts.subList(from, shortcuts.size())));
+	}
+
+	// the Shortcut at the index was inserted
+	private void fireInserted(int index) {
+		if (!deferred())
+			publisher.submit(ShortcutChange.added(++version, index,
+			        List.of(shortcuts.get(index))));
+	}
+
+	/*
+	 * The Shortcuts from the index on were removed. In a batch which has only
+	 * removed Shortcuts so far, their indexes before the batch are recorded,
+	 * which are found by skipping the indexes of those removed before them.
+	 */
+	private void fireRemoved(int index, List<Shortcut> removed) {
+		if (batchDepth == 0) {
+			publisher.submit(ShortcutChange.removed(++version, index, removed));
+			return;
+		}
+
+		batchChanged = true;
+		if (batchRemoved == null)
+			return;
+
+		// each one is removed after the ones following it, so their indexes are valid
+		for (int i = removed.size() - 1; i >= 0; i--) {
+			int original = index + i;
+			for (int previous : batchRemoved.keySet()) {
+				if (previous > original)
+					break;
+				original++;
+			}
+			batchRemoved.put(original, removed.get(i));
+		}
+	}
+
+	// fires the ranges of adjacent removed Shortcuts from the last to the first
+	private void fireRemoved(NavigableMap<Integer, Shortcut> removedAt) {
+		List<Integer> indexes = new ArrayList<>(removedAt.keySet());
+		for (int to = indexes.size(); to > 0;) {
+			int from = to - 1;
+			while ((from > 0) && (indexes.get(from - 1) == indexes.get(from) - 1))
+				from--;
+
+			fireRemoved(indexes.get(from),
+			        new ArrayList<>(removedAt.subMap(indexes.get(from), true,
+			                indexes.get(to - 1), true).values()));
+			to = from;
+		}
+	}
+
+	private void fireReplaced(int index, Shortcut replaced) {
+		if (!deferred())
+			publisher.submit(ShortcutChange.replaced(++version, index, List.of(replaced),
+			        List.of(shortcuts.get(index))));
+	}
+
+	private void fireContentsChanged(int previousSize) {
+		if (!deferred())
+			publisher.submit(ShortcutChange.reloaded(++version, previousSize, shortcuts));
+	}
+
+	/*
+	 * Adds a Shortcut to the indexes. Since it is added to the end of the model,
+	 * it is added to the end of its buckets, which remain in model order.
+	 */
+	private void index(Shortcut shortcut) {
+		byAction.computeIfAbsent(shortcut.getAction(), a -> new ArrayList<>(1)).add(shortcut);
+		byKeySequence.computeIfAbsent(shortcut.getKeySequence().canonical(),
+		        k -> new ArrayList<>(1)).add(shortcut);
+	}
+
+	/*
+	 * Adds the Shortcut at an index of the model to the indexes, before the
+	 * Shortcuts of its buckets which come after it, so that they remain in model
+	 * order.
+	 */
+	private void index(Shortcut shortcut, int index) {
+		insert(byAction, shortcut.getAction(), shortcut, index, Shortcut::getAction);
+		insert(byKeySequence, shortcut.getKeySequence().canonical(), shortcut, index,
+		        s -> s.getKeySequence().canonical());
+	}
+
+	/*
+	 * The position in a bucket is found by the first index of the Shortcuts in it.
+	 * Shortcuts which occur more than once have no single index, so the bucket is
+	 * then recomputed from the array instead.
+	 */
+	private <K> void insert(Map<K, List<Shortcut>> index, K key, Shortcut shortcut,
+	        int at, Function<Shortcut, K> keyOf) {
+		List<Shortcut> bucket = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+
+		int position = 0;
+		for (Shortcut other : bucket) {
+			if (slots.get(other).count > 1) {
+				rescan(index, key, keyOf);
+				return;
+			}
+
+			if (indexOf(other) > at)
+				break;
+			position++;
+		}
+
+		bucket.add(position, shortcut);
+	}
+
+	/*
+	 * Recomputes the buckets of a Shortcut from the array, in linear time.
+	 */
+	private void rescan(Shortcut shortcut) {
+		rescan(byAction, shortcut.getAction(), Shortcut::getAction);
+		rescan(byKeySequence, shortcut.getKeySequence().canonical(),
+		        s -> s.getKeySequence().canonical());
+	}
+
+	private <K> void rescan(Map<K, List<Shortcut>> index, K key, Function<Shortcut, K> keyOf) {
+		List<Shortcut> bucket = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+		bucket.clear();
+		for (Shortcut s : shortcuts) {
+			if (Objects.equals(key, keyOf.apply(s)))
+				bucket.add(s);
+		}
+
+		if (bucket.isEmpty())
+			index.remove(key);
+	}
+
+	/*
+	 * Removes a Shortcut from the indexes. Any equal Shortcut may be removed from
+	 * a bucket, since it would be indistinguishable from the first one.
+	 */
+	private void unindex(Shortcut shortcut) {
+		unindex(byAction, shortcut.getAction(), shortcut);
+		unindex(byKeySequence, shortcut.getKeySequence().canonical(), shortcut);
+	}
+
+	private static <K> void unindex(Map<K, List<Shortcut>> index, K key, Shortcut shortcut) {
+		List<Shortcut> bucket = index.get(key);
+		bucket.remove(shortcut);
+		if (bucket.isEmpty())
+			index.remove(key);
+	}
+
+	/*
+	 * Recomputes the first index of the Shortcuts which occur after indexedTo.
+	 * Those whose first index is before it are up to date, the rest are
+	 * forgotten and then assigned their first occurrence.
+	 */
+	private void reindex() {
+		int size = shortcuts.size();
+		for (int i = indexedTo; i < size; i++) {
+			Slot slot = slots.get(shortcuts.get(i));
+			if (slot.first >= indexedTo)
+				slot.first = -1;
+		}
+
+		for (int i = indexedTo; i < size; i++) {
+			Slot slot = slots.get(shortcuts.get(i));
+			if (slot.first == -1)
+				slot.first = i;
+		}
+
+		indexedTo = size;
+	}
+
 	@Override
 	public List<Shortcut> getShortcuts() {
 		return Collections.unmodifiableList(shortcuts);
@@ -168,37 +802,78 @@ public class ShortcutModel implements IShortcutModel, ListModel<Shortcut>, Itera
 		return new ShortcutModelIterator();
 	}
 
-	private class ShortcutModelIterator implements Iterator<Shortcut> {
+	/*
+	 * Notifies the ListDataListeners of every change, as soon as it is published.
+	 * The exceptions of the listeners are passed to the thread's handler, so that
+	 * the other listeners are still notified.
+	 */
+	private final class ListDataBridge implements Flow.Subscriber<ShortcutChange> {
 
-		final Iterator<Shortcut> delegateIterator = getShortcuts().iterator();
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
 
 		@Override
-		public boolean hasNext() {
-			return delegateIterator.hasNext();
+		public void onNext(ShortcutChange change) {
+			int type;
+			switch (change.getType()) {
+			case ADDED:
+				type = ListDataEvent.INTERVAL_ADDED;
+				break;
+			case REMOVED:
+				type = ListDataEvent.INTERVAL_REMOVED;
+				break;
+			default:
+				type = ListDataEvent.CONTENTS_CHANGED;
+				break;
+			}
+
+			ListDataEvent lde = new ListDataEvent(ShortcutModel.this, type, change.getIndex0(),
+			        change.getIndex1());
+			for (ListDataListener ldl : listDataListeners) {
+				try {
+					if (type == ListDataEvent.INTERVAL_ADDED)
+						ldl.intervalAdded(lde);
+					else if (type == ListDataEvent.INTERVAL_REMOVED)
+						ldl.intervalRemoved(lde);
+					else
+						ldl.contentsChanged(lde);
+				} catch (RuntimeException e) {
+					Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+			}
 		}
 
 		@Override
-		public Shortcut next() {
-			return delegateIterator.next();
+		public void onError(Throwable throwable) {
+			// never called, since no exception escapes onNext
+		}
+
+		@Override
+		public void onComplete() {
+			// never called, since the publisher is never closed
 		}
 	}
 
-	private static String readLine(Reader reader) throws IOException {
-		StringBuilder sb = new StringBuilder();
+	private static final class Slot {
+		int count;
+		int first = -1;
+	}
 
-		int next = reader.read();
-		while (!((next == -1) || (next == '\n') || (next == '\r'))) {
-			sb.append((char) next);
-			next = reader.read();
-		}
+	private class ShortcutModelIterator implements Iterator<Shortcut> {
 
-		// skip '\n' character of "\r\n"
-		if (next == '\r')
-			reader.skip(1);
+		final Iterator<Shortcut> delegateIterator = getShortcuts().iterator();
 
-		if (sb.isEmpty())
-			return null;
+		@Override
+		public boolean hasNext() {
+			return delegateIterator.hasNext();
+		}
 
-		return sb.toString();
+		@Override
+		public Shortcut next() {
+			return delegateIterator.next();
+		}
 	}
 }
@@ -0,0 +1,40 @@
+package alexman.shortcuts.shortcut.model;
+
+/**
+ * Thrown when a line of a file cannot be parsed into a Shortcut, for example
+ * because its key sequence contains invalid tokens. The exception carries the
+ * number of the line and the exception that was thrown while parsing it.
+ *
+ * @author Alex Mandelias
+ */
+public class ShortcutParseException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int lineNumber;
+
+	/**
+	 * Constructs the exception for a line.
+	 *
+	 * @param lineNumber the number of the line, starting from 1
+	 * @param cause the exception that was thrown while parsing the line
+	 */
+	public ShortcutParseException(int lineNumber, IllegalArgumentException cause) {
+		super(String.format("Line %d: %s", lineNumber, cause.getMessage()), cause);
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * Returns the number of the line that could not be parsed.
+	 *
+	 * @return the line number, starting from 1
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public synchronized IllegalArgumentException getCause() {
+		return (IllegalArgumentException) super.getCause();
+	}
+}
@@ -0,0 +1,910 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * A Shortcut Model, which also acts as a {@code ListModel}, whose Shortcuts are
+ * those of another model, its parent, changed by an {@link Overlay}. The
+ * overlay hides some of the Shortcuts of the parent, overrides others with
+ * different Shortcuts in the same rows and adds new ones after them. Since the
+ * parent may itself be a profile, profiles can be layered.
+ * <p>
+ * A profile only stores its changes; the Shortcuts it shares with its parent
+ * are the parent's. It caches the result of applying them, its flattened view,
+ * which is rebuilt when the parent changes. Modifying the profile changes its
+ * overlay instead of the parent, and {@link #setOverlay(Overlay) switching} to
+ * another overlay only touches the rows where the two overlays differ, each of
+ * which is reported to the listeners by its own event.
+ * <p>
+ * The parent must not be modified by the listeners of this profile.
+ *
+ * @author Alex Mandelias
+ */
+public class ShortcutProfile implements IShortcutModel, ListModel<Shortcut>, Iterable<Shortcut> {
+
+	private final IShortcutModel parent;
+	private final ListModel<Shortcut> parentList;
+	private final ListDataListener parentListener = new ParentListener();
+
+	// the overlay: the number of first occurrences of parent Shortcuts which are
+	// hidden, the Shortcuts shown instead of parent Shortcuts and the added ones
+	private final Map<Shortcut, Integer> hidden = new HashMap<>();
+	private final Map<Shortcut, Shortcut> overrides = new HashMap<>();
+	private final List<Shortcut> added = new ArrayList<>();
+
+	// the flattened view: the rows from the parent, with the index of the parent
+	// Shortcut of each row in ascending order, followed by the added rows
+	private boolean flattened = false;
+	private Shortcut[] rows = new Shortcut[16];
+	private int[] sources = new int[16];
+	private int rowCount = 0, parentRows = 0;
+
+	// built from the flattened view when they are first needed after a change
+	private Map<String, List<Shortcut>> byAction;
+	private Map<KeySequence, List<Shortcut>> byKeySequence;
+
+	private IShortcutFormatter sf;
+
+	private final Set<ListDataListener> listDataListeners = new HashSet<>();
+
+	// the events of nested batches are coalesced into one, fired at the end
+	private int batchDepth = 0;
+	private boolean batchChanged;
+	private int batchSize;
+
+	/**
+	 * Constructs a Shortcut Profile with an empty overlay, which shows the
+	 * Shortcuts of its parent, and with the parent's Formatter.
+	 *
+	 * @param <M> the type of the parent
+	 * @param parent the model whose Shortcuts this profile changes
+	 *
+	 * @throws NullPointerException if {@code parent == null}
+	 */
+	public <M extends IShortcutModel & ListModel<Shortcut>> ShortcutProfile(M parent) {
+		this.parent = Objects.requireNonNull(parent, "parent cannot be null");
+		this.parentList = parent;
+		this.sf = parent.getFormatter();
+		parent.addListDataListener(parentListener);
+	}
+
+	/**
+	 * Returns the parent of this profile.
+	 *
+	 * @return the parent
+	 */
+	public IShortcutModel getParent() {
+		return parent;
+	}
+
+	/**
+	 * Stops listening to the parent. The flattened view of this profile isn't
+	 * rebuilt when the parent changes after this method is called.
+	 */
+	public void close() {
+		parentList.removeListDataListener(parentListener);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Shortcut s : this) {
+			sb.append(s).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The Shortcuts read replace those of this profile, as with
+	 * {@link #replaceAll(Collection)}.
+	 */
+	@Override
+	public IShortcutModel load(Reader reader, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(reader, "reader cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return replaceAll(ShortcutReader.read(reader, shortcutFormatter));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The Shortcuts read replace those of this profile, as with
+	 * {@link #replaceAll(Collection)}.
+	 */
+	@Override
+	public IShortcutModel load(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return replaceAll(ShortcutReader.read(path, shortcutFormatter));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The Shortcuts read replace those of this profile, as with
+	 * {@link #replaceAll(Collection)}.
+	 */
+	@Override
+	public IShortcutModel loadParallel(Path path, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(path, "path cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		return replaceAll(ShortcutReader.readParallel(path, shortcutFormatter));
+	}
+
+	@Override
+	public IShortcutModel store(Writer writer, IShortcutFormatter shortcutFormatter)
+	        throws IOException {
+		Objects.requireNonNull(writer, "writer cannot be null");
+		Objects.requireNonNull(shortcutFormatter, "Shortcut Formatter cannot be null");
+
+		for (Shortcut s : this) {
+			writer.write(shortcutFormatter.format(s).toCharArray());
+			writer.write(System.lineSeparator().toCharArray());
+		}
+
+		return this;
+	}
+
+	@Override
+	public IShortcutFormatter getFormatter() {
+		return sf;
+	}
+
+	@Override
+	public final IShortcutModel setFormatter(IShortcutFormatter sf) {
+		this.sf = sf;
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The Shortcut is added to the overlay and shown after every other Shortcut.
+	 */
+	@Override
+	public IShortcutModel addShortcut(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		return addAll(List.of(shortcut));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the first occurrence of the Shortcut was added to this profile, it is
+	 * removed from the overlay; otherwise the parent Shortcut shown in its row is
+	 * hidden.
+	 */
+	@Override
+	public IShortcutModel removeShortcut(Shortcut shortcut) {
+		Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+		int row = indexOf(shortcut);
+		if (row == -1) {
+			throw new IllegalArgumentException(
+			        String.format("Shortcut %s not found in model", shortcut));
+		}
+
+		if (row >= parentRows) {
+			added.remove(row - parentRows);
+			removeAddedRows(row, row);
+		} else {
+			hidden.merge(parentList.getElementAt(sources[row]), 1, Integer::sum);
+			removeParentRow(row);
+		}
+
+		fire(ListDataEvent.INTERVAL_REMOVED, row, row);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the Shortcut in the row was added to this profile, it is replaced in the
+	 * overlay. If it is the only visible occurrence of a Shortcut of the parent,
+	 * that Shortcut is {@link #override(Shortcut, Shortcut) overridden}. Either
+	 * way a single {@code CONTENTS_CHANGED} event is fired for the row.
+	 * Otherwise, since an override applies to every occurrence, an equal Shortcut
+	 * is removed and the new one is added after every other Shortcut.
+	 */
+	@Override
+	public IShortcutModel replaceShortcut(int index, Shortcut newShortcut) {
+		Objects.requireNonNull(newShortcut, "new shortcut cannot be null");
+
+		flatten();
+		Objects.checkIndex(index, rowCount);
+
+		Shortcut oldShortcut = rows[index];
+		if (oldShortcut.equals(newShortcut))
+			return this;
+
+		if (index >= parentRows) {
+			added.set(index - parentRows, newShortcut);
+			rows[index] = newShortcut;
+			fire(ListDataEvent.CONTENTS_CHANGED, index, index);
+			return this;
+		}
+
+		Shortcut original = parentList.getElementAt(sources[index]);
+		int visible = occurrences(original).length - hidden.getOrDefault(original, 0);
+		if (visible == 1)
+			return override(original, newShortcut);
+
+		return batch(profile -> profile.removeShortcut(oldShortcut).addShortcut(newShortcut));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation fires a single {@code INTERVAL_ADDED} event for the
+	 * added Shortcuts.
+	 */
+	@Override
+	public IShortcutModel addAll(Collection<? extends Shortcut> shortcuts) {
+		List<Shortcut> toAdd = checked(shortcuts);
+		if (toAdd.isEmpty())
+			return this;
+
+		flatten();
+
+		int from = rowCount;
+		added.addAll(toAdd);
+		appendAddedRows(toAdd);
+
+		fire(ListDataEvent.INTERVAL_ADDED, from, rowCount - 1);
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation {@link Overlay#diff(List, Collection) computes} the
+	 * overlay which turns the Shortcuts of the parent into the given ones and
+	 * switches to it, firing a single {@code CONTENTS_CHANGED} event. The
+	 * Shortcuts which are also in the parent are kept in the parent's order and
+	 * the rest are shown after them.
+	 */
+	@Override
+	public IShortcutModel replaceAll(Collection<? extends Shortcut> shortcuts) {
+		Overlay overlay = Overlay.diff(parent.getShortcuts(), checked(shortcuts));
+
+		return batch(profile -> setOverlay(overlay));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The listeners aren't notified while the action runs, so anything which
+	 * listens to this profile is out of date until the batch ends. Then, if the
+	 * action changed this profile, a single {@code CONTENTS_CHANGED} event is
+	 * fired.
+	 */
+	@Override
+	public IShortcutModel batch(Consumer<? super IShortcutModel> action) {
+		Objects.requireNonNull(action, "action cannot be null");
+
+		if (batchDepth++ == 0) {
+			batchChanged = false;
+			batchSize = getSize();
+		}
+
+		try {
+			action.accept(this);
+		} finally {
+			if ((--batchDepth == 0) && batchChanged)
+				fireContentsChanged(batchSize);
+		}
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation hides every Shortcut of the parent and fires a single
+	 * {@code CONTENTS_CHANGED} event.
+	 */
+	@Override
+	public IShortcutModel clear() {
+		return replaceAll(List.of());
+	}
+
+	/**
+	 * Shows a different Shortcut in the rows of every visible occurrence of a
+	 * Shortcut of the parent. Overriding a Shortcut with itself removes its
+	 * override.
+	 *
+	 * @param original the Shortcut of the parent
+	 * @param replacement the Shortcut to show instead
+	 *
+	 * @return this profile
+	 *
+	 * @throws NullPointerException if {@code original == null} or
+	 *         {@code replacement == null}
+	 * @throws IllegalArgumentException if the Shortcut doesn't exist in the parent
+	 */
+	public ShortcutProfile override(Shortcut original, Shortcut replacement) {
+		Objects.requireNonNull(original, "original cannot be null");
+		Objects.requireNonNull(replacement, "replacement cannot be null");
+
+		int[] occurrences = occurrences(original);
+		if (occurrences.length == 0) {
+			throw new IllegalArgumentException(
+			        String.format("Shortcut %s not found in parent", original));
+		}
+
+		flatten();
+
+		if (replacement.equals(original))
+			overrides.remove(original);
+		else
+			overrides.put(original, replacement);
+
+		showVisible(original, occurrences, replacement);
+
+		return this;
+	}
+
+	/**
+	 * Returns the overlay of this profile, which may be used to switch back to
+	 * it later. This takes time proportional to the size of the overlay.
+	 *
+	 * @return the overlay
+	 */
+	public Overlay getOverlay() {
+		return new Overlay(hidden, overrides, added);
+	}
+
+	/**
+	 * Switches this profile to another overlay of the same parent. Only the rows
+	 * where the overlays differ are changed, so this takes time proportional to
+	 * the number of their differences and fires an event for every changed row;
+	 * use {@link #batch(Consumer)} to fire a single event instead.
+	 * <p>
+	 * Parent Shortcuts which the overlay hides or overrides but which don't exist
+	 * in the parent are ignored.
+	 *
+	 * @param overlay the overlay
+	 *
+	 * @return this profile
+	 *
+	 * @throws NullPointerException if {@code overlay == null}
+	 */
+	public ShortcutProfile setOverlay(Overlay overlay) {
+		Objects.requireNonNull(overlay, "overlay cannot be null");
+
+		flatten();
+
+		// show or hide the occurrences of the parent Shortcuts whose count changed
+		for (Shortcut original : union(hidden.keySet(), overlay.hidden.keySet())) {
+			int from = hidden.getOrDefault(original, 0);
+			int to = overlay.hidden.getOrDefault(original, 0);
+			if (from == to)
+				continue;
+
+			int[] occurrences = occurrences(original);
+			if (to > from) {
+				for (int k = from; k < Math.min(to, occurrences.length); k++) {
+					int row = rowOf(occurrences[k]);
+					removeParentRow(row);
+					fire(ListDataEvent.INTERVAL_REMOVED, row, row);
+				}
+			} else {
+				Shortcut shown = overlay.overrides.getOrDefault(original, original);
+				for (int k = to; k < Math.min(from, occurrences.length); k++) {
+					int row = -rowOf(occurrences[k]) - 1;
+					insertParentRow(row, shown, occurrences[k]);
+					fire(ListDataEvent.INTERVAL_ADDED, row, row);
+				}
+			}
+		}
+
+		hidden.clear();
+		hidden.putAll(overlay.hidden);
+
+		// then change the rows of the parent Shortcuts which are still visible
+		for (Shortcut original : union(overrides.keySet(), overlay.overrides.keySet())) {
+			Shortcut before = overrides.getOrDefault(original, original);
+			Shortcut after = overlay.overrides.getOrDefault(original, original);
+			if (!before.equals(after))
+				showVisible(original, occurrences(original), after);
+		}
+
+		overrides.clear();
+		overrides.putAll(overlay.overrides);
+
+		// the added Shortcuts are at the end, after their common prefix
+		int common = 0, commonMax = Math.min(added.size(), overlay.added.size());
+		while ((common < commonMax) && added.get(common).equals(overlay.added.get(common)))
+			common++;
+
+		if (common < added.size()) {
+			int from = parentRows + common, to = rowCount - 1;
+			added.subList(common, added.size()).clear();
+			removeAddedRows(from, to);
+			fire(ListDataEvent.INTERVAL_REMOVED, from, to);
+		}
+
+		if (common < overlay.added.size()) {
+			List<Shortcut> toAdd = overlay.added.subList(common, overlay.added.size());
+			int from = rowCount;
+			added.addAll(toAdd);
+			appendAddedRows(toAdd);
+			fire(ListDataEvent.INTERVAL_ADDED, from, rowCount - 1);
+		}
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation scans the flattened view.
+	 */
+	@Override
+	public int indexOf(Shortcut shortcut) {
+		flatten();
+
+		for (int i = 0; i < rowCount; i++)
+			if (rows[i].equals(shortcut))
+				return i;
+
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation looks the action up in an index of the flattened view,
+	 * which is rebuilt after this profile changes. The List doesn't reflect later
+	 * changes to this profile.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByAction(String action) {
+		index();
+		return view(byAction.get(action));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation looks the key sequence up in an index of the flattened
+	 * view, which is rebuilt after this profile changes. The List doesn't reflect
+	 * later changes to this profile.
+	 */
+	@Override
+	public List<Shortcut> getShortcutsByKeySequence(KeySequence keySequence) {
+		index();
+		return view(byKeySequence.get(keySequence.canonical()));
+	}
+
+	@Override
+	public List<Shortcut> getShortcuts() {
+		return new ShortcutList();
+	}
+
+	@Override
+	public int getSize() {
+		flatten();
+		return rowCount;
+	}
+
+	@Override
+	public Shortcut getElementAt(int index) {
+		Objects.checkIndex(index, getSize());
+		return rows[index];
+	}
+
+	@Override
+	public void addListDataListener(ListDataListener l) {
+		listDataListeners.add(l);
+	}
+
+	@Override
+	public void removeListDataListener(ListDataListener l) {
+		listDataListeners.remove(l);
+	}
+
+	@Override
+	public Iterator<Shortcut> iterator() {
+		return getShortcuts().iterator();
+	}
+
+	private static List<Shortcut> checked(Collection<? extends Shortcut> shortcuts) {
+		Objects.requireNonNull(shortcuts, "shortcuts cannot be null");
+
+		List<Shortcut> copy = new ArrayList<>(shortcuts);
+		for (Shortcut shortcut : copy)
+			Objects.requireNonNull(shortcut, "shortcut cannot be null");
+		return copy;
+	}
+
+	private static List<Shortcut> view(List<Shortcut> bucket) {
+		return bucket == null ? List.of() : Collections.unmodifiableList(bucket);
+	}
+
+	private static Set<Shortcut> union(Set<Shortcut> first, Set<Shortcut> second) {
+		Set<Shortcut> union = new HashSet<>(first);
+		union.addAll(second);
+		return union;
+	}
+
+	/*
+	 * Rebuilds the flattened view from the parent and the overlay, in linear
+	 * time, if it isn't up to date.
+	 */
+	private void flatten() {
+		if (flattened)
+			return;
+
+		int size = parentList.getSize();
+		ensureCapacity(size + added.size());
+
+		Map<Shortcut, Integer> toHide = new HashMap<>(hidden);
+		rowCount = 0;
+		for (int i = 0; i < size; i++) {
+			Shortcut shortcut = parentList.getElementAt(i);
+			Integer count = toHide.get(shortcut);
+			if (count == null) {
+				rows[rowCount] = overrides.getOrDefault(shortcut, shortcut);
+				sources[rowCount] = i;
+				rowCount++;
+			} else if (count == 1) {
+				toHide.remove(shortcut);
+			} else {
+				toHide.put(shortcut, count - 1);
+			}
+		}
+		parentRows = rowCount;
+
+		for (Shortcut shortcut : added)
+			rows[rowCount++] = shortcut;
+
+		Arrays.fill(rows, rowCount, rows.length, null);
+		flattened = true;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= rows.length)
+			return;
+
+		int newCapacity = Math.max(capacity, 2 * rows.length);
+		rows = Arrays.copyOf(rows, newCapacity);
+		sources = Arrays.copyOf(sources, newCapacity);
+	}
+
+	/*
+	 * Returns the indexes of the occurrences of a Shortcut in the parent. The
+	 * occurrences are counted in the parent's index of actions, so that only
+	 * duplicate Shortcuts make this scan the parent after the first occurrence.
+	 */
+	private int[] occurrences(Shortcut shortcut) {
+		int count = 0;
+		for (Shortcut s : parent.getShortcutsByAction(shortcut.getAction()))
+			if (s.equals(shortcut))
+				count++;
+
+		int[] occurrences = new int[count];
+		if (count == 0)
+			return occurrences;
+
+		occurrences[0] = parent.indexOf(shortcut);
+		for (int i = occurrences[0] + 1, found = 1; found < count; i++)
+			if (parentList.getElementAt(i).equals(shortcut))
+				occurrences[found++] = i;
+
+		return occurrences;
+	}
+
+	/*
+	 * Returns the row of the Shortcut of the parent with the given index, or
+	 * (-(insertion point) - 1) if it is hidden.
+	 */
+	private int rowOf(int source) {
+		return Arrays.binarySearch(sources, 0, parentRows, source);
+	}
+
+	// shows a Shortcut in the rows of the visible occurrences of a parent Shortcut
+	private void showVisible(Shortcut original, int[] occurrences, Shortcut shown) {
+		for (int k = hidden.getOrDefault(original, 0); k < occurrences.length; k++) {
+			int row = rowOf(occurrences[k]);
+			if ((row >= 0) && !rows[row].equals(shown)) {
+				rows[row] = shown;
+				fire(ListDataEvent.CONTENTS_CHANGED, row, row);
+			}
+		}
+	}
+
+	private void insertParentRow(int row, Shortcut shortcut, int source) {
+		ensureCapacity(rowCount + 1);
+		System.arraycopy(rows, row, rows, row + 1, rowCount - row);
+		System.arraycopy(sources, row, sources, row + 1, parentRows - row);
+		rows[row] = shortcut;
+		sources[row] = source;
+		rowCount++;
+		parentRows++;
+	}
+
+	private void removeParentRow(int row) {
+		System.arraycopy(rows, row + 1, rows, row, rowCount - row - 1);
+		System.arraycopy(sources, row + 1, sources, row, parentRows - row - 1);
+		rows[--rowCount] = null;
+		parentRows--;
+	}
+
+	private void appendAddedRows(List<Shortcut> shortcuts) {
+		ensureCapacity(rowCount + shortcuts.size());
+		for (Shortcut shortcut : shortcuts)
+			rows[rowCount++] = shortcut;
+	}
+
+	// removes the rows from index0 to index1, inclusive, which are added rows
+	private void removeAddedRows(int index0, int index1) {
+		int count = index1 - index0 + 1;
+		System.arraycopy(rows, index1 + 1, rows, index0, rowCount - index1 - 1);
+		Arrays.fill(rows, rowCount - count, rowCount, null);
+		rowCount -= count;
+	}
+
+	private void index() {
+		if (byAction != null)
+			return;
+
+		flatten();
+
+		byAction = new HashMap<>();
+		byKeySequence = new HashMap<>();
+		for (int i = 0; i < rowCount; i++) {
+			Shortcut shortcut = rows[i];
+			byAction.computeIfAbsent(shortcut.getAction(), a -> new ArrayList<>(1)).add(shortcut);
+			byKeySequence.computeIfAbsent(shortcut.getKeySequence().canonical(),
+			        k -> new ArrayList<>(1)).add(shortcut);
+		}
+	}
+
+	private void fire(int type, int index0, int index1) {
+		byAction = null;
+		byKeySequence = null;
+
+		if (batchDepth > 0) {
+			batchChanged = true;
+			return;
+		}
+
+		ListDataEvent lde = new ListDataEvent(this, type, index0, index1);
+		for (ListDataListener ldl : listDataListeners) {
+			switch (type) {
+			case ListDataEvent.INTERVAL_ADDED:
+				ldl.intervalAdded(lde);
+				break;
+			case ListDataEvent.INTERVAL_REMOVED:
+				ldl.intervalRemoved(lde);
+				break;
+			default:
+				ldl.contentsChanged(lde);
+				break;
+			}
+		}
+	}
+
+	// the event covers the rows both before and after the change
+	private void fireContentsChanged(int previousSize) {
+		fire(ListDataEvent.CONTENTS_CHANGED, 0, Math.max(0, Math.max(previousSize, getSize()) - 1));
+	}
+
+	/**
+	 * The changes a {@link ShortcutProfile} makes to the Shortcuts of its parent.
+	 * Overlays are immutable and only refer to Shortcuts by value, so the same
+	 * overlay may be applied to different parents.
+	 *
+	 * @author Alex Mandelias
+	 */
+	public static final class Overlay {
+
+		private static final Overlay EMPTY = new Overlay(Map.of(), Map.of(), List.of());
+
+		private final Map<Shortcut, Integer> hidden;
+		private final Map<Shortcut, Shortcut> overrides;
+		private final List<Shortcut> added;
+
+		private Overlay(Map<Shortcut, Integer> hidden, Map<Shortcut, Shortcut> overrides,
+		        List<Shortcut> added) {
+			this.hidden = Map.copyOf(hidden);
+			this.overrides = Map.copyOf(overrides);
+			this.added = List.copyOf(added);
+		}
+
+		/**
+		 * Returns the overlay which doesn't change its parent.
+		 *
+		 * @return the overlay
+		 */
+		public static Overlay empty() {
+			return EMPTY;
+		}
+
+		/**
+		 * Returns the overlay which turns the Shortcuts of a parent into the given
+		 * ones, in linear time. Shortcuts of the parent which aren't given are
+		 * hidden, unless they are the only occurrence of a Shortcut whose action is
+		 * given with a different key sequence, in which case they are overridden
+		 * with it. The rest of the given Shortcuts are added.
+		 *
+		 * @param parent the Shortcuts of the parent
+		 * @param shortcuts the Shortcuts which the overlay should result in
+		 *
+		 * @return the overlay
+		 *
+		 * @throws NullPointerException if any of the arguments or any of the given
+		 *         Shortcuts is {@code null}
+		 */
+		public static Overlay diff(List<Shortcut> parent, Collection<? extends Shortcut> shortcuts) {
+			Objects.requireNonNull(parent, "parent cannot be null");
+			Objects.requireNonNull(shortcuts, "shortcuts cannot be null");
+
+			Map<Shortcut, Integer> counts = new HashMap<>();
+			for (Shortcut shortcut : parent)
+				counts.merge(shortcut, 1, Integer::sum);
+
+			// the occurrences of the parent which aren't matched by a given Shortcut
+			Map<Shortcut, Integer> unmatched = new HashMap<>(counts);
+			List<Shortcut> candidates = new ArrayList<>();
+			for (Shortcut shortcut : shortcuts) {
+				Objects.requireNonNull(shortcut, "shortcut cannot be null");
+
+				Integer count = unmatched.get(shortcut);
+				if (count == null)
+					candidates.add(shortcut);
+				else if (count == 1)
+					unmatched.remove(shortcut);
+				else
+					unmatched.put(shortcut, count - 1);
+			}
+
+			// unique Shortcuts of the parent which were rebound, by action
+			Map<String, Deque<Shortcut>> rebound = new LinkedHashMap<>();
+			for (Shortcut shortcut : parent)
+				if ((counts.get(shortcut) == 1) && unmatched.containsKey(shortcut))
+					rebound.computeIfAbsent(shortcut.getAction(), a -> new ArrayDeque<>(1))
+					        .add(shortcut);
+
+			Map<Shortcut, Shortcut> overrides = new HashMap<>();
+			List<Shortcut> added = new ArrayList<>();
+			for (Shortcut shortcut : candidates) {
+				Deque<Shortcut> originals = rebound.get(shortcut.getAction());
+				if ((originals == null) || originals.isEmpty()) {
+					added.add(shortcut);
+				} else {
+					Shortcut original = originals.poll();
+					overrides.put(original, shortcut);
+					unmatched.remove(original);
+				}
+			}
+
+			return new Overlay(unmatched, overrides, added);
+		}
+
+		/**
+		 * Returns, for every Shortcut of the parent which is hidden, the number of
+		 * its first occurrences which are hidden.
+		 *
+		 * @return an unmodifiable Map with the counts
+		 */
+		public Map<Shortcut, Integer> getHidden() {
+			return hidden;
+		}
+
+		/**
+		 * Returns the Shortcut which is shown instead of every visible occurrence of
+		 * each overridden Shortcut of the parent.
+		 *
+		 * @return an unmodifiable Map from the Shortcuts of the parent to their
+		 *         overrides
+		 */
+		public Map<Shortcut, Shortcut> getOverrides() {
+			return overrides;
+		}
+
+		/**
+		 * Returns the Shortcuts which are shown after those of the parent.
+		 *
+		 * @return an unmodifiable List with the Shortcuts
+		 */
+		public List<Shortcut> getAdded() {
+			return added;
+		}
+
+		/**
+		 * Returns the number of changes of this overlay, which is the number of
+		 * Shortcuts it hides, overrides or adds.
+		 *
+		 * @return the number of changes
+		 */
+		public int size() {
+			int size = overrides.size() + added.size();
+			for (int count : hidden.values())
+				size += count;
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Overlay [hidden=%s, overrides=%s, added=%s]", hidden, overrides,
+			        added);
+		}
+	}
+
+	// the parent changed, the flattened view is rebuilt
+	private final class ParentListener implements ListDataListener {
+
+		@Override
+		public void intervalAdded(ListDataEvent e) {
+			parentChanged();
+		}
+
+		@Override
+		public void intervalRemoved(ListDataEvent e) {
+			parentChanged();
+		}
+
+		@Override
+		public void contentsChanged(ListDataEvent e) {
+			parentChanged();
+		}
+
+		private void parentChanged() {
+			int previousSize = rowCount;
+			flattened = false;
+			fireContentsChanged(previousSize);
+		}
+	}
+
+	private class ShortcutList extends AbstractList<Shortcut> implements RandomAccess {
+
+		@Override
+		public Shortcut get(int index) {
+			return getElementAt(index);
+		}
+
+		@Override
+		public int size() {
+			return getSize();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package alexman.shortcuts.shortcut.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import alexman.shortcuts.shortcut.BinaryShortcutCodec;
+import alexman.shortcuts.shortcut.BinaryShortcutFile;
+import alexman.shortcuts.shortcut.IShortcutFormatter;
+
+/**
+ * Reads the Shortcuts of a reader or a file into a List, for models to load.
+ * Text is parsed line by line with a Formatter and binary files, written by the
+ * {@link BinaryShortcutCodec}, are detected by their header.
+ *
+ * @author Alex Mandelias
+ */
+final class ShortcutReader {
+
+	private ShortcutReader() {
+		// don't allow instantiation
+	}
+
+	/**
+	 * Parses the lines of a reader into Shortcuts.
+	 *
+	 * @param reader the reader. It remains open after this method returns
+	 * @param sf the Formatter used to parse the lines
+	 *
+	 * @return a List with the Shortcuts, in order
+	 *
+	 * @throws IOException if an IO Exception occurs while reading from the reader
+	 * @throws ShortcutParseException if a line cannot be parsed
+	 */
+	static List<Shortcut> read(Reader reader, IShortcutFormatter sf) throws IOException {
+		List<Shortcut> shortcuts = new ArrayList<>();
+		LineReader.forEachLine(reader, lineParser(sf, shortcuts));
+		return shortcuts;
+	}
+
+	/**
+	 * Reads the Shortcuts of a file. The file is mapped into memory in large
+	 * windows, decoded with the platform's default Charset and each line is handed
+	 * to the Formatter without creating a String for it.
+	 *
+	 * @param path the path of the file
+	 * @param sf the Formatter used to parse the lines of text files
+	 *
+	 * @return a List with the Shortcuts, in order
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws ShortcutParseException if a line cannot be parsed
+	 */
+	static List<Shortcut> read(Path path, IShortcutFormatter sf) throws IOException {
+		if (BinaryShortcutCodec.isBinary(path))
+			return BinaryShortcutFile.open(path).readAll();
+
+		List<Shortcut> shortcuts = new ArrayList<>();
+		LineReader.forEachLine(path, Charset.defaultCharset(), lineParser(sf, shortcuts));
+		return shortcuts;
+	}
+
+	/**
+	 * Same as {@link #read(Path, IShortcutFormatter)}, but line-aligned chunks of
+	 * text files are parsed on the common fork/join pool.
+	 *
+	 * @param path the path of the file
+	 * @param sf the Formatter used to parse the lines of text files. It must be
+	 *        thread-safe
+	 *
+	 * @return a List with the Shortcuts, in order
+	 *
+	 * @throws IOException if an IO Exception occurs while reading the file
+	 * @throws ShortcutParseException if a line cannot be parsed
+	 */
+	static List<Shortcut> readParallel(Path path, IShortcutFormatter sf) throws IOException {
+		if (BinaryShortcutCodec.isBinary(path))
+			return BinaryShortcutFile.open(path).readAll();
+
+		return ParallelLoader.load(path, Charset.defaultCharset(), sf, ForkJoinPool.commonPool());
+	}
+
+	private static LineReader.LineConsumer lineParser(IShortcutFormatter sf,
+	        List<Shortcut> shortcuts) {
+		return (buffer, start, end, lineNumber) -> {
+			Shortcut s;
+			try {
+				s = sf.parse(buffer, start, end);
+			} catch (IllegalArgumentException e) {
+				throw new ShortcutParseException(lineNumber, e);
+			}
+
+			if (s != null) {
+				shortcuts.add(s);
+			}
+		};
+	}
+}
@@ -0,0 +1,243 @@
+package alexman.shortcuts.shortcut.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * Ranks the Shortcuts of a {@code ListModel} by how well their action fuzzily
+ * matches a query, for a command palette. An action matches if it contains the
+ * characters of the query in order, ignoring case. Matches are scored higher
+ * when the characters are consecutive or start words, and Shortcuts which have
+ * been used more often are scored higher.
+ * <p>
+ * Only the best {@code k} Shortcuts are kept, in a bounded heap, instead of
+ * sorting every match. The matches of the last query are also kept, so when a
+ * query extends the previous one, as it does while typing, only those are
+ * scored again. Any change to the model discards them.
+ * <p>
+ * Like Swing models, the palette is not thread-safe; it must be used on the
+ * thread which modifies the model.
+ *
+ * @author Alex Mandelias
+ */
+public class CommandPalette implements ListDataListener {
+
+	private static final int NO_MATCH = Integer.MIN_VALUE;
+
+	private static final int MATCH = 1, CONSECUTIVE = 5, WORD_START = 8, MAX_LEADING_PENALTY = 10;
+	private static final int USAGE_WEIGHT = 4;
+
+	private final ListModel<Shortcut> model;
+	private final Map<Shortcut, Integer> usage = new HashMap<>();
+
+	// a snapshot of the model with the lower case actions, taken on demand
+	private Shortcut[] rows;
+	private String[] actions, lowerActions;
+
+	// the last query and the rows which matched it
+	private String lastQuery;
+	private int[] matched;
+	private int matchedCount;
+
+	/**
+	 * Constructs a Command Palette over the Shortcuts of a model and starts
+	 * listening to it for changes.
+	 *
+	 * @param model the model
+	 */
+	public CommandPalette(ListModel<Shortcut> model) {
+		this.model = Objects.requireNonNull(model, "model cannot be null");
+		model.addListDataListener(this);
+	}
+
+	/** Stops listening to the model, after which its changes aren't seen */
+	public void close() {
+		model.removeListDataListener(this);
+	}
+
+	/**
+	 * Records that a Shortcut was used, which ranks it higher in later queries.
+	 *
+	 * @param shortcut the Shortcut
+	 */
+	public void recordUse(Shortcut shortcut) {
+		usage.merge(shortcut, 1, Integer::sum);
+	}
+
+	/**
+	 * Returns how many times a Shortcut has been used.
+	 *
+	 * @param shortcut the Shortcut
+	 *
+	 * @return the number of uses
+	 */
+	public int getUses(Shortcut shortcut) {
+		return usage.getOrDefault(shortcut, 0);
+	}
+
+	/**
+	 * Returns the {@code k} Shortcuts which best match the query.
+	 *
+	 * @param query the query. The empty query matches every Shortcut, which are
+	 *        then ranked by their use
+	 * @param k the maximum number of Shortcuts to return
+	 *
+	 * @return a List with the Shortcuts, best first
+	 *
+	 * @throws IllegalArgumentException if {@code k < 0}
+	 */
+	public List<Shortcut> search(String query, int k) {
+		if (k < 0)
+			throw new IllegalArgumentException("k cannot be negative");
+
+		String q = query.toLowerCase(Locale.ROOT);
+		if (rows == null)
+			snapshot();
+
+		// a longer query can only match a subset of the previous matches
+		boolean refine = (lastQuery != null) && q.startsWith(lastQuery);
+		int candidateCount = refine ? matchedCount : rows.length;
+		int[] candidates = refine ? matched : null;
+
+		int[] newMatched = new int[candidateCount];
+		int newMatchedCount = 0;
+		int[] scores = new int[rows.length];
+
+		// the head of the heap is the worst of the best k so far
+		Comparator<Integer> ranking = Comparator.<Integer>comparingInt(row -> scores[row])
+		        .thenComparing(row -> -actions[row].length())
+		        .thenComparing(row -> -row);
+		PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, k + 1), ranking);
+
+		char[] chars = q.toCharArray();
+		for (int i = 0; i < candidateCount; i++) {
+			int row = refine ? candidates[i] : i;
+			int score = score(actions[row], lowerActions[row], chars);
+			if (score == NO_MATCH)
+				continue;
+
+			newMatched[newMatchedCount++] = row;
+			scores[row] = usage.isEmpty() ? score
+			        : score + (USAGE_WEIGHT * log2(1 + getUses(rows[row])));
+
+			if (k == 0)
+				continue;
+
+			if (best.size() < k) {
+				best.add(row);
+			} else if ((scores[row] >= scores[best.peek()])
+			        && (ranking.compare(row, best.peek()) > 0)) {
+				best.poll();
+				best.add(row);
+			}
+		}
+
+		lastQuery = q;
+		matched = newMatched;
+		matchedCount = newMatchedCount;
+
+		List<Shortcut> results = new ArrayList<>(best.size());
+		while (!best.isEmpty())
+			results.add(rows[best.poll()]);
+		Collections.reverse(results);
+		return results;
+	}
+
+	@Override
+	public void intervalAdded(ListDataEvent e) {
+		invalidate();
+	}
+
+	@Override
+	public void intervalRemoved(ListDataEvent e) {
+		invalidate();
+	}
+
+	@Override
+	public void contentsChanged(ListDataEvent e) {
+		invalidate();
+	}
+
+	private void invalidate() {
+		rows = null;
+		actions = null;
+		lowerActions = null;
+		lastQuery = null;
+		matched = null;
+		matchedCount = 0;
+	}
+
+	private void snapshot() {
+		int size = model.getSize();
+		rows = new Shortcut[size];
+		actions = new String[size];
+		lowerActions = new String[size];
+		for (int row = 0; row < size; row++) {
+			rows[row] = model.getElementAt(row);
+			String action = rows[row].getAction();
+			actions[row] = action == null ? "" : action;
+			lowerActions[row] = actions[row].toLowerCase(Locale.ROOT);
+
+			// word starts are found in the original action, so the indexes must agree
+			if (lowerActions[row].length() != actions[row].length())
+				actions[row] = lowerActions[row];
+		}
+	}
+
+	/*
+	 * Matches the query as a subsequence of the action, taking the leftmost
+	 * occurrence of each character, and scores the match.
+	 */
+	private static int score(String action, String lowerAction, char[] query) {
+		if (query.length == 0)
+			return 0;
+
+		int score = 0, first = -1, previous = -2, position = 0;
+		for (char c : query) {
+			int found = lowerAction.indexOf(c, position);
+			if (found == -1)
+				return NO_MATCH;
+
+			score += MATCH;
+			if (found == previous + 1)
+				score += CONSECUTIVE;
+			if (isWordStart(action, found))
+				score += WORD_START;
+
+			if (first == -1)
+				first = found;
+			previous = found;
+			position = found + 1;
+		}
+
+		// penalise matches which start late or are spread out
+		int gaps = (previous - first + 1) - query.length;
+		return score - Math.min(first, MAX_LEADING_PENALTY) - (gaps / 2);
+	}
+
+	private static boolean isWordStart(String action, int index) {
+		if (index == 0)
+			return true;
+
+		char previous = action.charAt(index - 1), current = action.charAt(index);
+		return !Character.isLetterOrDigit(previous)
+		        || (Character.isLowerCase(previous) && Character.isUpperCase(current));
+	}
+
+	private static int log2(int n) {
+		return 31 - Integer.numberOfLeadingZeros(n);
+	}
+}
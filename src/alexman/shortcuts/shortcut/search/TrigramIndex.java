@@ -0,0 +1,322 @@
+package alexman.shortcuts.shortcut.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import alexman.shortcuts.shortcut.model.Shortcut;
+
+/**
+ * A case-insensitive substring index over the actions of the Shortcuts of a
+ * {@code ListModel}. Every action is split into its n-grams of one, two and
+ * three characters, and for every n-gram the index keeps a sorted list of the
+ * ids of the Shortcuts which contain it (an inverted index). Queries of up to
+ * three characters are answered by a single list, while longer queries
+ * intersect the lists of their trigrams and only check the remaining
+ * candidates.
+ * <p>
+ * The index listens to the model and is updated incrementally: Shortcuts
+ * appended to the end of the model are indexed and removed Shortcuts are
+ * unindexed, using a mirror of the model to know which Shortcuts were removed.
+ * A Shortcut replaced in its row keeps the id of that row and is re-indexed.
+ * Any other change causes the index to be rebuilt. Ids are assigned in model
+ * order, so the results of a query are also in model order.
+ * <p>
+ * Like Swing models, the index is not thread-safe; it must be used on the
+ * thread which modifies the model.
+ *
+ * @author Alex Mandelias
+ */
+public class TrigramIndex implements ListDataListener {
+
+	private static final int MAX_GRAM = 3;
+
+	private final ListModel<Shortcut> model;
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	// the id of the Shortcut in every row of the model, in model order
+	private int[] rows = new int[16];
+	private int rowCount = 0;
+
+	// the Shortcut and its lower case action for every id
+	private Shortcut[] shortcuts = new Shortcut[16];
+	private String[] texts = new String[16];
+	private int nextId = 0;
+
+	/**
+	 * Constructs a Trigram Index over the Shortcuts of a model and starts
+	 * listening to it for changes.
+	 *
+	 * @param model the model
+	 */
+	public TrigramIndex(ListModel<Shortcut> model) {
+		this.model = Objects.requireNonNull(model, "model cannot be null");
+		rebuild();
+		model.addListDataListener(this);
+	}
+
+	/** Stops listening to the model, after which this index is no longer updated */
+	public void close() {
+		model.removeListDataListener(this);
+	}
+
+	/**
+	 * Returns the number of Shortcuts in this index.
+	 *
+	 * @return the number of Shortcuts
+	 */
+	public int size() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns the Shortcuts whose action contains the query, ignoring case.
+	 *
+	 * @param query the query. The empty query matches every Shortcut
+	 *
+	 * @return a List with the Shortcuts, in model order
+	 */
+	public List<Shortcut> search(String query) {
+		return search(query, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns at most {@code limit} Shortcuts whose action contains the query,
+	 * ignoring case.
+	 *
+	 * @param query the query. The empty query matches every Shortcut
+	 * @param limit the maximum number of Shortcuts to return
+	 *
+	 * @return a List with the Shortcuts, in model order
+	 *
+	 * @throws IllegalArgumentException if {@code limit < 0}
+	 */
+	public List<Shortcut> search(String query, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("limit cannot be negative");
+
+		String q = query.toLowerCase(Locale.ROOT);
+		List<Shortcut> results = new ArrayList<>(Math.min(limit, 64));
+
+		if (q.isEmpty()) {
+			for (int row = 0; (row < rowCount) && (results.size() < limit); row++)
+				results.add(shortcuts[rows[row]]);
+			return results;
+		}
+
+		// the n-grams of the query are matched exactly
+		if (q.length() <= MAX_GRAM) {
+			Postings exact = postings.get(gram(q, 0, q.length()));
+			if (exact != null) {
+				for (int i = 0; (i < exact.size) && (results.size() < limit); i++)
+					results.add(shortcuts[exact.ids[i]]);
+			}
+			return results;
+		}
+
+		int gramCount = q.length() - MAX_GRAM + 1;
+		Postings[] lists = new Postings[gramCount];
+		for (int i = 0; i < gramCount; i++) {
+			lists[i] = postings.get(gram(q, i, MAX_GRAM));
+			if (lists[i] == null)
+				return results;
+		}
+
+		// intersect starting from the shortest list, so that there are fewer candidates
+		Arrays.sort(lists, (p1, p2) -> Integer.compare(p1.size, p2.size));
+		int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+		int candidateCount = candidates.length;
+		for (int l = 1; (l < lists.length) && (candidateCount > 0); l++)
+			candidateCount = lists[l].retainAll(candidates, candidateCount);
+
+		// the trigrams may appear in the wrong order or apart from each other
+		for (int i = 0; (i < candidateCount) && (results.size() < limit); i++) {
+			int id = candidates[i];
+			if (texts[id].contains(q))
+				results.add(shortcuts[id]);
+		}
+
+		return results;
+	}
+
+	@Override
+	public void intervalAdded(ListDataEvent e) {
+		int from = Math.min(e.getIndex0(), e.getIndex1());
+		int to = Math.max(e.getIndex0(), e.getIndex1());
+
+		// only appending keeps the ids in model order
+		if (from != rowCount) {
+			rebuild();
+			return;
+		}
+
+		for (int row = from; row <= to; row++)
+			append(model.getElementAt(row));
+	}
+
+	@Override
+	public void intervalRemoved(ListDataEvent e) {
+		int from = Math.min(e.getIndex0(), e.getIndex1());
+		int to = Math.max(e.getIndex0(), e.getIndex1());
+
+		for (int row = from; row <= to; row++)
+			unindex(rows[row]);
+
+		System.arraycopy(rows, to + 1, rows, from, rowCount - to - 1);
+		rowCount -= to - from + 1;
+
+		// reclaim the ids of the removed Shortcuts once they are the majority
+		if (nextId > (2 * rowCount) + 64)
+			rebuild();
+	}
+
+	@Override
+	public void contentsChanged(ListDataEvent e) {
+		int row = e.getIndex0();
+
+		// a single row was replaced, otherwise there is no way to know what changed
+		if ((row == e.getIndex1()) && (row >= 0) && (model.getSize() == rowCount))
+			replace(row);
+		else
+			rebuild();
+	}
+
+	private void rebuild() {
+		postings.clear();
+		rowCount = 0;
+		nextId = 0;
+		Arrays.fill(shortcuts, null);
+		Arrays.fill(texts, null);
+
+		for (int row = 0, size = model.getSize(); row < size; row++)
+			append(model.getElementAt(row));
+	}
+
+	private void append(Shortcut shortcut) {
+		int id = nextId++;
+		if (id == shortcuts.length) {
+			shortcuts = Arrays.copyOf(shortcuts, 2 * id);
+			texts = Arrays.copyOf(texts, 2 * id);
+		}
+
+		if (rowCount == rows.length)
+			rows = Arrays.copyOf(rows, 2 * rowCount);
+		rows[rowCount++] = id;
+
+		index(id, shortcut);
+	}
+
+	// the id of the row is kept, so that the ids remain in model order
+	private void replace(int row) {
+		int id = rows[row];
+		unindex(id);
+		index(id, model.getElementAt(row));
+	}
+
+	private void index(int id, Shortcut shortcut) {
+		String action = shortcut.getAction();
+		String text = action == null ? "" : action.toLowerCase(Locale.ROOT);
+		shortcuts[id] = shortcut;
+		texts[id] = text;
+
+		for (int n = 1; n <= MAX_GRAM; n++) {
+			for (int i = 0; i + n <= text.length(); i++)
+				postings.computeIfAbsent(gram(text, i, n), g -> new Postings()).add(id);
+		}
+	}
+
+	private void unindex(int id) {
+		String text = texts[id];
+		for (int n = 1; n <= MAX_GRAM; n++) {
+			for (int i = 0; i + n <= text.length(); i++) {
+				Long gram = gram(text, i, n);
+				Postings p = postings.get(gram);
+				if ((p != null) && p.remove(id) && (p.size == 0))
+					postings.remove(gram);
+			}
+		}
+
+		shortcuts[id] = null;
+		texts[id] = null;
+	}
+
+	// packs the length and the characters of an n-gram into a long
+	private static Long gram(String s, int start, int n) {
+		long gram = n;
+		for (int i = 0; i < n; i++)
+			gram = (gram << 16) | s.charAt(start + i);
+		return gram;
+	}
+
+	private static final class Postings {
+
+		int[] ids = new int[4];
+		int size = 0;
+
+		/*
+		 * Ids are mostly added in increasing order, except for those of replaced
+		 * Shortcuts, and an n-gram may appear many times.
+		 */
+		void add(int id) {
+			int index = size;
+			if ((size > 0) && (ids[size - 1] >= id)) {
+				index = Arrays.binarySearch(ids, 0, size, id);
+				if (index >= 0)
+					return;
+				index = -index - 1;
+			}
+
+			if (size == ids.length)
+				ids = Arrays.copyOf(ids, 2 * size);
+			System.arraycopy(ids, index, ids, index + 1, size - index);
+			ids[index] = id;
+			size++;
+		}
+
+		boolean remove(int id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index < 0)
+				return false;
+
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			size--;
+			return true;
+		}
+
+		/*
+		 * Keeps the candidates which are also in this list and returns how many they
+		 * are. Both are sorted, so the position in this list only moves forward,
+		 * in exponentially growing steps.
+		 */
+		int retainAll(int[] candidates, int count) {
+			int kept = 0, position = 0;
+			for (int i = 0; (i < count) && (position < size); i++) {
+				int candidate = candidates[i];
+
+				int step = 1, high = position;
+				while ((high < size) && (ids[high] < candidate)) {
+					position = high + 1;
+					high += step;
+					step <<= 1;
+				}
+
+				int index = Arrays.binarySearch(ids, position, Math.min(high + 1, size), candidate);
+				if (index >= 0) {
+					candidates[kept++] = candidate;
+					position = index + 1;
+				} else {
+					position = -index - 1;
+				}
+			}
+			return kept;
+		}
+	}
+}